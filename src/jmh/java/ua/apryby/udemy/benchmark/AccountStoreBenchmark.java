@@ -0,0 +1,80 @@
+package ua.apryby.udemy.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ua.apryby.udemy.broker.model.Symbol;
+import ua.apryby.udemy.broker.model.WatchList;
+import ua.apryby.udemy.broker.store.InMemoryAccountStore;
+import ua.apryby.udemy.broker.store.SymbolRegistry;
+import ua.apryby.udemy.broker.store.Versioned;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link InMemoryAccountStore} under four threads, either all hitting one account or spread over many.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class AccountStoreBenchmark {
+
+    private static final List<Symbol> SYMBOLS = List.of(
+            new Symbol("AAPL"), new Symbol("AMZN"), new Symbol("FB"), new Symbol("GOOG"), new Symbol("MSFT"));
+
+    @Param({"1", "1024"})
+    public int accounts;
+
+    private InMemoryAccountStore store;
+    private UUID[] accountIds;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        final SymbolRegistry registry = new SymbolRegistry();
+        SYMBOLS.forEach(symbol -> registry.register(symbol.getValue()));
+        store = new InMemoryAccountStore(registry);
+        accountIds = new UUID[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountIds[i] = UUID.randomUUID();
+            store.updateWatchList(accountIds[i], new WatchList(SYMBOLS.subList(0, 3)));
+        }
+    }
+
+    @Benchmark
+    public WatchList getWatchList() {
+        return store.getWatchList(anyAccount());
+    }
+
+    @Benchmark
+    public WatchList updateWatchList() {
+        return store.updateWatchList(anyAccount(), new WatchList(SYMBOLS.subList(0, 3)));
+    }
+
+    @Benchmark
+    public Versioned<WatchList> addAndRemoveSymbol() {
+        final UUID accountId = anyAccount();
+        store.addSymbol(accountId, SYMBOLS.get(4));
+        return store.removeSymbol(accountId, SYMBOLS.get(4));
+    }
+
+    private UUID anyAccount() {
+        return accountIds[ThreadLocalRandom.current().nextInt(accountIds.length)];
+    }
+}
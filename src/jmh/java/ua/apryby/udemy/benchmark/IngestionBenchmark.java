@@ -0,0 +1,63 @@
+package ua.apryby.udemy.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ua.apryby.udemy.broker.ingest.IngestionConfiguration;
+import ua.apryby.udemy.broker.ingest.IngestionPipeline;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.SymbolRegistry;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sustained ticks per second through {@link IngestionPipeline}: two sources put ticks while the writer
+ * coalesces and publishes them, so the score is bounded by the slower of the two sides.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(2)
+@State(Scope.Benchmark)
+public class IngestionBenchmark {
+
+    private InMemoryStore store;
+    private IngestionPipeline pipeline;
+    private int[] symbolIds;
+
+    @Setup
+    public void setUp() {
+        store = new InMemoryStore(new SymbolRegistry());
+        symbolIds = store.getAllSymbols().stream()
+                .mapToInt(symbol -> store.getRegistry().resolve(symbol.getValue()))
+                .toArray();
+        pipeline = new IngestionPipeline(store, List.of(), new IngestionConfiguration(), new SimpleMeterRegistry());
+        pipeline.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pipeline.stop();
+    }
+
+    @Benchmark
+    public boolean put() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final long price = random.nextLong(100, 10_000);
+        return pipeline.put(symbolIds[random.nextInt(symbolIds.length)], price, price + 1, price, 10);
+    }
+}
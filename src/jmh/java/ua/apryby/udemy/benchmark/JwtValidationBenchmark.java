@@ -0,0 +1,148 @@
+package ua.apryby.udemy.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.security.authentication.Authentication;
+import io.reactivex.Flowable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ua.apryby.udemy.auth.jwt.CachingJwtTokenValidator;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of validating the HS256 bearer tokens the application issues. {@code cacheHit} and {@code cacheMiss} run
+ * the application's {@link CachingJwtTokenValidator}: a hit pays hashing the token, the revocation check and the
+ * cache lookup, a miss pays those plus the full verification. The others measure that verification alone:
+ * parsing, checking the signature and reading the claims.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtValidationBenchmark {
+
+    // same secret as micronaut.security.token.jwt.signatures.secret.generator in application.yml
+    private static final String SECRET = "changeThisSecretToALongSecureString";
+
+    private String token;
+    private MACVerifier verifier;
+
+    @Setup
+    public void setUp() throws JOSEException {
+        token = token();
+        verifier = new MACVerifier(SECRET);
+    }
+
+    @Benchmark
+    public Authentication cacheHit(final CachedValidator validator) {
+        return validator.validate(token);
+    }
+
+    @Benchmark
+    public Authentication cacheMiss(final UncachedValidator validator) {
+        return validator.validate(token);
+    }
+
+    @Benchmark
+    public JWTClaimsSet parse() throws ParseException {
+        return SignedJWT.parse(token).getJWTClaimsSet();
+    }
+
+    @Benchmark
+    public JWTClaimsSet parseAndVerify() throws ParseException, JOSEException {
+        final SignedJWT jwt = SignedJWT.parse(token);
+        if (!jwt.verify(verifier)) {
+            throw new IllegalStateException("signature rejected");
+        }
+        return jwt.getJWTClaimsSet();
+    }
+
+    @Benchmark
+    public JWTClaimsSet parseAndVerifyWithNewVerifier() throws ParseException, JOSEException {
+        final SignedJWT jwt = SignedJWT.parse(token);
+        if (!jwt.verify(new MACVerifier(SECRET))) {
+            throw new IllegalStateException("signature rejected");
+        }
+        return jwt.getJWTClaimsSet();
+    }
+
+    private static String token() throws JOSEException {
+        final JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("my-user")
+                .issuer("mnStockBrokerV2")
+                .claim("roles", List.of())
+                .issueTime(new Date())
+                .expirationTime(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .build();
+        final SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+        jwt.sign(new MACSigner(SECRET));
+        return jwt.serialize();
+    }
+
+    /**
+     * The application's validator, started in its own context with the given token cache size.
+     */
+    public abstract static class Validator {
+        private ApplicationContext context;
+        private CachingJwtTokenValidator validator;
+
+        @Setup
+        public void start() {
+            context = ApplicationContext.run(Map.of("broker.auth.token-cache.max-size", cacheSize()));
+            validator = context.getBean(CachingJwtTokenValidator.class);
+        }
+
+        @TearDown
+        public void stop() {
+            context.close();
+        }
+
+        /**
+         * @throws java.util.NoSuchElementException if the token is rejected
+         */
+        Authentication validate(final String token) {
+            return Flowable.fromPublisher(validator.validateToken(token, null)).blockingFirst();
+        }
+
+        abstract int cacheSize();
+    }
+
+    @State(Scope.Benchmark)
+    public static class CachedValidator extends Validator {
+        @Override
+        int cacheSize() {
+            return 65_536;
+        }
+    }
+
+    // a cache of size 0 keeps nothing, so every token is verified
+    @State(Scope.Benchmark)
+    public static class UncachedValidator extends Validator {
+        @Override
+        int cacheSize() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ua.apryby.udemy.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ua.apryby.udemy.broker.ingest.IngestionConfiguration;
+import ua.apryby.udemy.broker.ingest.IngestionPipeline;
+import ua.apryby.udemy.broker.model.Order;
+import ua.apryby.udemy.broker.model.OrderType;
+import ua.apryby.udemy.broker.model.Side;
+import ua.apryby.udemy.broker.order.MatchingEngine;
+import ua.apryby.udemy.broker.order.OrderConfiguration;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.SymbolRegistry;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of one order through {@link MatchingEngine}: queueing, matching against a book a few levels
+ * deep around the mid price, offering its trades to the ingestion pipeline and completing the result. Alternating
+ * sides keep the book from draining or growing without bound.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MatchingBenchmark {
+
+    private static final UUID ACCOUNT = UUID.randomUUID();
+
+    private IngestionPipeline pipeline;
+    private MatchingEngine engine;
+    private QuoteBook.Entry entry;
+    private boolean buy;
+
+    @Setup
+    public void setUp() {
+        final InMemoryStore store = new InMemoryStore(new SymbolRegistry());
+        entry = store.quoteEntry("AAPL");
+        final OrderConfiguration configuration = new OrderConfiguration();
+        configuration.setMatchers(1);
+        pipeline = new IngestionPipeline(store, List.of(), new IngestionConfiguration(), new SimpleMeterRegistry());
+        pipeline.start();
+        engine = new MatchingEngine(pipeline, List.of(), configuration, new SimpleMeterRegistry());
+        engine.start();
+        for (int level = 1; level <= 10; level++) {
+            engine.submit(ACCOUNT, entry, Side.BUY, OrderType.LIMIT, 10_000 - level, 100).join();
+            engine.submit(ACCOUNT, entry, Side.SELL, OrderType.LIMIT, 10_000 + level, 100).join();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        engine.stop();
+        pipeline.stop();
+    }
+
+    @Benchmark
+    public Order limitOrder() {
+        buy = !buy;
+        final long price = 10_000 + (buy ? 1 : -1) * ThreadLocalRandom.current().nextLong(0, 3);
+        return engine.submit(ACCOUNT, entry, buy ? Side.BUY : Side.SELL, OrderType.LIMIT, price, 10).join();
+    }
+}
@@ -0,0 +1,98 @@
+package ua.apryby.udemy.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ua.apryby.udemy.broker.model.Quote;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.QuoteTicks;
+import ua.apryby.udemy.broker.store.SymbolRegistry;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read and write paths of {@link InMemoryStore}, alone and with readers racing a writer on the same symbol.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuoteStoreBenchmark {
+
+    private static final String SYMBOL = "AAPL";
+
+    private InMemoryStore store;
+    private int symbolId;
+
+    @Setup
+    public void setUp() {
+        store = new InMemoryStore(new SymbolRegistry());
+        symbolId = store.getRegistry().resolve(SYMBOL);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final QuoteTicks ticks = new QuoteTicks();
+        final ByteBuf json = Unpooled.buffer(128);
+        long price = 100;
+    }
+
+    @Benchmark
+    public Optional<Quote> fetchQuote() {
+        return store.fetchQuote(SYMBOL);
+    }
+
+    @Benchmark
+    public QuoteTicks fetchQuoteTicks(final ThreadState state) {
+        store.fetchQuote(SYMBOL, state.ticks);
+        return state.ticks;
+    }
+
+    @Benchmark
+    public Optional<QuoteBook.EncodedJson> fetchQuoteJson() {
+        return store.fetchQuoteJson(SYMBOL);
+    }
+
+    @Benchmark
+    public ByteBuf writeQuoteJson(final ThreadState state) {
+        state.json.clear();
+        store.writeQuoteJson(SYMBOL, state.json);
+        return state.json;
+    }
+
+    @Benchmark
+    public void update(final ThreadState state) {
+        final long price = state.price++;
+        store.update(symbolId, price, price + 1, price, 10);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public QuoteTicks contendedRead(final ThreadState state) {
+        store.fetchQuote(SYMBOL, state.ticks);
+        return state.ticks;
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void contendedUpdate(final ThreadState state) {
+        update(state);
+    }
+}
@@ -0,0 +1,76 @@
+package ua.apryby.udemy.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ua.apryby.udemy.broker.model.Quote;
+import ua.apryby.udemy.broker.model.Symbol;
+import ua.apryby.udemy.broker.model.WatchList;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.QuoteJson;
+import ua.apryby.udemy.broker.store.QuoteTicks;
+import ua.apryby.udemy.broker.store.TickSize;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson encoding of the API models against the hand written {@link QuoteJson} encoder.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final QuoteTicks ticks = new QuoteTicks();
+    private final ByteBuf out = Unpooled.buffer(128);
+    private Quote quote;
+    private WatchList watchList;
+
+    @Setup
+    public void setUp() {
+        final QuoteBook book = new QuoteBook();
+        book.register(new Symbol("AAPL"), TickSize.DEFAULT).update(14512, 14520, 14515, 37);
+        book.read("AAPL", ticks);
+        quote = ticks.toQuote();
+        watchList = new WatchList(List.of(
+                new Symbol("AAPL"), new Symbol("AMZN"), new Symbol("FB"), new Symbol("GOOG"), new Symbol("MSFT")));
+    }
+
+    @Benchmark
+    public byte[] jacksonQuote() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(quote);
+    }
+
+    @Benchmark
+    public ByteBuf quoteJson() {
+        out.clear();
+        QuoteJson.write(ticks, out);
+        return out;
+    }
+
+    @Benchmark
+    public byte[] jacksonWatchList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(watchList);
+    }
+
+    @Benchmark
+    public WatchList jacksonReadWatchList() throws JsonProcessingException {
+        return objectMapper.readValue("{\"symbols\":[{\"value\":\"AAPL\"},{\"value\":\"MSFT\"}]}", WatchList.class);
+    }
+}
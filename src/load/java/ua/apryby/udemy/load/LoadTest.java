@@ -0,0 +1,116 @@
+package ua.apryby.udemy.load;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.client.RxHttpClient;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.micronaut.security.authentication.UsernamePasswordCredentials;
+import io.micronaut.security.token.jwt.render.BearerAccessRefreshToken;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the application on a random port and drives its HTTP endpoints with an open-loop workload.
+ * Configured through system properties:
+ * <ul>
+ *     <li>{@code load.rate} - requests per second offered, default 1000</li>
+ *     <li>{@code load.duration} / {@code load.warmup} - seconds measured / discarded first, default 30 / 10</li>
+ *     <li>{@code load.mix} - weighted operations, see {@link Operation}, default
+ *     {@value #DEFAULT_MIX}</li>
+ *     <li>{@code load.connections} - pooled client connections, default 64</li>
+ *     <li>{@code load.max-in-flight} - outstanding requests before new ones are dropped, default 4096; dropped
+ *     requests count towards the percentiles with the time until the end of the run</li>
+ *     <li>{@code load.report-dir} - where the {@code .hgrm} percentile reports go, default
+ *     {@code target/load-test}</li>
+ * </ul>
+ */
+public final class LoadTest {
+
+    static final String USERNAME = "my-user";
+    static final String PASSWORD = "secret";
+
+    private static final String DEFAULT_MIX = "quote:60,markets:10,watchlist:20,watchlist-patch:8,login:2";
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        final int rate = Integer.getInteger("load.rate", 1000);
+        final long duration = TimeUnit.SECONDS.toNanos(Long.getLong("load.duration", 30));
+        final long warmup = TimeUnit.SECONDS.toNanos(Long.getLong("load.warmup", 10));
+        final Mix mix = Mix.parse(System.getProperty("load.mix", DEFAULT_MIX));
+        final int connections = Integer.getInteger("load.connections", 64);
+        final int maxInFlight = Integer.getInteger("load.max-in-flight", 4096);
+        final Path reportDir = Paths.get(System.getProperty("load.report-dir", "target/load-test"));
+
+        final EmbeddedServer server = ApplicationContext.run(EmbeddedServer.class, Map.of(
+                "micronaut.server.port", -1,
+                "micronaut.http.client.pool.enabled", true,
+                "micronaut.http.client.pool.max-connections", connections,
+                "micronaut.http.client.pool.max-pending-acquires", maxInFlight,
+                "logger.levels.ua.apryby.udemy", "INFO"));
+        try (RxHttpClient client = server.getApplicationContext().createBean(RxHttpClient.class, server.getURL())) {
+            final String token = client.toBlocking()
+                    .retrieve(HttpRequest.POST("/login", new UsernamePasswordCredentials(USERNAME, PASSWORD)),
+                            BearerAccessRefreshToken.class)
+                    .getAccessToken();
+            final OpenLoopDriver driver = new OpenLoopDriver(client, mix, token, maxInFlight);
+            final long drainTimeout = TimeUnit.SECONDS.toNanos(30);
+
+            System.out.printf(Locale.ROOT, "warming up %ds at %d req/s, %.0f%% writes%n",
+                    TimeUnit.NANOSECONDS.toSeconds(warmup), rate, mix.writeRatio() * 100);
+            driver.run(rate, warmup, drainTimeout);
+            System.out.printf(Locale.ROOT, "measuring %ds%n", TimeUnit.NANOSECONDS.toSeconds(duration));
+            report(driver.run(rate, duration, drainTimeout), reportDir);
+        } finally {
+            server.getApplicationContext().close();
+        }
+    }
+
+    private static void report(final Map<Operation, OpenLoopDriver.Result> results, final Path reportDir)
+            throws IOException {
+        Files.createDirectories(reportDir);
+        final Histogram total = new Histogram(3);
+        long dropped = 0;
+        System.out.printf(Locale.ROOT, "%-16s %10s %8s %8s %10s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "dropped", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<Operation, OpenLoopDriver.Result> entry : results.entrySet()) {
+            final OpenLoopDriver.Result result = entry.getValue();
+            final Histogram latency = result.getLatency();
+            total.add(latency);
+            dropped += result.getDropped();
+            System.out.printf(Locale.ROOT, "%-16s %10d %8d %8d %10.1f %9.3f %9.3f %9.3f %9.3f%n",
+                    entry.getKey().getKey(), result.getCompleted(), result.getErrors(), result.getDropped(),
+                    result.getThroughput(), millis(latency, 50), millis(latency, 99), millis(latency, 99.9),
+                    latency.getMaxValue() / MICROS_PER_MILLI);
+            writePercentiles(latency, reportDir.resolve(entry.getKey().getKey() + ".hgrm"));
+        }
+        writePercentiles(total, reportDir.resolve("all.hgrm"));
+        System.out.printf(Locale.ROOT, "%-16s %10d %8s %8d %10s %9.3f %9.3f %9.3f %9.3f%n", "all",
+                total.getTotalCount() - dropped, "", dropped, "",
+                millis(total, 50), millis(total, 99), millis(total, 99.9), total.getMaxValue() / MICROS_PER_MILLI);
+        if (dropped > 0) {
+            System.out.println("percentiles include " + dropped + " dropped requests, the offered load was not met");
+        }
+        System.out.println("percentile reports written to " + reportDir.toAbsolutePath());
+    }
+
+    private static double millis(final Histogram latency, final double percentile) {
+        return latency.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+
+    private static void writePercentiles(final Histogram latency, final Path file) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+            latency.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ua.apryby.udemy.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted choice of operations parsed from {@code quote:60,markets:10,watchlist-patch:5}.
+ */
+final class Mix {
+
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    private Mix(final Operation[] operations, final int[] cumulativeWeights) {
+        this.operations = operations;
+        this.cumulativeWeights = cumulativeWeights;
+    }
+
+    static Mix parse(final String mix) {
+        final List<Operation> operations = new ArrayList<>();
+        final List<Integer> weights = new ArrayList<>();
+        int total = 0;
+        for (String part : mix.split(",")) {
+            final String[] keyAndWeight = part.trim().split(":");
+            final int weight = keyAndWeight.length > 1 ? Integer.parseInt(keyAndWeight[1].trim()) : 1;
+            if (weight <= 0) {
+                continue;
+            }
+            total += weight;
+            operations.add(Operation.of(keyAndWeight[0].trim()));
+            weights.add(total);
+        }
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("Empty load mix " + mix);
+        }
+        return new Mix(operations.toArray(Operation[]::new), weights.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    Operation next() {
+        final int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    List<Operation> operations() {
+        return List.of(operations);
+    }
+
+    double writeRatio() {
+        int previous = 0;
+        int writes = 0;
+        for (int i = 0; i < operations.length; i++) {
+            if (operations[i].isWrite()) {
+                writes += cumulativeWeights[i] - previous;
+            }
+            previous = cumulativeWeights[i];
+        }
+        return (double) writes / previous;
+    }
+}
@@ -0,0 +1,162 @@
+package ua.apryby.udemy.load;
+
+import io.micronaut.http.client.RxHttpClient;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a constant arrival rate regardless of how fast responses come back. Latency is measured
+ * from the moment a request was due, not from when it was actually sent, so a stalled server shows up in the
+ * percentiles instead of silently lowering the offered load (coordinated omission). Requests not sent because
+ * {@code maxInFlight} were outstanding are recorded too, with the time from their due moment to the end of the
+ * run as a lower bound of their latency.
+ */
+final class OpenLoopDriver {
+
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final RxHttpClient client;
+    private final Mix mix;
+    private final String token;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    OpenLoopDriver(final RxHttpClient client, final Mix mix, final String token, final int maxInFlight) {
+        this.client = client;
+        this.mix = mix;
+        this.token = token;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Offers {@code rate} requests per second for the given duration, then waits up to {@code drainTimeout}
+     * for outstanding responses.
+     */
+    Map<Operation, Result> run(final int rate, final long durationNanos, final long drainTimeoutNanos) {
+        final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+        mix.operations().forEach(operation -> stats.put(operation, new Stats()));
+
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        final long start = System.nanoTime();
+        final long end = start + durationNanos;
+        for (long i = 0; ; i++) {
+            final long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            waitUntil(intended);
+            final Operation operation = mix.next();
+            final Stats operationStats = stats.get(operation);
+            if (inFlight.get() >= maxInFlight) {
+                operationStats.drop(intended);
+                continue;
+            }
+            inFlight.incrementAndGet();
+            client.exchange(operation.request(token), byte[].class).subscribe(
+                    response -> complete(operationStats, intended, true),
+                    error -> complete(operationStats, intended, false));
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        final long drainDeadline = System.nanoTime() + drainTimeoutNanos;
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        final long finished = System.nanoTime();
+        final Map<Operation, Result> results = new EnumMap<>(Operation.class);
+        stats.forEach((operation, operationStats) -> results.put(operation, operationStats.result(elapsed, finished)));
+        return results;
+    }
+
+    private void complete(final Stats stats, final long intended, final boolean success) {
+        final long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+        if (success) {
+            stats.latency.recordValue(latencyMicros);
+        } else {
+            stats.errors.increment();
+        }
+        inFlight.decrementAndGet();
+    }
+
+    private static void waitUntil(final long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private static final class Stats {
+        private final Recorder latency = new Recorder(3);
+        private final LongAdder errors = new LongAdder();
+        // due times of dropped requests, only touched by the thread offering the load
+        private long[] droppedAt = new long[64];
+        private int dropped;
+
+        private void drop(final long intended) {
+            if (dropped == droppedAt.length) {
+                droppedAt = Arrays.copyOf(droppedAt, dropped * 2);
+            }
+            droppedAt[dropped++] = intended;
+        }
+
+        private Result result(final long elapsedNanos, final long finished) {
+            for (int i = 0; i < dropped; i++) {
+                latency.recordValue(TimeUnit.NANOSECONDS.toMicros(finished - droppedAt[i]));
+            }
+            return new Result(latency.getIntervalHistogram(), errors.sum(), dropped, elapsedNanos);
+        }
+    }
+
+    /**
+     * Latencies of successful and dropped requests in microseconds, plus the number of failed and dropped ones.
+     */
+    static final class Result {
+        private final Histogram latency;
+        private final long errors;
+        private final long dropped;
+        private final long elapsedNanos;
+
+        Result(final Histogram latency, final long errors, final long dropped, final long elapsedNanos) {
+            this.latency = latency;
+            this.errors = errors;
+            this.dropped = dropped;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        Histogram getLatency() {
+            return latency;
+        }
+
+        long getErrors() {
+            return errors;
+        }
+
+        long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * @return successful requests, the latency histogram also holds the dropped ones
+         */
+        long getCompleted() {
+            return latency.getTotalCount() - dropped;
+        }
+
+        double getThroughput() {
+            return getCompleted() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ua.apryby.udemy.load;
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.MediaType;
+import io.micronaut.security.authentication.UsernamePasswordCredentials;
+import ua.apryby.udemy.broker.model.Symbol;
+import ua.apryby.udemy.broker.model.WatchList;
+import ua.apryby.udemy.broker.model.WatchListPatch;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The requests a load test can mix, named as in {@code load.mix}.
+ */
+enum Operation {
+
+    QUOTE("quote", false) {
+        @Override
+        HttpRequest<?> request(final String token) {
+            return HttpRequest.GET("/quotes/" + anySymbol()).accept(MediaType.APPLICATION_JSON);
+        }
+    },
+    MARKETS("markets", false) {
+        @Override
+        HttpRequest<?> request(final String token) {
+            return HttpRequest.GET("/markets").accept(MediaType.APPLICATION_JSON);
+        }
+    },
+    LOGIN("login", false) {
+        @Override
+        HttpRequest<?> request(final String token) {
+            return HttpRequest.POST("/login", new UsernamePasswordCredentials(LoadTest.USERNAME, LoadTest.PASSWORD));
+        }
+    },
+    WATCHLIST("watchlist", false) {
+        @Override
+        HttpRequest<?> request(final String token) {
+            return HttpRequest.GET("/account/watchlist").accept(MediaType.APPLICATION_JSON).bearerAuth(token);
+        }
+    },
+    WATCHLIST_PUT("watchlist-put", true) {
+        @Override
+        HttpRequest<?> request(final String token) {
+            return HttpRequest.PUT("/account/watchlist", new WatchList(List.of(new Symbol(anySymbol()))))
+                    .accept(MediaType.APPLICATION_JSON).bearerAuth(token);
+        }
+    },
+    WATCHLIST_PATCH("watchlist-patch", true) {
+        @Override
+        HttpRequest<?> request(final String token) {
+            final Symbol symbol = new Symbol(anySymbol());
+            final WatchListPatch patch = ThreadLocalRandom.current().nextBoolean()
+                    ? new WatchListPatch(List.of(symbol), List.of())
+                    : new WatchListPatch(List.of(), List.of(symbol));
+            return HttpRequest.PATCH("/account/watchlist", patch)
+                    .accept(MediaType.APPLICATION_JSON).bearerAuth(token);
+        }
+    };
+
+    private static final String[] SYMBOLS = {"AAPL", "AMZN", "FB", "GOOG", "MSFT", "NFLX", "TSLA"};
+
+    private final String key;
+    private final boolean write;
+
+    Operation(final String key, final boolean write) {
+        this.key = key;
+        this.write = write;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    boolean isWrite() {
+        return write;
+    }
+
+    abstract HttpRequest<?> request(String token);
+
+    static Operation of(final String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation " + key);
+    }
+
+    private static String anySymbol() {
+        return SYMBOLS[ThreadLocalRandom.current().nextInt(SYMBOLS.length)];
+    }
+}
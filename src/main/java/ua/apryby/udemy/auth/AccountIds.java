@@ -0,0 +1,34 @@
+package ua.apryby.udemy.auth;
+
+import io.micronaut.security.authentication.Authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Account of an authenticated user. Tokens carry it in the {@value #CLAIM} claim; it is derived from the username,
+ * so the same user always gets the same account, also across restarts.
+ */
+public final class AccountIds {
+
+    public static final String CLAIM = "accountId";
+
+    private AccountIds() {
+    }
+
+    public static UUID forUsername(final String username) {
+        return UUID.nameUUIDFromBytes(("account:" + username).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static UUID of(final Authentication authentication) {
+        final Object claim = authentication.getAttributes().get(CLAIM);
+        if (claim instanceof String) {
+            try {
+                return UUID.fromString((String) claim);
+            } catch (IllegalArgumentException e) {
+                // not issued by us, fall back to the username it was issued for
+            }
+        }
+        return forUsername(authentication.getName());
+    }
+}
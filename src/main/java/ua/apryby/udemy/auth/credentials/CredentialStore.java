@@ -0,0 +1,12 @@
+package ua.apryby.udemy.auth.credentials;
+
+import java.util.Optional;
+
+/**
+ * Source of the users allowed to log in; replace the bean to keep them elsewhere. Lookups happen on the event
+ * loop and must not block.
+ */
+public interface CredentialStore {
+
+    Optional<UserCredentials> find(String username);
+}
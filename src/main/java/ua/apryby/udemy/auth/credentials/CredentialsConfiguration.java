@@ -0,0 +1,45 @@
+package ua.apryby.udemy.auth.credentials;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties("broker.auth.credentials")
+public class CredentialsConfiguration {
+
+    /**
+     * Users as {@code username:password-hash[:role,...]}, see {@link PasswordHasher} for the hash format.
+     */
+    private List<String> users = new ArrayList<>();
+
+    /**
+     * File with one user per line in the format of {@link #users}, used instead of them when set.
+     */
+    private String file;
+
+    /**
+     * Threads hashing passwords, so logins never use more CPU than that.
+     */
+    private int hashThreads = 2;
+
+    /**
+     * Logins waiting for a hashing thread before further ones are refused.
+     */
+    private int queueSize = 64;
+
+    /**
+     * Passwords hashed per user within {@link #attemptWindow} before further logins are refused.
+     */
+    private int maxAttempts = 10;
+
+    private Duration attemptWindow = Duration.ofMinutes(1);
+
+    /**
+     * How long a successful login is remembered, letting the same user and password in again without hashing.
+     */
+    private Duration successTtl = Duration.ofMinutes(5);
+}
@@ -0,0 +1,47 @@
+package ua.apryby.udemy.auth.credentials;
+
+import io.micronaut.context.annotation.Requires;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Users read once at startup from the configured file; blank lines and lines starting with {@code #} are
+ * skipped.
+ */
+@Singleton
+@Requires(property = "broker.auth.credentials.file")
+public class FileCredentialStore implements CredentialStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileCredentialStore.class);
+
+    private final Map<String, UserCredentials> users;
+
+    public FileCredentialStore(final CredentialsConfiguration configuration) {
+        final Path file = Path.of(configuration.getFile());
+        try (Stream<String> lines = Files.lines(file)) {
+            users = lines.map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .map(UserCredentials::parse)
+                    .collect(Collectors.toUnmodifiableMap(UserCredentials::getUsername, Function.identity()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read users from " + file, e);
+        }
+        LOG.info("Read {} users from {}", users.size(), file);
+    }
+
+    @Override
+    public Optional<UserCredentials> find(final String username) {
+        return Optional.ofNullable(users.get(username));
+    }
+}
@@ -0,0 +1,33 @@
+package ua.apryby.udemy.auth.credentials;
+
+import io.micronaut.context.annotation.Requires;
+
+import javax.inject.Singleton;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Singleton
+@Requires(missingProperty = "broker.auth.credentials.file")
+public class InMemoryCredentialStore implements CredentialStore {
+
+    private final ConcurrentHashMap<String, UserCredentials> users = new ConcurrentHashMap<>();
+
+    public InMemoryCredentialStore(final CredentialsConfiguration configuration) {
+        configuration.getUsers().stream()
+                .map(UserCredentials::parse)
+                .forEach(this::put);
+    }
+
+    @Override
+    public Optional<UserCredentials> find(final String username) {
+        return Optional.ofNullable(users.get(username));
+    }
+
+    public void put(final UserCredentials credentials) {
+        users.put(credentials.getUsername(), credentials);
+    }
+
+    public void remove(final String username) {
+        users.remove(username);
+    }
+}
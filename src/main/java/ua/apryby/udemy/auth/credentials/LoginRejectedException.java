@@ -0,0 +1,11 @@
+package ua.apryby.udemy.auth.credentials;
+
+/**
+ * A login refused before its password was checked.
+ */
+public class LoginRejectedException extends RuntimeException {
+
+    public LoginRejectedException(final String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,75 @@
+package ua.apryby.udemy.auth.credentials;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts password checks per username in fixed windows, so guessing the password of one user is limited no
+ * matter how many connections the guesses arrive on.
+ * <p>
+ * The counts of a window live in one generation of a fixed number of counters, replaced by an empty one when
+ * the next window starts and dropped whole, so the memory it takes does not depend on how many usernames are
+ * tried and nothing is ever scanned. Usernames that hash to the same counter share it, which can only
+ * throttle them sooner.
+ */
+final class LoginThrottle {
+
+    // counters per generation
+    private static final int SLOTS = 65_536;
+
+    private final AtomicReference<Generation> generation = new AtomicReference<>(new Generation(Long.MIN_VALUE));
+    private final int maxAttempts;
+    private final long windowMillis;
+    private final LongSupplier clock;
+
+    LoginThrottle(final int maxAttempts, final long windowMillis, final LongSupplier clock) {
+        this.maxAttempts = maxAttempts;
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * @return false if the user ran out of attempts in the current window
+     */
+    boolean tryAcquire(final String username) {
+        return generation().attempts.getAndUpdate(slot(username),
+                attempts -> attempts < maxAttempts ? attempts + 1 : attempts) < maxAttempts;
+    }
+
+    /**
+     * Gives back an attempt taken by {@link #tryAcquire} that did not check the password after all.
+     */
+    void release(final String username) {
+        generation().attempts.getAndUpdate(slot(username), attempts -> attempts > 0 ? attempts - 1 : 0);
+    }
+
+    void reset(final String username) {
+        generation().attempts.set(slot(username), 0);
+    }
+
+    private Generation generation() {
+        final long window = Math.floorDiv(clock.getAsLong(), windowMillis);
+        final Generation current = generation.get();
+        if (window <= current.window) {
+            return current;
+        }
+        final Generation next = new Generation(window);
+        // whoever loses the race counts in the generation that won
+        return generation.compareAndSet(current, next) ? next : generation.get();
+    }
+
+    private static int slot(final String username) {
+        final int hash = username.hashCode() * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & (SLOTS - 1);
+    }
+
+    private static final class Generation {
+        private final long window;
+        private final AtomicIntegerArray attempts = new AtomicIntegerArray(SLOTS);
+
+        private Generation(final long window) {
+            this.window = window;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ua.apryby.udemy.auth.credentials;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * PBKDF2-HMAC-SHA256 password hashes encoded as {@code pbkdf2-sha256$<iterations>$<salt>$<hash>} with Base64
+ * salt and hash. Deliberately slow: call it off the event loop.
+ */
+public final class PasswordHasher {
+
+    public static final int DEFAULT_ITERATIONS = 100_000;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final int SALT_LENGTH = 16;
+    private static final int HASH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private PasswordHasher() {
+    }
+
+    public static String encode(final String password) {
+        return encode(password, DEFAULT_ITERATIONS);
+    }
+
+    public static String encode(final String password, final int iterations) {
+        final byte[] salt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        final Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + '$' + iterations + '$' + base64.encodeToString(salt) + '$'
+                + base64.encodeToString(hash(password, salt, iterations));
+    }
+
+    /**
+     * @return whether the password hashes to the encoded hash, false if that is malformed
+     */
+    public static boolean matches(final String password, final String encoded) {
+        final String[] parts = encoded.split("\\$");
+        if (parts.length != 4 || !PREFIX.equals(parts[0])) {
+            return false;
+        }
+        try {
+            final int iterations = Integer.parseInt(parts[1]);
+            final byte[] salt = Base64.getDecoder().decode(parts[2]);
+            final byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(expected, hash(password, salt, iterations));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static byte[] hash(final String password, final byte[] salt, final int iterations) {
+        final PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("cannot hash password with " + ALGORITHM, e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package ua.apryby.udemy.auth.credentials;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import javax.annotation.PreDestroy;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Checks passwords against the {@link CredentialStore} on a few dedicated threads with a bounded queue, so a
+ * burst of logins waits for or is refused by those threads instead of occupying the event loop. A user logging
+ * in again with the password that last succeeded is let in without hashing, and every user gets a limited
+ * number of password checks per window.
+ */
+@Singleton
+public class PasswordVerifier {
+
+    // checked for unknown users, so they take as long to refuse as wrong passwords
+    private static final String UNKNOWN_USER_HASH =
+            "pbkdf2-sha256$100000$jC/1VnzKhOgec9Xvu4TeCQ$mvhr5uAOHyp8+htcRTUceT7ssxAyhtrdPdOI3j8wbDM";
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final CredentialStore store;
+    private final ThreadPoolExecutor executor;
+    private final LoginThrottle throttle;
+    private final long successTtlMillis;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, RecentLogin> recentLogins = new ConcurrentHashMap<>();
+    // passwords of recent logins are only kept as a MAC under a key that never leaves the process
+    private final ThreadLocal<Mac> mac;
+    private final LongAdder cached = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder overloaded = new LongAdder();
+    private Timer hashTimer;
+
+    @Inject
+    public PasswordVerifier(final CredentialStore store, final CredentialsConfiguration configuration,
+                            final MeterRegistry meterRegistry) {
+        this(store, configuration, System::currentTimeMillis);
+        hashTimer = Timer.builder("broker.auth.login.hash.time")
+                .description("Time to check a password against its hash")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        FunctionCounter.builder("broker.auth.login.cached", cached, LongAdder::sum)
+                .description("Logins let in by a recent successful login").register(meterRegistry);
+        FunctionCounter.builder("broker.auth.login.throttled", throttled, LongAdder::sum)
+                .description("Logins refused for too many attempts").register(meterRegistry);
+        FunctionCounter.builder("broker.auth.login.overloaded", overloaded, LongAdder::sum)
+                .description("Logins refused for a full hashing queue").register(meterRegistry);
+        Gauge.builder("broker.auth.login.queued", executor, pool -> pool.getQueue().size())
+                .description("Logins waiting for a hashing thread").register(meterRegistry);
+    }
+
+    PasswordVerifier(final CredentialStore store, final CredentialsConfiguration configuration,
+                     final LongSupplier clock) {
+        this.store = store;
+        this.clock = clock;
+        this.successTtlMillis = configuration.getSuccessTtl().toMillis();
+        this.throttle = new LoginThrottle(configuration.getMaxAttempts(),
+                configuration.getAttemptWindow().toMillis(), clock);
+        final AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(configuration.getHashThreads(), configuration.getHashThreads(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(configuration.getQueueSize()),
+                task -> {
+                    final Thread thread = new Thread(task, "password-hasher-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        final byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                final Mac instance = Mac.getInstance(MAC_ALGORITHM);
+                instance.init(new SecretKeySpec(key, MAC_ALGORITHM));
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * @return the credentials of the user, completed with null if the username or password is wrong and
+     * failed with a {@link LoginRejectedException} if the password could not be checked now
+     */
+    public CompletableFuture<UserCredentials> verify(final String username, final String password) {
+        final UserCredentials credentials = store.find(username).orElse(null);
+        final byte[] digest = mac.get().doFinal(password.getBytes(StandardCharsets.UTF_8));
+        if (credentials != null) {
+            final RecentLogin recent = recentLogins.get(username);
+            if (recent != null && recent.matches(credentials, digest, clock.getAsLong())) {
+                cached.increment();
+                return CompletableFuture.completedFuture(credentials);
+            }
+        }
+        if (!throttle.tryAcquire(username)) {
+            throttled.increment();
+            return CompletableFuture.failedFuture(new LoginRejectedException("Too many login attempts, try again later"));
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> check(username, password, credentials, digest), executor);
+        } catch (RejectedExecutionException e) {
+            // refused without checking the password, so it costs the user no attempt
+            throttle.release(username);
+            overloaded.increment();
+            return CompletableFuture.failedFuture(new LoginRejectedException("Too many logins, try again later"));
+        }
+    }
+
+    public long getCached() {
+        return cached.sum();
+    }
+
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    public long getOverloaded() {
+        return overloaded.sum();
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    private UserCredentials check(final String username, final String password, final UserCredentials credentials,
+                                  final byte[] digest) {
+        final long start = System.nanoTime();
+        final boolean matches = PasswordHasher.matches(password,
+                credentials == null ? UNKNOWN_USER_HASH : credentials.getPasswordHash());
+        if (hashTimer != null) {
+            hashTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (credentials == null || !matches) {
+            return null;
+        }
+        recentLogins.put(username, new RecentLogin(credentials, digest, clock.getAsLong() + successTtlMillis));
+        throttle.reset(username);
+        return credentials;
+    }
+
+    private static final class RecentLogin {
+        private final UserCredentials credentials;
+        private final byte[] digest;
+        private final long expiresAt;
+
+        private RecentLogin(final UserCredentials credentials, final byte[] digest, final long expiresAt) {
+            this.credentials = credentials;
+            this.digest = digest;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * False as well once the stored credentials changed, e.g. for a new password.
+         */
+        boolean matches(final UserCredentials current, final byte[] presented, final long now) {
+            return now < expiresAt && credentials.equals(current) && MessageDigest.isEqual(digest, presented);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ua.apryby.udemy.auth.credentials;
+
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Value
+public class UserCredentials {
+
+    String username;
+    String passwordHash;
+    List<String> roles;
+
+    /**
+     * @param line {@code username:password-hash[:role,...]}
+     */
+    public static UserCredentials parse(final String line) {
+        final String[] parts = line.trim().split(":", 3);
+        if (parts.length < 2 || parts[0].isEmpty() || parts[1].isEmpty()) {
+            throw new IllegalArgumentException("expected username:password-hash[:role,...] but was " + line);
+        }
+        final List<String> roles = parts.length < 3 ? List.of() : Arrays.stream(parts[2].split(","))
+                .map(String::trim)
+                .filter(role -> !role.isEmpty())
+                .collect(Collectors.toUnmodifiableList());
+        return new UserCredentials(parts[0], parts[1], roles);
+    }
+}
@@ -7,15 +7,26 @@ import io.reactivex.Flowable;
 import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ua.apryby.udemy.auth.AccountIds;
+import ua.apryby.udemy.auth.credentials.LoginRejectedException;
+import ua.apryby.udemy.auth.credentials.PasswordVerifier;
 
 import javax.annotation.Nullable;
 import javax.inject.Singleton;
-import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
 
 @Singleton
 public class AuthenticationProviderUserPassword implements AuthenticationProvider {
 
     private static final Logger LOG = LoggerFactory.getLogger(AuthenticationProviderUserPassword.class);
+    private static final String WRONG_CREDENTIALS = "Wrong username or password!";
+
+    private final PasswordVerifier verifier;
+
+    public AuthenticationProviderUserPassword(final PasswordVerifier verifier) {
+        this.verifier = verifier;
+    }
 
     @Override
     public Publisher<AuthenticationResponse> authenticate(
@@ -26,14 +37,30 @@ public class AuthenticationProviderUserPassword implements AuthenticationProvide
             final Object secret = authenticationRequest.getSecret();
             LOG.debug("User {} tries to login...", identity);
 
-            if (identity.equals("my-user") && secret.equals("secret")) {
-                // pass
-                LOG.debug("User logged in.");
-                emitter.onNext(new UserDetails((String) identity, new ArrayList<>()));
-                emitter.onComplete();
+            if (!(identity instanceof String) || !(secret instanceof String)) {
+                emitter.onError(new AuthenticationException(new AuthenticationFailed(WRONG_CREDENTIALS)));
                 return;
             }
-            emitter.onError(new AuthenticationException(new AuthenticationFailed("Wrong username or password!")));
+            // completes on a password hashing thread, never blocking the caller
+            verifier.verify((String) identity, (String) secret).whenComplete((credentials, failure) -> {
+                if (failure != null) {
+                    final Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                    final String message = cause instanceof LoginRejectedException
+                            ? cause.getMessage()
+                            : WRONG_CREDENTIALS;
+                    LOG.debug("Login of {} refused: {}", identity, message);
+                    emitter.onError(new AuthenticationException(new AuthenticationFailed(message)));
+                    return;
+                }
+                if (credentials == null) {
+                    emitter.onError(new AuthenticationException(new AuthenticationFailed(WRONG_CREDENTIALS)));
+                    return;
+                }
+                LOG.debug("User logged in.");
+                emitter.onNext(new UserDetails(credentials.getUsername(), credentials.getRoles(),
+                        Map.of(AccountIds.CLAIM, AccountIds.forUsername(credentials.getUsername()).toString())));
+                emitter.onComplete();
+            });
         }, BackpressureStrategy.ERROR);
     }
 }
@@ -0,0 +1,58 @@
+package ua.apryby.udemy.auth.jwt;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.security.authentication.Authentication;
+import io.micronaut.security.token.jwt.validator.JwtAuthenticationFactory;
+import io.micronaut.security.token.jwt.validator.JwtTokenValidator;
+import io.micronaut.security.token.jwt.validator.JwtValidator;
+import io.reactivex.Flowable;
+import org.reactivestreams.Publisher;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies each bearer token once: later requests carrying it are authenticated from the {@link TokenCache}
+ * without parsing the token or checking its signature again, until it expires or is revoked.
+ */
+@Singleton
+@Replaces(JwtTokenValidator.class)
+public class CachingJwtTokenValidator extends JwtTokenValidator {
+
+    private final TokenCache cache;
+    private final Timer verifyTimer;
+
+    @Inject
+    public CachingJwtTokenValidator(final JwtValidator validator,
+                                    final JwtAuthenticationFactory jwtAuthenticationFactory,
+                                    final TokenCache cache,
+                                    final MeterRegistry meterRegistry) {
+        super(validator, jwtAuthenticationFactory);
+        this.cache = cache;
+        this.verifyTimer = Timer.builder("broker.auth.token.verify.time")
+                .description("Time to parse and verify a token not cached yet")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Publisher<Authentication> validateToken(final String token, @Nullable final HttpRequest<?> request) {
+        final TokenCache.TokenHash hash = TokenCache.hash(token);
+        if (cache.isRevoked(hash)) {
+            return Flowable.empty();
+        }
+        final Authentication cached = cache.get(hash);
+        if (cached != null) {
+            return Flowable.just(cached);
+        }
+        final long start = System.nanoTime();
+        return Flowable.fromPublisher(super.validateToken(token, request))
+                .doOnNext(authentication -> cache.put(hash, authentication))
+                .doFinally(() -> verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+}
@@ -0,0 +1,36 @@
+package ua.apryby.udemy.auth.jwt;
+
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Header;
+import io.micronaut.http.annotation.Post;
+import io.micronaut.security.annotation.Secured;
+import io.micronaut.security.authentication.Authentication;
+import io.micronaut.security.rules.SecurityRule;
+
+/**
+ * Revokes the bearer token of the request, which is rejected from then on even though it has not expired.
+ */
+@Secured(SecurityRule.IS_AUTHENTICATED)
+@Controller("/logout")
+public class LogoutController {
+
+    private static final String BEARER = "Bearer ";
+
+    private final TokenCache cache;
+
+    public LogoutController(final TokenCache cache) {
+        this.cache = cache;
+    }
+
+    @Post
+    public HttpResponse<?> logout(@Header(HttpHeaders.AUTHORIZATION) String authorization,
+                                  Authentication authentication) {
+        if (!authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return HttpResponse.badRequest();
+        }
+        cache.revoke(TokenCache.hash(authorization.substring(BEARER.length()).trim()), authentication);
+        return HttpResponse.noContent();
+    }
+}
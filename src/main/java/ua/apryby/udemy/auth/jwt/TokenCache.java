@@ -0,0 +1,260 @@
+package ua.apryby.udemy.auth.jwt;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.security.authentication.Authentication;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Authentications of already verified tokens and the tokens revoked before they expire, both keyed by a
+ * SHA-256 hash of the token so the tokens themselves are not kept. An entry is dropped once its token expires,
+ * and trusted for at most the configured time even before that.
+ * <p>
+ * Both are indexed by expiry as well, so that dropping expired entries, or the ones expiring soonest when the
+ * cache is full, takes the entries off the head of a queue instead of scanning the maps.
+ */
+@Singleton
+public class TokenCache {
+
+    private static final String EXPIRATION_CLAIM = "exp";
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final ConcurrentHashMap<TokenHash, Validated> validated = new ConcurrentHashMap<>();
+    // every entry put, soonest expiring first; entries replaced or removed since are skipped when they come up
+    private final PriorityBlockingQueue<Validated> validatedExpiries =
+            new PriorityBlockingQueue<>(16, Comparator.comparingLong(entry -> entry.expiresAt));
+    // expiry of each revoked token; kept however many there are, as dropping one would accept it again
+    private final ConcurrentHashMap<TokenHash, Long> revoked = new ConcurrentHashMap<>();
+    private final PriorityBlockingQueue<Revocation> revokedExpiries =
+            new PriorityBlockingQueue<>(16, Comparator.comparingLong(revocation -> revocation.expiresAt));
+    private final int maxSize;
+    private final long maxTtlMillis;
+    private final LongSupplier clock;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Inject
+    public TokenCache(final TokenCacheConfiguration configuration, final MeterRegistry meterRegistry) {
+        this(configuration, System::currentTimeMillis);
+        FunctionCounter.builder("broker.auth.token.cache.hits", hits, LongAdder::sum)
+                .description("Requests authenticated by an already verified token").register(meterRegistry);
+        FunctionCounter.builder("broker.auth.token.cache.misses", misses, LongAdder::sum)
+                .description("Requests whose token had to be verified").register(meterRegistry);
+        Gauge.builder("broker.auth.token.cache.hit.ratio", this, TokenCache::getHitRatio)
+                .description("Share of requests authenticated by an already verified token").register(meterRegistry);
+        Gauge.builder("broker.auth.token.cache.size", validated, Map::size)
+                .description("Verified tokens cached").register(meterRegistry);
+        Gauge.builder("broker.auth.token.revoked", revoked, Map::size)
+                .description("Revoked tokens not expired yet").register(meterRegistry);
+    }
+
+    TokenCache(final TokenCacheConfiguration configuration, final LongSupplier clock) {
+        this.maxSize = configuration.getMaxSize();
+        this.maxTtlMillis = configuration.getMaxTtl().toMillis();
+        this.clock = clock;
+    }
+
+    public static TokenHash hash(final String token) {
+        final byte[] digest = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return new TokenHash(toLong(digest, 0), toLong(digest, 8));
+    }
+
+    /**
+     * @return authentication of the verified token, null if it has to be verified
+     */
+    public Authentication get(final TokenHash token) {
+        final Validated entry = validated.get(token);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt <= clock.getAsLong()) {
+            validated.remove(token, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.authentication;
+    }
+
+    public void put(final TokenHash token, final Authentication authentication) {
+        if (maxSize <= 0) {
+            return;
+        }
+        final long now = clock.getAsLong();
+        final long expiresAt = expiresAt(authentication, now);
+        if (expiresAt <= now) {
+            return;
+        }
+        final Validated entry = new Validated(token, authentication, expiresAt);
+        validated.put(token, entry);
+        validatedExpiries.add(entry);
+        evict(now);
+        // a revocation racing with the verification wins
+        if (revoked.containsKey(token)) {
+            validated.remove(token);
+        }
+    }
+
+    public boolean isRevoked(final TokenHash token) {
+        final Long expiresAt = revoked.get(token);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt <= clock.getAsLong()) {
+            // expired tokens fail verification anyway
+            revoked.remove(token, expiresAt);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Rejects the token of the given authentication until it expires.
+     */
+    public void revoke(final TokenHash token, final Authentication authentication) {
+        final long now = clock.getAsLong();
+        final long expiresAt = expiresAt(authentication, now, Long.MAX_VALUE);
+        revoked.put(token, expiresAt);
+        revokedExpiries.add(new Revocation(token, expiresAt));
+        validated.remove(token);
+        Revocation oldest;
+        while ((oldest = revokedExpiries.peek()) != null && oldest.expiresAt <= now) {
+            oldest = revokedExpiries.poll();
+            if (oldest != null) {
+                revoked.remove(oldest.token, oldest.expiresAt);
+            }
+        }
+    }
+
+    public int size() {
+        return validated.size();
+    }
+
+    int revokedSize() {
+        return revoked.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRatio() {
+        final long hitCount = hits.sum();
+        final long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private long expiresAt(final Authentication authentication, final long now) {
+        return expiresAt(authentication, now, now + maxTtlMillis);
+    }
+
+    private static long expiresAt(final Authentication authentication, final long now, final long latest) {
+        final Object expiration = authentication.getAttributes().get(EXPIRATION_CLAIM);
+        if (expiration instanceof Date) {
+            return Math.min(((Date) expiration).getTime(), latest);
+        }
+        if (expiration instanceof Number) {
+            return Math.min(((Number) expiration).longValue() * 1_000, latest);
+        }
+        return latest;
+    }
+
+    /**
+     * Drops expired entries and, while the cache is full, the ones expiring soonest; each costs one poll of the
+     * expiry queue, and a live token dropped is verified again on its next use.
+     */
+    private void evict(final long now) {
+        while (validatedExpiries.size() > maxSize) {
+            drop(validatedExpiries.poll());
+        }
+        Validated oldest;
+        while ((oldest = validatedExpiries.peek()) != null && oldest.expiresAt <= now) {
+            drop(validatedExpiries.poll());
+        }
+    }
+
+    private void drop(final Validated entry) {
+        if (entry != null) {
+            validated.remove(entry.token, entry);
+        }
+    }
+
+    private static long toLong(final byte[] bytes, final int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + Long.BYTES; i++) {
+            value = value << 8 | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    public static final class TokenHash {
+        private final long high;
+        private final long low;
+
+        private TokenHash(final long high, final long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (!(other instanceof TokenHash)) {
+                return false;
+            }
+            final TokenHash hash = (TokenHash) other;
+            return high == hash.high && low == hash.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high ^ low);
+        }
+    }
+
+    private static final class Validated {
+        private final TokenHash token;
+        private final Authentication authentication;
+        private final long expiresAt;
+
+        private Validated(final TokenHash token, final Authentication authentication, final long expiresAt) {
+            this.token = token;
+            this.authentication = authentication;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Revocation {
+        private final TokenHash token;
+        private final long expiresAt;
+
+        private Revocation(final TokenHash token, final long expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
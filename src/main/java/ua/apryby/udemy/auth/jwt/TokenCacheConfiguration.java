@@ -0,0 +1,21 @@
+package ua.apryby.udemy.auth.jwt;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("broker.auth.token-cache")
+public class TokenCacheConfiguration {
+
+    /**
+     * Validated tokens kept; 0 verifies every token.
+     */
+    private int maxSize = 65_536;
+
+    /**
+     * Longest a validated token is trusted without verifying it again, also for tokens that never expire.
+     */
+    private Duration maxTtl = Duration.ofMinutes(15);
+}
@@ -1,16 +1,23 @@
 package ua.apryby.udemy.broker;
 
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpResponse;
 import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Header;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import ua.apryby.udemy.broker.http.ETags;
 import ua.apryby.udemy.broker.model.Symbol;
 import ua.apryby.udemy.broker.store.InMemoryStore;
 
-import java.util.List;
+import javax.annotation.Nullable;
 
 @Controller("/markets")
 public class MarketsController {
@@ -23,12 +30,23 @@ public class MarketsController {
 
     @Operation(summary = "Returns all available markets")
     @ApiResponse(
-            content = @Content(mediaType = MediaType.APPLICATION_JSON)
+            content = @Content(
+                    mediaType = MediaType.APPLICATION_JSON,
+                    array = @ArraySchema(schema = @Schema(implementation = Symbol.class))
+            )
     )
+    @ApiResponse(responseCode = "304", description = "Markets did not change since the given ETag")
     @Tag(name = "markets")
     @Get("/")
-    public List<Symbol> all() {
-        return store.getAllSymbols();
+    public HttpResponse<?> all(@Nullable @Header(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+        final String etag = ETags.of(store.getAllSymbolsVersion());
+        final MutableHttpResponse<?> notModified = ETags.notModified(ifNoneMatch, etag);
+        if (notModified != null) {
+            return notModified;
+        }
+        return HttpResponse.ok(store.getAllSymbolsJson())
+                .contentType(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.ETAG, etag);
     }
 
 }
@@ -1,49 +1,233 @@
 package ua.apryby.udemy.broker;
 
+import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Body;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Header;
 import io.micronaut.http.annotation.PathVariable;
+import io.micronaut.http.annotation.Post;
+import io.micronaut.http.annotation.QueryValue;
+import io.micronaut.http.sse.Event;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.reactivex.Flowable;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import ua.apryby.udemy.broker.error.CustomError;
+import ua.apryby.udemy.broker.analytics.QuoteAnalytics;
+import ua.apryby.udemy.broker.error.ErrorResponses;
+import ua.apryby.udemy.broker.history.BarInterval;
+import ua.apryby.udemy.broker.history.TickHistory;
+import ua.apryby.udemy.broker.http.ETags;
+import ua.apryby.udemy.broker.model.Bar;
 import ua.apryby.udemy.broker.model.Quote;
+import ua.apryby.udemy.broker.model.QuoteStatistics;
+import ua.apryby.udemy.broker.model.Tick;
 import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.QuoteJson;
+import ua.apryby.udemy.broker.stream.QuoteStream;
 
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Controller("/quotes")
 public class QuotesController {
 
+    static final int MAX_BATCH_SIZE = 1000;
+    private static final int ESTIMATED_QUOTE_JSON_SIZE = 96;
+
     private final InMemoryStore store;
+    private final QuoteStream stream;
+    private final TickHistory history;
+    private final QuoteAnalytics analytics;
 
 
-    public QuotesController(InMemoryStore store) {
+    public QuotesController(InMemoryStore store, QuoteStream stream, TickHistory history, QuoteAnalytics analytics) {
         this.store = store;
+        this.stream = stream;
+        this.history = history;
+        this.analytics = analytics;
     }
 
     @Operation(summary = "Returns a quote for the given symbol.")
     @ApiResponse(
-            content = @Content(mediaType = MediaType.APPLICATION_JSON)
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = Quote.class))
     )
     @ApiResponse(responseCode = "400", description = "Invalid symbol specified")
+    @ApiResponse(responseCode = "304", description = "Quote did not change since the given ETag")
     @Tag(name = "quotes")
     @Get("/{symbol}")
-    public HttpResponse getQuote(@PathVariable String symbol) {
-        final Optional<Quote> quote = store.fetchQuote(symbol);
+    public HttpResponse getQuote(@PathVariable String symbol,
+                                 @Nullable @Header(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+        final Optional<QuoteBook.EncodedJson> quote = store.fetchQuoteJson(symbol);
 
         if (quote.isEmpty()) {
-            final CustomError notFound = CustomError.builder()
-                    .status(HttpStatus.NOT_FOUND.getCode())
-                    .error(HttpStatus.NOT_FOUND.name())
-                    .message("quote for symbol not available")
-                    .path("/quote/" + symbol).build();
-            return HttpResponse.notFound(notFound);
-        }
-        return HttpResponse.ok(quote.get());
+            return ErrorResponses.of(HttpStatus.NOT_FOUND, "quote for symbol not available", "/quote/" + symbol);
+        }
+        final String etag = ETags.of(quote.get().getVersion());
+        final MutableHttpResponse<?> notModified = ETags.notModified(ifNoneMatch, etag);
+        if (notModified != null) {
+            return notModified;
+        }
+        return HttpResponse.ok(quote.get().content())
+                .contentType(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.ETAG, etag);
+    }
+
+    @Operation(summary = "Returns quotes for the given comma separated symbols, marking unknown symbols as not found.")
+    @ApiResponse(
+            content = @Content(mediaType = MediaType.APPLICATION_JSON)
+    )
+    @ApiResponse(responseCode = "400", description = "Too many symbols requested")
+    @Tag(name = "quotes")
+    @Get(produces = MediaType.APPLICATION_JSON)
+    public HttpResponse getQuotes(@QueryValue String symbols) {
+        return batch(distinctSymbols(Arrays.asList(symbols.split(","))), "/quotes");
+    }
+
+    @Operation(summary = "Returns quotes for the posted symbols, marking unknown symbols as not found.")
+    @ApiResponse(
+            content = @Content(mediaType = MediaType.APPLICATION_JSON)
+    )
+    @ApiResponse(responseCode = "400", description = "Too many symbols requested")
+    @Tag(name = "quotes")
+    @Post(value = "/batch", consumes = MediaType.APPLICATION_JSON, produces = MediaType.APPLICATION_JSON)
+    public HttpResponse getQuotesBatch(@Nullable @Body List<String> symbols) {
+        return batch(distinctSymbols(symbols), "/quotes/batch");
+    }
+
+    @Operation(summary = "Streams the current and every changed quote of the given comma separated symbols.")
+    @ApiResponse(
+            content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM)
+    )
+    @Tag(name = "quotes")
+    @Get(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM)
+    public Flowable<Event<Quote>> streamQuotes(@QueryValue String symbols) {
+        return stream.updates(distinctSymbols(Arrays.asList(symbols.split(","))))
+                .map(quote -> Event.of(quote).name(quote.getSymbol().getValue()));
+    }
+
+    @Operation(summary = "Returns OHLCV bars of the given symbol overlapping the given epoch millisecond range.")
+    @ApiResponse(
+            content = @Content(mediaType = MediaType.APPLICATION_JSON)
+    )
+    @ApiResponse(responseCode = "400", description = "Unknown interval or invalid range specified")
+    @ApiResponse(responseCode = "404", description = "Symbol not listed")
+    @Tag(name = "quotes")
+    @Get(value = "/{symbol}/bars", produces = MediaType.APPLICATION_JSON)
+    public HttpResponse getBars(@PathVariable String symbol,
+                                @QueryValue(defaultValue = "1m") String interval,
+                                @Nullable @QueryValue Long from,
+                                @Nullable @QueryValue Long to) {
+        final String path = "/quotes/" + symbol + "/bars";
+        final Optional<BarInterval> barInterval = BarInterval.of(interval);
+        if (barInterval.isEmpty()) {
+            return badRequest("interval must be one of " + BarInterval.LABELS, path);
+        }
+        final long start = from == null ? 0 : from;
+        final long end = to == null ? Long.MAX_VALUE : to;
+        if (start > end) {
+            return badRequest("from must not be after to", path);
+        }
+        final Optional<List<Bar>> bars = history.bars(symbol, barInterval.get(), start, end);
+        return bars.isPresent() ? HttpResponse.ok(bars.get()) : notListed(path);
+    }
+
+    @Operation(summary = "Returns the retained ticks of the given symbol published within the given epoch millisecond range.")
+    @ApiResponse(
+            content = @Content(mediaType = MediaType.APPLICATION_JSON)
+    )
+    @ApiResponse(responseCode = "400", description = "Invalid range specified")
+    @ApiResponse(responseCode = "404", description = "Symbol not listed")
+    @Tag(name = "quotes")
+    @Get(value = "/{symbol}/ticks", produces = MediaType.APPLICATION_JSON)
+    public HttpResponse getTicks(@PathVariable String symbol,
+                                 @Nullable @QueryValue Long from,
+                                 @Nullable @QueryValue Long to) {
+        final String path = "/quotes/" + symbol + "/ticks";
+        final long start = from == null ? 0 : from;
+        final long end = to == null ? Long.MAX_VALUE : to;
+        if (start > end) {
+            return badRequest("from must not be after to", path);
+        }
+        final Optional<List<Tick>> ticks = history.ticks(symbol, start, end);
+        return ticks.isPresent() ? HttpResponse.ok(ticks.get()) : notListed(path);
+    }
+
+    @Operation(summary = "Returns rolling VWAP, moving averages and realized volatility of the given symbol.")
+    @ApiResponse(
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = QuoteStatistics.class))
+    )
+    @ApiResponse(responseCode = "404", description = "Symbol not listed")
+    @Tag(name = "quotes")
+    @Get(value = "/{symbol}/statistics", produces = MediaType.APPLICATION_JSON)
+    public HttpResponse getStatistics(@PathVariable String symbol) {
+        final Optional<QuoteStatistics> statistics = analytics.statistics(symbol);
+        return statistics.isPresent()
+                ? HttpResponse.ok(statistics.get())
+                : notListed("/quotes/" + symbol + "/statistics");
+    }
+
+    private static HttpResponse badRequest(final String message, final String path) {
+        return ErrorResponses.of(HttpStatus.BAD_REQUEST, message, path);
+    }
+
+    private static HttpResponse notListed(final String path) {
+        return ErrorResponses.of(HttpStatus.NOT_FOUND, "symbol not listed", path);
+    }
+
+    private HttpResponse batch(final Collection<String> symbols, final String path) {
+        if (symbols.size() > MAX_BATCH_SIZE) {
+            return badRequest("at most " + MAX_BATCH_SIZE + " symbols per request", path);
+        }
+        final ByteBuf json = ByteBufAllocator.DEFAULT.buffer(2 + symbols.size() * ESTIMATED_QUOTE_JSON_SIZE);
+        try {
+            json.writeByte('[');
+            boolean first = true;
+            for (String symbol : symbols) {
+                if (!first) {
+                    json.writeByte(',');
+                }
+                first = false;
+                if (!store.writeQuoteJson(symbol, json)) {
+                    QuoteJson.writeNotFound(symbol, json);
+                }
+            }
+            json.writeByte(']');
+            return HttpResponse.ok(json).contentType(MediaType.APPLICATION_JSON_TYPE);
+        } catch (RuntimeException e) {
+            // the pooled buffer is only released by Netty once it was handed over in a response
+            json.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return trimmed symbols in request order without blanks and repetitions
+     */
+    private static Set<String> distinctSymbols(@Nullable final Collection<String> symbols) {
+        if (symbols == null) {
+            return Set.of();
+        }
+        return symbols.stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(symbol -> !symbol.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 }
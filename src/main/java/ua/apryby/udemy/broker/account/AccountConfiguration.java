@@ -0,0 +1,19 @@
+package ua.apryby.udemy.broker.account;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+@Data
+@ConfigurationProperties("broker.accounts")
+public class AccountConfiguration {
+
+    /**
+     * Threads changing watchlists; each account is always changed by the same one.
+     */
+    private int shards = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Changes waiting per shard before further ones are refused with 503.
+     */
+    private int queueSize = 1_024;
+}
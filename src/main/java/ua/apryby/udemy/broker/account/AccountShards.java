@@ -0,0 +1,81 @@
+package ua.apryby.udemy.broker.account;
+
+import io.reactivex.Single;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single threaded executors picked by account: changes of one account run one after another in the order they
+ * were submitted, while different accounts spread over all shards. Each shard queues a bounded number of
+ * changes; beyond that a change is refused with a {@link RejectedExecutionException}, answered with 503.
+ */
+@Singleton
+public class AccountShards {
+
+    private final ExecutorService[] executors;
+
+    public AccountShards(final AccountConfiguration configuration) {
+        final int shards = Math.max(1, configuration.getShards());
+        final int queueSize = Math.max(1, configuration.getQueueSize());
+        executors = new ExecutorService[shards];
+        for (int i = 0; i < shards; i++) {
+            final String name = "account-shard-" + i;
+            executors[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueSize),
+                    task -> {
+                        final Thread thread = new Thread(task, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    (task, executor) -> {
+                        throw new RejectedExecutionException("too many changes to this account, try again later");
+                    });
+        }
+    }
+
+    /**
+     * @throws RejectedExecutionException if the shard of the account is full
+     */
+    public <T> CompletableFuture<T> submit(final UUID accountId, final Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executors[shard(accountId)]);
+    }
+
+    /**
+     * @return the result of the task run on the shard of the account when subscribed to, failed with a
+     * {@link RejectedExecutionException} if the shard is full
+     */
+    public <T> Single<T> single(final UUID accountId, final Callable<T> task) {
+        return Single.create(emitter -> executors[shard(accountId)].execute(() -> {
+            if (emitter.isDisposed()) {
+                return;
+            }
+            try {
+                emitter.onSuccess(task.call());
+            } catch (Throwable e) {
+                emitter.tryOnError(e);
+            }
+        }));
+    }
+
+    int shard(final UUID accountId) {
+        final int hash = accountId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), executors.length);
+    }
+
+    @PreDestroy
+    void stop() {
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ua.apryby.udemy.broker.account;
+
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Body;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Delete;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.PathVariable;
+import io.micronaut.http.annotation.Post;
+import io.micronaut.http.sse.Event;
+import io.micronaut.security.annotation.Secured;
+import io.micronaut.security.authentication.Authentication;
+import io.micronaut.security.rules.SecurityRule;
+import io.reactivex.Flowable;
+import ua.apryby.udemy.auth.AccountIds;
+import ua.apryby.udemy.broker.alert.PriceAlerts;
+import ua.apryby.udemy.broker.error.ErrorResponses;
+import ua.apryby.udemy.broker.model.Alert;
+import ua.apryby.udemy.broker.model.AlertDirection;
+import ua.apryby.udemy.broker.model.AlertNotification;
+import ua.apryby.udemy.broker.model.AlertRequest;
+import ua.apryby.udemy.broker.store.InMemoryAccountStore;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.QuoteTicks;
+import ua.apryby.udemy.broker.store.TickSize;
+
+import java.util.List;
+import java.util.UUID;
+
+@Secured(SecurityRule.IS_AUTHENTICATED)
+@Controller("/account/alerts")
+public class AlertController {
+
+    private static final String PATH = "/account/alerts";
+
+    private final InMemoryStore store;
+    private final InMemoryAccountStore accounts;
+    private final PriceAlerts alerts;
+
+    public AlertController(final InMemoryStore store, final InMemoryAccountStore accounts, final PriceAlerts alerts) {
+        this.store = store;
+        this.accounts = accounts;
+        this.alerts = alerts;
+    }
+
+    @Post(consumes = MediaType.APPLICATION_JSON, produces = MediaType.APPLICATION_JSON)
+    public HttpResponse<?> create(@Body AlertRequest request, Authentication authentication) {
+        final UUID accountId = AccountIds.of(authentication);
+        if (request.getSymbol() == null) {
+            return ErrorResponses.of(HttpStatus.BAD_REQUEST, "symbol is required", PATH);
+        }
+        if (!accounts.getWatchList(accountId).getSymbols().contains(request.getSymbol())) {
+            return ErrorResponses.of(HttpStatus.BAD_REQUEST, "symbol is not on the watchlist", PATH);
+        }
+        final QuoteBook.Entry entry = store.quoteEntry(request.getSymbol().getValue());
+        if (entry == null) {
+            return ErrorResponses.of(HttpStatus.BAD_REQUEST, "symbol not listed", PATH);
+        }
+        final TickSize tickSize = entry.getTickSize();
+        final long threshold = tickSize.exactPriceTicks(request.getPrice());
+        if (threshold <= 0) {
+            return ErrorResponses.of(HttpStatus.BAD_REQUEST,
+                    "price must be positive with at most " + tickSize.getPriceScale() + " decimals", PATH);
+        }
+        AlertDirection direction = request.getDirection();
+        if (direction == null) {
+            final QuoteTicks quote = new QuoteTicks();
+            direction = entry.read(quote) && quote.getLastPrice() > threshold
+                    ? AlertDirection.BELOW
+                    : AlertDirection.ABOVE;
+        }
+        final Alert alert = alerts.register(accountId, entry, direction, threshold);
+        return HttpResponse.status(HttpStatus.CREATED).body(alert);
+    }
+
+    @Get(produces = MediaType.APPLICATION_JSON)
+    public List<Alert> list(Authentication authentication) {
+        return alerts.alerts(AccountIds.of(authentication));
+    }
+
+    @Delete("/{id}")
+    public HttpResponse<?> delete(@PathVariable long id, Authentication authentication) {
+        if (!alerts.delete(AccountIds.of(authentication), id)) {
+            return ErrorResponses.of(HttpStatus.NOT_FOUND, "alert not found", PATH + "/" + id);
+        }
+        return HttpResponse.noContent();
+    }
+
+    @Get(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM)
+    public Flowable<Event<AlertNotification>> stream(Authentication authentication) {
+        return alerts.notifications(AccountIds.of(authentication))
+                .map(notification -> Event.of(notification).name(notification.getAlert().getSymbol().getValue()));
+    }
+}
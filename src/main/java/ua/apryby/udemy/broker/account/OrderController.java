@@ -0,0 +1,81 @@
+package ua.apryby.udemy.broker.account;
+
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Body;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Post;
+import io.micronaut.security.annotation.Secured;
+import io.micronaut.security.authentication.Authentication;
+import io.micronaut.security.rules.SecurityRule;
+import ua.apryby.udemy.auth.AccountIds;
+import ua.apryby.udemy.broker.error.ErrorResponses;
+import ua.apryby.udemy.broker.model.OrderRequest;
+import ua.apryby.udemy.broker.model.OrderType;
+import ua.apryby.udemy.broker.order.MatchingEngine;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.TickSize;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+@Secured(SecurityRule.IS_AUTHENTICATED)
+@Controller("/account/orders")
+public class OrderController {
+
+    private static final String PATH = "/account/orders";
+
+    private final InMemoryStore store;
+    private final MatchingEngine engine;
+
+    public OrderController(final InMemoryStore store, final MatchingEngine engine) {
+        this.store = store;
+        this.engine = engine;
+    }
+
+    @Post(consumes = MediaType.APPLICATION_JSON, produces = MediaType.APPLICATION_JSON)
+    public CompletableFuture<HttpResponse<?>> place(@Body OrderRequest request, Authentication authentication) {
+        if (request.getSymbol() == null || request.getSide() == null || request.getType() == null) {
+            return rejected(HttpStatus.BAD_REQUEST, "symbol, side and type are required");
+        }
+        final QuoteBook.Entry entry = store.quoteEntry(request.getSymbol().getValue());
+        if (entry == null) {
+            return rejected(HttpStatus.BAD_REQUEST, "symbol not listed");
+        }
+        final TickSize tickSize = entry.getTickSize();
+        final long quantity = tickSize.exactVolumeTicks(request.getQuantity());
+        if (quantity <= 0) {
+            return rejected(HttpStatus.BAD_REQUEST,
+                    "quantity must be positive with at most " + tickSize.getVolumeScale() + " decimals");
+        }
+        long price = 0;
+        if (request.getType() == OrderType.LIMIT) {
+            price = tickSize.exactPriceTicks(request.getPrice());
+            if (price <= 0) {
+                return rejected(HttpStatus.BAD_REQUEST,
+                        "limit price must be positive with at most " + tickSize.getPriceScale() + " decimals");
+            }
+        }
+        return engine.submit(AccountIds.of(authentication), entry, request.getSide(), request.getType(),
+                price, quantity)
+                .<HttpResponse<?>>thenApply(order -> HttpResponse.status(HttpStatus.CREATED).body(order))
+                .exceptionally(failure -> {
+                    final Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                    if (cause instanceof RejectedExecutionException) {
+                        return error(HttpStatus.SERVICE_UNAVAILABLE, cause.getMessage());
+                    }
+                    return error(HttpStatus.INTERNAL_SERVER_ERROR, "order could not be matched");
+                });
+    }
+
+    private static CompletableFuture<HttpResponse<?>> rejected(final HttpStatus status, final String message) {
+        return CompletableFuture.completedFuture(error(status, message));
+    }
+
+    private static HttpResponse<?> error(final HttpStatus status, final String message) {
+        return ErrorResponses.of(status, message, PATH);
+    }
+}
@@ -0,0 +1,27 @@
+package ua.apryby.udemy.broker.account;
+
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.security.annotation.Secured;
+import io.micronaut.security.authentication.Authentication;
+import io.micronaut.security.rules.SecurityRule;
+import ua.apryby.udemy.auth.AccountIds;
+import ua.apryby.udemy.broker.model.Portfolio;
+import ua.apryby.udemy.broker.portfolio.Portfolios;
+
+@Secured(SecurityRule.IS_AUTHENTICATED)
+@Controller("/account/portfolio")
+public class PortfolioController {
+
+    private final Portfolios portfolios;
+
+    public PortfolioController(final Portfolios portfolios) {
+        this.portfolios = portfolios;
+    }
+
+    @Get(produces = MediaType.APPLICATION_JSON)
+    public Portfolio get(Authentication authentication) {
+        return portfolios.portfolio(AccountIds.of(authentication));
+    }
+}
@@ -1,15 +1,28 @@
 package ua.apryby.udemy.broker.account;
 
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
 import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.*;
 import io.micronaut.security.annotation.Secured;
+import io.micronaut.security.authentication.Authentication;
 import io.micronaut.security.rules.SecurityRule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ua.apryby.udemy.auth.AccountIds;
+import ua.apryby.udemy.broker.http.ETags;
 import ua.apryby.udemy.broker.model.WatchList;
+import ua.apryby.udemy.broker.model.WatchListPatch;
 import ua.apryby.udemy.broker.store.InMemoryAccountStore;
+import ua.apryby.udemy.broker.store.Versioned;
 
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Secured(SecurityRule.IS_AUTHENTICATED)
 @Controller("/account/watchlist")
@@ -17,27 +30,53 @@ public class WatchListController {
 
     private static final Logger LOG = LoggerFactory.getLogger(WatchListController.class);
 
-    public static final UUID ACCOUNT_ID = UUID.randomUUID();
-
     private final InMemoryAccountStore store;
+    private final AccountShards shards;
 
-    public WatchListController(final InMemoryAccountStore store) {
+    public WatchListController(final InMemoryAccountStore store, final AccountShards shards) {
         this.store = store;
+        this.shards = shards;
     }
 
     @Get(produces = MediaType.APPLICATION_JSON)
-    public WatchList get() {
+    public HttpResponse<?> get(@Nullable @Header(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                               Authentication authentication) {
         LOG.debug("get - {}", Thread.currentThread().getName());
-        return store.getWatchList(ACCOUNT_ID);
+        final Versioned<WatchList> watchList = store.fetchWatchList(AccountIds.of(authentication));
+        final String etag = ETags.of(watchList.getVersion());
+        final MutableHttpResponse<?> notModified = ETags.notModified(ifNoneMatch, etag);
+        if (notModified != null) {
+            return notModified;
+        }
+        return HttpResponse.ok(watchList.getValue()).header(HttpHeaders.ETAG, etag);
     }
 
     @Put(consumes = MediaType.APPLICATION_JSON, produces = MediaType.APPLICATION_JSON)
-    public WatchList update(@Body WatchList watchList) {
-        return store.updateWatchList(ACCOUNT_ID, watchList);
+    public CompletableFuture<WatchList> update(@Body WatchList watchList, Authentication authentication) {
+        final UUID accountId = AccountIds.of(authentication);
+        return shards.submit(accountId, () -> store.updateWatchList(accountId, watchList));
+    }
+
+    @Patch(consumes = MediaType.APPLICATION_JSON, produces = MediaType.APPLICATION_JSON)
+    public CompletableFuture<HttpResponse<WatchList>> patch(@Body WatchListPatch patch,
+                                                            Authentication authentication) {
+        final UUID accountId = AccountIds.of(authentication);
+        return shards.submit(accountId, () -> {
+            final Versioned<WatchList> watchList = store.patchWatchList(accountId,
+                    Objects.requireNonNullElse(patch.getAdd(), List.of()),
+                    Objects.requireNonNullElse(patch.getRemove(), List.of()));
+            return HttpResponse.ok(watchList.getValue()).header(HttpHeaders.ETAG, ETags.of(watchList.getVersion()));
+        });
     }
 
     @Delete(value = "/{accountId}", consumes = MediaType.APPLICATION_JSON, produces = MediaType.APPLICATION_JSON)
-    public void delete(@PathVariable UUID accountId) {
-        store.deleteWatchList(accountId);
+    public CompletableFuture<HttpResponse<?>> delete(@PathVariable UUID accountId, Authentication authentication) {
+        if (!accountId.equals(AccountIds.of(authentication))) {
+            return CompletableFuture.completedFuture(HttpResponse.status(HttpStatus.FORBIDDEN));
+        }
+        return shards.submit(accountId, () -> {
+            store.deleteWatchList(accountId);
+            return HttpResponse.ok();
+        });
     }
 }
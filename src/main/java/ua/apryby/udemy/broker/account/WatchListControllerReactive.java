@@ -1,65 +1,83 @@
 package ua.apryby.udemy.broker.account;
 
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
 import io.micronaut.http.MediaType;
 import io.micronaut.http.annotation.*;
-import io.micronaut.scheduling.TaskExecutors;
-import io.micronaut.scheduling.annotation.ExecuteOn;
 import io.micronaut.security.annotation.Secured;
+import io.micronaut.security.authentication.Authentication;
 import io.micronaut.security.rules.SecurityRule;
-import io.reactivex.Scheduler;
 import io.reactivex.Single;
-import io.reactivex.schedulers.Schedulers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ua.apryby.udemy.auth.AccountIds;
+import ua.apryby.udemy.broker.execution.EndpointExecutor;
 import ua.apryby.udemy.broker.model.WatchList;
+import ua.apryby.udemy.broker.model.WatchListPatch;
 import ua.apryby.udemy.broker.store.InMemoryAccountStore;
 
-import javax.inject.Named;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
 
 @Secured(SecurityRule.IS_AUTHENTICATED)
 @Controller("/account/watchlist-reactive")
 public class WatchListControllerReactive {
 
     private static final Logger LOG = LoggerFactory.getLogger(WatchListControllerReactive.class);
-    public static final UUID ACCOUNT_ID = UUID.randomUUID();
 
     private final InMemoryAccountStore store;
-    private final Scheduler scheduler;
+    private final AccountShards shards;
+    private final EndpointExecutor executor;
 
     public WatchListControllerReactive(
-            @Named(TaskExecutors.IO) ExecutorService executorService,
-            final InMemoryAccountStore store) {
+            final EndpointExecutor executor,
+            final InMemoryAccountStore store,
+            final AccountShards shards) {
         this.store = store;
-        this.scheduler = Schedulers.from(executorService);
+        this.shards = shards;
+        this.executor = executor;
     }
 
     @Get(produces = MediaType.APPLICATION_JSON)
-    @ExecuteOn(TaskExecutors.IO)
-    public WatchList get() {
-        LOG.debug("getWatchlist - {}", Thread.currentThread().getName());
-        return store.getWatchList(ACCOUNT_ID);
+    public Single<WatchList> get(Authentication authentication) {
+        final UUID accountId = AccountIds.of(authentication);
+        return executor.execute("watchlist-reactive.get", () -> {
+            LOG.debug("getWatchlist - {}", Thread.currentThread().getName());
+            return store.getWatchList(accountId);
+        });
     }
 
     @Get(
             value = "/single",
             produces = MediaType.APPLICATION_JSON
     )
-    public Single<WatchList> getAsSingle() {
-        return Single.fromCallable(() -> {
+    public Single<WatchList> getAsSingle(Authentication authentication) {
+        final UUID accountId = AccountIds.of(authentication);
+        return executor.execute("watchlist-reactive.single", () -> {
             LOG.debug("getAsSingle - {}", Thread.currentThread().getName());
-            return store.getWatchList(ACCOUNT_ID);
-        }).subscribeOn(scheduler);
+            return store.getWatchList(accountId);
+        });
     }
 
     @Put(
             consumes = MediaType.APPLICATION_JSON,
             produces = MediaType.APPLICATION_JSON
     )
-    @ExecuteOn(TaskExecutors.IO)
-    public WatchList update(@Body WatchList watchList) {
-        return store.updateWatchList(ACCOUNT_ID, watchList);
+    public Single<WatchList> update(@Body WatchList watchList, Authentication authentication) {
+        final UUID accountId = AccountIds.of(authentication);
+        return shards.single(accountId, () -> store.updateWatchList(accountId, watchList));
+    }
+
+    @Patch(
+            consumes = MediaType.APPLICATION_JSON,
+            produces = MediaType.APPLICATION_JSON
+    )
+    public Single<WatchList> patch(@Body WatchListPatch patch, Authentication authentication) {
+        final UUID accountId = AccountIds.of(authentication);
+        return shards.single(accountId, () -> store.patchWatchList(accountId,
+                Objects.requireNonNullElse(patch.getAdd(), List.of()),
+                Objects.requireNonNullElse(patch.getRemove(), List.of())).getValue());
     }
 
     @Delete(
@@ -67,8 +85,13 @@ public class WatchListControllerReactive {
             consumes = MediaType.APPLICATION_JSON,
             produces = MediaType.APPLICATION_JSON
     )
-    @ExecuteOn(TaskExecutors.IO)
-    public void delete(@PathVariable UUID accountId) {
-        store.deleteWatchList(accountId);
+    public Single<HttpResponse<?>> delete(@PathVariable UUID accountId, Authentication authentication) {
+        if (!accountId.equals(AccountIds.of(authentication))) {
+            return Single.just(HttpResponse.status(HttpStatus.FORBIDDEN));
+        }
+        return shards.<HttpResponse<?>>single(accountId, () -> {
+            store.deleteWatchList(accountId);
+            return HttpResponse.ok();
+        });
     }
 }
@@ -0,0 +1,67 @@
+package ua.apryby.udemy.broker.alert;
+
+import ua.apryby.udemy.broker.model.AlertDirection;
+
+/**
+ * Alerts of one symbol: those waiting for the price to rise in one {@link ThresholdLadder}, those waiting for
+ * it to fall in another keyed by the negated threshold, so both trigger as a prefix. The nearest thresholds of
+ * both are also kept in volatile fields, letting an update that triggers nothing pass without taking the lock.
+ */
+final class AlertLadder {
+
+    private final ThresholdLadder above = new ThresholdLadder();
+    private final ThresholdLadder below = new ThresholdLadder();
+    private volatile long lowestAbove = Long.MAX_VALUE;
+    private volatile long highestBelow = Long.MIN_VALUE;
+
+    synchronized void add(final AlertDirection direction, final long threshold, final long id) {
+        if (direction == AlertDirection.ABOVE) {
+            above.add(threshold, id);
+        } else {
+            below.add(-threshold, id);
+        }
+        refresh();
+    }
+
+    synchronized boolean remove(final AlertDirection direction, final long threshold, final long id) {
+        final boolean removed = direction == AlertDirection.ABOVE
+                ? above.remove(threshold, id)
+                : below.remove(-threshold, id);
+        refresh();
+        return removed;
+    }
+
+    /**
+     * @return ids of the alerts the price triggers, now removed
+     */
+    long[] trigger(final long price) {
+        if (price < lowestAbove && price > highestBelow) {
+            return null;
+        }
+        synchronized (this) {
+            final long[] rising = above.removeUpTo(price);
+            final long[] falling = below.removeUpTo(-price);
+            refresh();
+            if (falling.length == 0) {
+                return rising;
+            }
+            if (rising.length == 0) {
+                return falling;
+            }
+            final long[] triggered = new long[rising.length + falling.length];
+            System.arraycopy(rising, 0, triggered, 0, rising.length);
+            System.arraycopy(falling, 0, triggered, rising.length, falling.length);
+            return triggered;
+        }
+    }
+
+    synchronized int size() {
+        return above.size() + below.size();
+    }
+
+    private void refresh() {
+        lowestAbove = above.lowest();
+        final long lowestNegated = below.lowest();
+        highestBelow = lowestNegated == Long.MAX_VALUE ? Long.MIN_VALUE : -lowestNegated;
+    }
+}
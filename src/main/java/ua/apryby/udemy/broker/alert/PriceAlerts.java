@@ -0,0 +1,264 @@
+package ua.apryby.udemy.broker.alert;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Context;
+import io.reactivex.BackpressureOverflowStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.processors.FlowableProcessor;
+import io.reactivex.processors.UnicastProcessor;
+import ua.apryby.udemy.broker.model.Alert;
+import ua.apryby.udemy.broker.model.AlertDirection;
+import ua.apryby.udemy.broker.model.AlertNotification;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.QuoteListener;
+import ua.apryby.udemy.broker.store.QuoteTicks;
+import ua.apryby.udemy.broker.store.SymbolSlots;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One-shot price alerts on last prices. Thresholds are kept per symbol in an {@link AlertLadder}; an update
+ * triggers its {@code k} alerts in {@code O(log n + k)} and leaves the others untouched, and an update that
+ * triggers nothing costs two volatile reads. Triggered alerts are removed and pushed to their account's
+ * notification streams; while the account has none, the latest {@value #BACKLOG} are kept and replayed to the
+ * next subscriber.
+ * <p>
+ * An alert is checked against the updates published after it was registered, not against the current quote.
+ */
+@Context
+public class PriceAlerts implements QuoteListener {
+
+    // notifications kept for a slow subscriber before the oldest are dropped
+    private static final int STREAM_BUFFER = 1_024;
+    // undelivered notifications kept per account while nobody is subscribed
+    static final int BACKLOG = 256;
+
+    private final InMemoryStore store;
+    private final AtomicLong ids = new AtomicLong();
+    private final ConcurrentHashMap<Long, RegisteredAlert> alerts = new ConcurrentHashMap<>();
+    // an account is present while it has pending alerts, undelivered notifications or subscribers;
+    // its state is only changed inside compute, which serializes changes per account
+    private final ConcurrentHashMap<UUID, AccountAlerts> accounts = new ConcurrentHashMap<>();
+    private final LongAdder triggered = new LongAdder();
+    private final SymbolSlots<AlertLadder> ladders = new SymbolSlots<>();
+
+    public PriceAlerts(final InMemoryStore store, final MeterRegistry meterRegistry) {
+        this.store = store;
+        store.addListener(this);
+        Gauge.builder("broker.alerts.registered", alerts, ConcurrentHashMap::size)
+                .description("Alerts waiting to trigger").register(meterRegistry);
+        FunctionCounter.builder("broker.alerts.triggered", triggered, LongAdder::sum)
+                .description("Alerts triggered").register(meterRegistry);
+    }
+
+    @Override
+    public void onQuote(final QuoteBook.Entry entry) {
+        final AlertLadder ladder = ladders.get(entry.getId());
+        if (ladder == null) {
+            return;
+        }
+        final QuoteTicks quote = new QuoteTicks();
+        if (!entry.read(quote)) {
+            return;
+        }
+        final long[] triggeredIds = ladder.trigger(quote.getLastPrice());
+        if (triggeredIds == null || triggeredIds.length == 0) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        for (long alertId : triggeredIds) {
+            final RegisteredAlert alert = alerts.remove(alertId);
+            if (alert == null) {
+                continue;
+            }
+            triggered.increment();
+            final AlertNotification notification = AlertNotification.builder()
+                    .alert(alert.alert)
+                    .lastPrice(entry.getTickSize().price(quote.getLastPrice()))
+                    .time(now)
+                    .build();
+            final List<FlowableProcessor<AlertNotification>> subscribers = update(alert.accountId, account -> {
+                account.pending.remove(alertId);
+                return account.deliver(notification);
+            });
+            // pushed once the compute returned: subscribers may cancel, and so change the account, from onNext
+            for (FlowableProcessor<AlertNotification> subscriber : subscribers) {
+                subscriber.onNext(notification);
+            }
+        }
+    }
+
+    /**
+     * Registers an alert on a threshold in price ticks of the symbol.
+     */
+    public Alert register(final UUID accountId, final QuoteBook.Entry entry,
+                          final AlertDirection direction, final long threshold) {
+        final long id = ids.incrementAndGet();
+        final Alert alert = Alert.builder()
+                .id(id)
+                .symbol(entry.getSymbol())
+                .direction(direction)
+                .price(entry.getTickSize().price(threshold))
+                .build();
+        final RegisteredAlert registered = new RegisteredAlert(accountId, entry, alert, threshold);
+        alerts.put(id, registered);
+        update(accountId, account -> account.pending.add(id));
+        ladder(entry.getId()).add(direction, threshold, id);
+        return alert;
+    }
+
+    /**
+     * @return pending alerts of the account, oldest first
+     */
+    public List<Alert> alerts(final UUID accountId) {
+        final AccountAlerts account = accounts.get(accountId);
+        if (account == null) {
+            return List.of();
+        }
+        return account.pending.stream()
+                .map(alerts::get)
+                .filter(alert -> alert != null)
+                .map(alert -> alert.alert)
+                .sorted(Comparator.comparingLong(Alert::getId))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return false if the account has no such pending alert
+     */
+    public boolean delete(final UUID accountId, final long alertId) {
+        final RegisteredAlert alert = alerts.get(alertId);
+        if (alert == null || !alert.accountId.equals(accountId)) {
+            return false;
+        }
+        // whoever takes the alert off the ladder first, this or a triggering update, owns it
+        if (!ladder(alert.entry.getId()).remove(alert.alert.getDirection(), alert.threshold, alertId)) {
+            return false;
+        }
+        alerts.remove(alertId);
+        update(accountId, account -> account.pending.remove(alertId));
+        return true;
+    }
+
+    /**
+     * @return alerts of the account as they trigger, starting with those that triggered while it had no stream
+     */
+    public Flowable<AlertNotification> notifications(final UUID accountId) {
+        return Flowable.defer(() -> {
+            // queues the replayed backlog ahead of later notifications until it is subscribed to
+            final FlowableProcessor<AlertNotification> stream = UnicastProcessor.<AlertNotification>create()
+                    .toSerialized();
+            update(accountId, account -> account.subscribe(stream));
+            return stream.doFinally(() -> update(accountId, account -> account.unsubscribe(stream)));
+        }).onBackpressureBuffer(STREAM_BUFFER, null, BackpressureOverflowStrategy.DROP_OLDEST);
+    }
+
+    public int size() {
+        return alerts.size();
+    }
+
+    public long getTriggered() {
+        return triggered.sum();
+    }
+
+    int accounts() {
+        return accounts.size();
+    }
+
+    /**
+     * Applies the change to the account's state, creating it if needed and dropping it once it is idle. The
+     * change only touches the state: it runs under the map's lock, so it must not call into subscribers.
+     *
+     * @return what the change returned
+     */
+    private <T> T update(final UUID accountId, final Function<AccountAlerts, T> change) {
+        final AtomicReference<T> result = new AtomicReference<>();
+        accounts.compute(accountId, (id, account) -> {
+            final AccountAlerts state = account == null ? new AccountAlerts() : account;
+            result.set(change.apply(state));
+            return state.isIdle() ? null : state;
+        });
+        return result.get();
+    }
+
+    private AlertLadder ladder(final int symbolId) {
+        return ladders.computeIfAbsent(symbolId, id -> new AlertLadder());
+    }
+
+    private static final class AccountAlerts {
+        private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+        private final ArrayDeque<AlertNotification> undelivered = new ArrayDeque<>();
+        // replaced rather than changed, so callers can use it after the compute that returned it
+        private List<FlowableProcessor<AlertNotification>> subscribers = List.of();
+
+        /**
+         * @return the subscribers to push the notification to, none if it was kept for a later one
+         */
+        private List<FlowableProcessor<AlertNotification>> deliver(final AlertNotification notification) {
+            if (subscribers.isEmpty()) {
+                if (undelivered.size() == BACKLOG) {
+                    undelivered.removeFirst();
+                }
+                undelivered.addLast(notification);
+            }
+            return subscribers;
+        }
+
+        /**
+         * Queues the undelivered notifications into the stream, which has no subscriber yet, and adds it.
+         *
+         * @return the number of notifications replayed
+         */
+        private int subscribe(final FlowableProcessor<AlertNotification> stream) {
+            final int replayed = undelivered.size();
+            for (AlertNotification notification : undelivered) {
+                stream.onNext(notification);
+            }
+            undelivered.clear();
+            final List<FlowableProcessor<AlertNotification>> next = new ArrayList<>(subscribers);
+            next.add(stream);
+            subscribers = List.copyOf(next);
+            return replayed;
+        }
+
+        private boolean unsubscribe(final FlowableProcessor<AlertNotification> stream) {
+            final List<FlowableProcessor<AlertNotification>> next = new ArrayList<>(subscribers);
+            final boolean removed = next.remove(stream);
+            subscribers = List.copyOf(next);
+            return removed;
+        }
+
+        private boolean isIdle() {
+            return pending.isEmpty() && undelivered.isEmpty() && subscribers.isEmpty();
+        }
+    }
+
+    private static final class RegisteredAlert {
+        private final UUID accountId;
+        private final QuoteBook.Entry entry;
+        private final Alert alert;
+        private final long threshold;
+
+        private RegisteredAlert(final UUID accountId, final QuoteBook.Entry entry, final Alert alert,
+                                final long threshold) {
+            this.accountId = accountId;
+            this.entry = entry;
+            this.alert = alert;
+            this.threshold = threshold;
+        }
+    }
+}
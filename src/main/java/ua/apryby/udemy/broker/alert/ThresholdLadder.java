@@ -0,0 +1,185 @@
+package ua.apryby.udemy.broker.alert;
+
+import java.util.Arrays;
+
+/**
+ * Alert ids grouped by threshold: the distinct thresholds are kept sorted in a primitive array, each with the ids
+ * waiting on it in the order they were added. Alerts that trigger always form a prefix of the ladder, so they are
+ * found by one binary search and dropped by moving its start: triggering {@code k} alerts costs
+ * {@code O(log n + k)}. Adding an alert to an existing threshold is amortized constant after the search; only a
+ * new threshold shifts the ones above it, so registering scales with the number of price levels in use rather
+ * than with the number of alerts.
+ * <p>
+ * Not thread-safe.
+ */
+final class ThresholdLadder {
+
+    private static final long[] EMPTY = new long[0];
+    private static final int INITIAL_LEVEL_CAPACITY = 2;
+
+    private long[] thresholds = EMPTY;
+    private long[][] ids = new long[0][];
+    private int[] counts = new int[0];
+    private int start;
+    private int end;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return lowest threshold, {@link Long#MAX_VALUE} if there is none
+     */
+    long lowest() {
+        return start == end ? Long.MAX_VALUE : thresholds[start];
+    }
+
+    void add(final long threshold, final long id) {
+        int index = lowerBound(threshold);
+        if (index == end || thresholds[index] != threshold) {
+            index = insertLevel(index, threshold);
+        }
+        long[] level = ids[index];
+        final int count = counts[index];
+        if (count == level.length) {
+            level = Arrays.copyOf(level, count * 2);
+            ids[index] = level;
+        }
+        level[count] = id;
+        counts[index] = count + 1;
+        size++;
+    }
+
+    boolean remove(final long threshold, final long id) {
+        final int index = lowerBound(threshold);
+        if (index == end || thresholds[index] != threshold) {
+            return false;
+        }
+        final long[] level = ids[index];
+        final int count = counts[index];
+        for (int i = 0; i < count; i++) {
+            if (level[i] == id) {
+                System.arraycopy(level, i + 1, level, i, count - i - 1);
+                counts[index] = count - 1;
+                size--;
+                if (count == 1) {
+                    removeLevel(index);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the alerts with a threshold of at most {@code value}.
+     *
+     * @return their ids, lowest threshold first
+     */
+    long[] removeUpTo(final long value) {
+        if (start == end || thresholds[start] > value) {
+            return EMPTY;
+        }
+        final int triggered = upperBound(value);
+        int removedCount = 0;
+        for (int index = start; index < triggered; index++) {
+            removedCount += counts[index];
+        }
+        final long[] removed = new long[removedCount];
+        int offset = 0;
+        for (int index = start; index < triggered; index++) {
+            System.arraycopy(ids[index], 0, removed, offset, counts[index]);
+            offset += counts[index];
+            ids[index] = null;
+        }
+        size -= removedCount;
+        start = triggered;
+        if (start == end) {
+            start = 0;
+            end = 0;
+        }
+        return removed;
+    }
+
+    private int insertLevel(int index, final long threshold) {
+        if (end == thresholds.length) {
+            index -= start;
+            grow();
+        }
+        System.arraycopy(thresholds, index, thresholds, index + 1, end - index);
+        System.arraycopy(ids, index, ids, index + 1, end - index);
+        System.arraycopy(counts, index, counts, index + 1, end - index);
+        thresholds[index] = threshold;
+        ids[index] = new long[INITIAL_LEVEL_CAPACITY];
+        counts[index] = 0;
+        end++;
+        return index;
+    }
+
+    private void removeLevel(final int index) {
+        System.arraycopy(thresholds, index + 1, thresholds, index, end - index - 1);
+        System.arraycopy(ids, index + 1, ids, index, end - index - 1);
+        System.arraycopy(counts, index + 1, counts, index, end - index - 1);
+        end--;
+        ids[end] = null;
+    }
+
+    private void grow() {
+        final int levels = end - start;
+        if (start > 0 && levels < thresholds.length / 2) {
+            // room freed by triggered levels at the front is enough
+            System.arraycopy(thresholds, start, thresholds, 0, levels);
+            System.arraycopy(ids, start, ids, 0, levels);
+            System.arraycopy(counts, start, counts, 0, levels);
+            Arrays.fill(ids, levels, end, null);
+        } else {
+            final int capacity = Math.max(16, thresholds.length * 2);
+            final long[] grownThresholds = new long[capacity];
+            final long[][] grownIds = new long[capacity][];
+            final int[] grownCounts = new int[capacity];
+            System.arraycopy(thresholds, start, grownThresholds, 0, levels);
+            System.arraycopy(ids, start, grownIds, 0, levels);
+            System.arraycopy(counts, start, grownCounts, 0, levels);
+            thresholds = grownThresholds;
+            ids = grownIds;
+            counts = grownCounts;
+        }
+        start = 0;
+        end = levels;
+    }
+
+    /**
+     * @return first index whose threshold is at least {@code value}
+     */
+    private int lowerBound(final long value) {
+        int low = start;
+        int high = end;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (thresholds[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return first index whose threshold is greater than {@code value}
+     */
+    private int upperBound(final long value) {
+        int low = start;
+        int high = end;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (thresholds[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,26 @@
+package ua.apryby.udemy.broker.analytics;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("broker.analytics")
+public class AnalyticsConfiguration {
+
+    /**
+     * Number of most recent ticks the tick window covers.
+     */
+    private int ticks = 100;
+
+    /**
+     * Length of the time window.
+     */
+    private Duration window = Duration.ofMinutes(1);
+
+    /**
+     * Buckets the time window is divided into; it slides by one bucket at a time.
+     */
+    private int buckets = 60;
+}
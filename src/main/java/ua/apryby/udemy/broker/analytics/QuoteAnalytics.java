@@ -0,0 +1,59 @@
+package ua.apryby.udemy.broker.analytics;
+
+import io.micronaut.context.annotation.Context;
+import ua.apryby.udemy.broker.model.QuoteStatistics;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.QuoteListener;
+import ua.apryby.udemy.broker.store.SymbolSlots;
+
+import javax.inject.Inject;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Rolling VWAP, simple and exponential moving averages and realized volatility of every symbol of
+ * {@link InMemoryStore}, over its last {@code broker.analytics.ticks} ticks and over the last
+ * {@code broker.analytics.window}. Maintained in constant time per update, so a read never walks the ticks.
+ * Created eagerly so statistics cover updates from startup.
+ */
+@Context
+public class QuoteAnalytics implements QuoteListener {
+
+    private final InMemoryStore store;
+    private final AnalyticsConfiguration configuration;
+    private final LongSupplier clock;
+    private final SymbolSlots<SymbolStatistics> statistics = new SymbolSlots<>();
+
+    @Inject
+    public QuoteAnalytics(final InMemoryStore store, final AnalyticsConfiguration configuration) {
+        this(store, configuration, System::currentTimeMillis);
+    }
+
+    QuoteAnalytics(final InMemoryStore store, final AnalyticsConfiguration configuration, final LongSupplier clock) {
+        this.store = store;
+        this.configuration = configuration;
+        this.clock = clock;
+        store.addListener(this);
+    }
+
+    @Override
+    public void onQuote(final QuoteBook.Entry entry) {
+        statistics(entry).record(clock.getAsLong());
+    }
+
+    /**
+     * @return current statistics of the symbol, empty if it is not listed
+     */
+    public Optional<QuoteStatistics> statistics(final String symbol) {
+        final QuoteBook.Entry entry = store.quoteEntry(symbol);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        return Optional.of(statistics(entry).read(clock.getAsLong()));
+    }
+
+    private SymbolStatistics statistics(final QuoteBook.Entry entry) {
+        return statistics.computeIfAbsent(entry.getId(), id -> new SymbolStatistics(entry, configuration));
+    }
+}
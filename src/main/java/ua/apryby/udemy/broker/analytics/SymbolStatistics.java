@@ -0,0 +1,69 @@
+package ua.apryby.udemy.broker.analytics;
+
+import ua.apryby.udemy.broker.model.QuoteStatistics;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.QuoteTicks;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * Tick and time window statistics of one symbol, computed from its last prices. Guarded by its own monitor,
+ * so updates of different symbols never contend.
+ */
+final class SymbolStatistics {
+
+    private final QuoteBook.Entry entry;
+    private final QuoteTicks scratch = new QuoteTicks();
+    private final TimeWindow.Sums sums = new TimeWindow.Sums();
+    private final TickWindow ticks;
+    private final TimeWindow time;
+    private long version;
+    private long previousPrice;
+
+    SymbolStatistics(final QuoteBook.Entry entry, final AnalyticsConfiguration configuration) {
+        this.entry = entry;
+        this.ticks = new TickWindow(configuration.getTicks());
+        this.time = new TimeWindow(configuration.getWindow().toMillis(), configuration.getBuckets());
+    }
+
+    synchronized void record(final long now) {
+        if (!entry.read(scratch) || scratch.getVersion() <= version) {
+            return;
+        }
+        version = scratch.getVersion();
+        final long price = scratch.getLastPrice();
+        final double logReturn = previousPrice > 0 && price > 0 ? Math.log((double) price / previousPrice) : 0;
+        previousPrice = price;
+        final double squaredReturn = logReturn * logReturn;
+        ticks.add(price, scratch.getVolume(), squaredReturn);
+        time.add(now, price, scratch.getVolume(), squaredReturn);
+    }
+
+    synchronized QuoteStatistics read(final long now) {
+        time.read(now, sums);
+        return QuoteStatistics.builder()
+                .symbol(entry.getSymbol())
+                .ticks(QuoteStatistics.Window.builder()
+                        .length(String.valueOf(ticks.length()))
+                        .count(ticks.count())
+                        .vwap(price(ticks.vwap()))
+                        .sma(price(ticks.sma()))
+                        .ema(price(ticks.ema()))
+                        .volatility(ticks.volatility())
+                        .build())
+                .time(QuoteStatistics.Window.builder()
+                        .length(Duration.ofMillis(time.getPeriodMillis()).toString())
+                        .count(sums.count)
+                        .vwap(price(sums.volumeSum == 0 ? Double.NaN : sums.notional / sums.volumeSum))
+                        .sma(price(sums.count == 0 ? Double.NaN : sums.priceSum / sums.count))
+                        .ema(price(sums.ema))
+                        .volatility(Math.sqrt(Math.max(0, sums.squaredReturnSum)))
+                        .build())
+                .build();
+    }
+
+    private BigDecimal price(final double ticks) {
+        return Double.isNaN(ticks) ? null : entry.getTickSize().averagePrice(ticks);
+    }
+}
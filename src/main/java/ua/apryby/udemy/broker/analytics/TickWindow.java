@@ -0,0 +1,93 @@
+package ua.apryby.udemy.broker.analytics;
+
+/**
+ * Running sums over the last {@code n} ticks. Each tick adds its values and subtracts those of the tick it
+ * pushes out; the sums are recomputed from the retained ticks once per lap of the ring, so floating point
+ * error cannot build up while the cost per tick stays constant.
+ * <p>
+ * Not thread-safe.
+ */
+final class TickWindow {
+
+    private final long[] prices;
+    private final long[] volumes;
+    private final double[] squaredReturns;
+    private final double alpha;
+    private int next;
+    private int count;
+    private double priceSum;
+    private double notional;
+    private double volumeSum;
+    private double squaredReturnSum;
+    private double ema = Double.NaN;
+
+    TickWindow(final int length) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("tick window must hold at least one tick");
+        }
+        prices = new long[length];
+        volumes = new long[length];
+        squaredReturns = new double[length];
+        alpha = 2.0 / (length + 1);
+    }
+
+    void add(final long price, final long volume, final double squaredReturn) {
+        if (count == prices.length) {
+            priceSum -= prices[next];
+            notional -= (double) prices[next] * volumes[next];
+            volumeSum -= volumes[next];
+            squaredReturnSum -= squaredReturns[next];
+        } else {
+            count++;
+        }
+        prices[next] = price;
+        volumes[next] = volume;
+        squaredReturns[next] = squaredReturn;
+        priceSum += price;
+        notional += (double) price * volume;
+        volumeSum += volume;
+        squaredReturnSum += squaredReturn;
+        ema = Double.isNaN(ema) ? price : ema + alpha * (price - ema);
+        if (++next == prices.length) {
+            next = 0;
+            recompute();
+        }
+    }
+
+    int length() {
+        return prices.length;
+    }
+
+    int count() {
+        return count;
+    }
+
+    double sma() {
+        return count == 0 ? Double.NaN : priceSum / count;
+    }
+
+    double vwap() {
+        return volumeSum == 0 ? Double.NaN : notional / volumeSum;
+    }
+
+    double ema() {
+        return ema;
+    }
+
+    double volatility() {
+        return Math.sqrt(Math.max(0, squaredReturnSum));
+    }
+
+    private void recompute() {
+        priceSum = 0;
+        notional = 0;
+        volumeSum = 0;
+        squaredReturnSum = 0;
+        for (int i = 0; i < count; i++) {
+            priceSum += prices[i];
+            notional += (double) prices[i] * volumes[i];
+            volumeSum += volumes[i];
+            squaredReturnSum += squaredReturns[i];
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package ua.apryby.udemy.broker.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Sums over a sliding period of time, kept per bucket of {@code period / buckets}. A tick only adds to the
+ * bucket of its time, clearing buckets the window slid past; reads combine the fixed number of buckets still
+ * inside the window, so neither depends on how many ticks arrived. The window slides by whole buckets.
+ * <p>
+ * The exponential moving average is time weighted: a price decays by {@code e^(-elapsed / period)}.
+ * <p>
+ * Not thread-safe.
+ */
+final class TimeWindow {
+
+    private final long periodMillis;
+    private final long bucketMillis;
+    // per bucket, slot = bucket number modulo the number of buckets
+    private final long[] bucketNumbers;
+    private final long[] counts;
+    private final double[] priceSums;
+    private final double[] notionals;
+    private final double[] volumeSums;
+    private final double[] squaredReturnSums;
+    private double ema = Double.NaN;
+    private long emaTime;
+
+    TimeWindow(final long periodMillis, final int buckets) {
+        if (periodMillis <= 0 || buckets <= 0) {
+            throw new IllegalArgumentException("time window needs a positive period and number of buckets");
+        }
+        this.periodMillis = periodMillis;
+        this.bucketMillis = Math.max(1, periodMillis / buckets);
+        final int slots = (int) Math.min(buckets, periodMillis);
+        bucketNumbers = new long[slots];
+        Arrays.fill(bucketNumbers, Long.MIN_VALUE);
+        counts = new long[slots];
+        priceSums = new double[slots];
+        notionals = new double[slots];
+        volumeSums = new double[slots];
+        squaredReturnSums = new double[slots];
+    }
+
+    void add(final long time, final long price, final long volume, final double squaredReturn) {
+        final long bucket = Math.floorDiv(time, bucketMillis);
+        final int slot = (int) Math.floorMod(bucket, (long) bucketNumbers.length);
+        if (bucketNumbers[slot] != bucket) {
+            bucketNumbers[slot] = bucket;
+            counts[slot] = 0;
+            priceSums[slot] = 0;
+            notionals[slot] = 0;
+            volumeSums[slot] = 0;
+            squaredReturnSums[slot] = 0;
+        }
+        counts[slot]++;
+        priceSums[slot] += price;
+        notionals[slot] += (double) price * volume;
+        volumeSums[slot] += volume;
+        squaredReturnSums[slot] += squaredReturn;
+        if (Double.isNaN(ema)) {
+            ema = price;
+        } else {
+            final double alpha = -Math.expm1(-(double) Math.max(0, time - emaTime) / periodMillis);
+            ema += alpha * (price - ema);
+        }
+        emaTime = Math.max(emaTime, time);
+    }
+
+    long getPeriodMillis() {
+        return periodMillis;
+    }
+
+    /**
+     * Combines the buckets inside the window ending at {@code now} into {@code into}.
+     */
+    void read(final long now, final Sums into) {
+        into.clear();
+        final long newest = Math.floorDiv(now, bucketMillis);
+        final long oldest = newest - bucketNumbers.length + 1;
+        for (int slot = 0; slot < bucketNumbers.length; slot++) {
+            if (bucketNumbers[slot] >= oldest && bucketNumbers[slot] <= newest) {
+                into.count += counts[slot];
+                into.priceSum += priceSums[slot];
+                into.notional += notionals[slot];
+                into.volumeSum += volumeSums[slot];
+                into.squaredReturnSum += squaredReturnSums[slot];
+            }
+        }
+        into.ema = into.count == 0 ? Double.NaN : ema;
+    }
+
+    static final class Sums {
+        long count;
+        double priceSum;
+        double notional;
+        double volumeSum;
+        double squaredReturnSum;
+        double ema;
+
+        private void clear() {
+            count = 0;
+            priceSum = 0;
+            notional = 0;
+            volumeSum = 0;
+            squaredReturnSum = 0;
+        }
+    }
+}
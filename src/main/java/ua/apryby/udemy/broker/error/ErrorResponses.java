@@ -0,0 +1,24 @@
+package ua.apryby.udemy.broker.error;
+
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpResponse;
+
+/**
+ * Builds the {@link CustomError} body every endpoint answers failures with.
+ */
+public final class ErrorResponses {
+
+    private ErrorResponses() {
+    }
+
+    public static MutableHttpResponse<CustomError> of(final HttpStatus status, final String message,
+                                                      final String path) {
+        final CustomError error = CustomError.builder()
+                .status(status.getCode())
+                .error(status.name())
+                .message(message)
+                .path(path).build();
+        return HttpResponse.<CustomError>status(status).body(error);
+    }
+}
@@ -0,0 +1,26 @@
+package ua.apryby.udemy.broker.error;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.annotation.Produces;
+import io.micronaut.http.server.exceptions.ExceptionHandler;
+
+import javax.inject.Singleton;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Answers work refused by a saturated executor with 503, asking the client to retry shortly.
+ */
+@Produces
+@Singleton
+@Requires(classes = {RejectedExecutionException.class, ExceptionHandler.class})
+public class OverloadedHandler implements ExceptionHandler<RejectedExecutionException, HttpResponse<CustomError>> {
+
+    @Override
+    public HttpResponse<CustomError> handle(final HttpRequest request, final RejectedExecutionException exception) {
+        return ErrorResponses.of(HttpStatus.SERVICE_UNAVAILABLE, exception.getMessage(), request.getPath())
+                .header("Retry-After", "1");
+    }
+}
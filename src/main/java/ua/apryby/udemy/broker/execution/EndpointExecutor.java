@@ -0,0 +1,151 @@
+package ua.apryby.udemy.broker.execution;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.reactivex.Single;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs blocking endpoint work off the event loop with a bounded number of requests in flight. Requests beyond
+ * {@code threads + queueSize} fail at once with a {@link RejectedExecutionException}, answered with 503, instead of
+ * piling up threads or queued work; requests whose client went away while queued are skipped.
+ */
+@Singleton
+public class EndpointExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EndpointExecutor.class);
+
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentHashMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public EndpointExecutor(final ExecutionConfiguration configuration, final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        final int threads = Math.max(1, configuration.getThreads());
+        this.maxInFlight = threads + Math.max(0, configuration.getQueueSize());
+        this.executor = configuration.getMode() == ExecutionMode.VIRTUAL_THREADS
+                ? virtualThreads(threads)
+                : workStealing(threads);
+        Gauge.builder("broker.execution.saturation", this, EndpointExecutor::getSaturation)
+                .description("Share of the requests allowed in flight that are currently admitted")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param endpoint name the meters of the work are tagged with
+     */
+    public <T> Single<T> execute(final String endpoint, final Callable<T> task) {
+        final Endpoint meters = endpoints.computeIfAbsent(endpoint, Endpoint::new);
+        return Single.create(emitter -> {
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                meters.rejected.increment();
+                emitter.onError(new RejectedExecutionException("too many requests, try again later"));
+                return;
+            }
+            final long submitted = System.nanoTime();
+            meters.queued.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    meters.queued.decrementAndGet();
+                    meters.waitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                    meters.running.incrementAndGet();
+                    try {
+                        if (!emitter.isDisposed()) {
+                            emitter.onSuccess(task.call());
+                        }
+                    } catch (Throwable e) {
+                        emitter.tryOnError(e);
+                    } finally {
+                        meters.running.decrementAndGet();
+                        inFlight.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                meters.queued.decrementAndGet();
+                inFlight.decrementAndGet();
+                meters.rejected.increment();
+                emitter.onError(e);
+            }
+        });
+    }
+
+    public double getSaturation() {
+        return (double) inFlight.get() / maxInFlight;
+    }
+
+    public long getRejected(final String endpoint) {
+        final Endpoint meters = endpoints.get(endpoint);
+        return meters == null ? 0 : meters.rejected.sum();
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    private static ExecutorService workStealing(final int threads) {
+        final AtomicInteger count = new AtomicInteger();
+        return new ForkJoinPool(threads, pool -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("endpoint-worker-" + count.incrementAndGet());
+            return thread;
+        }, null, true);
+    }
+
+    private static ExecutorService virtualThreads(final int threads) {
+        try {
+            // looked up at runtime, so the application still builds and runs on JDKs without virtual threads
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LOG.warn("Virtual threads are not available on Java {}, using {} pool threads",
+                    Runtime.version().feature(), threads);
+            return workStealing(threads);
+        }
+    }
+
+    private final class Endpoint {
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final LongAdder rejected = new LongAdder();
+        private final Timer waitTimer;
+
+        private Endpoint(final String name) {
+            waitTimer = Timer.builder("broker.execution.wait")
+                    .description("Time requests waited to start running")
+                    .tag("endpoint", name)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            Gauge.builder("broker.execution.queued", queued, AtomicInteger::get)
+                    .description("Requests waiting to start running")
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+            Gauge.builder("broker.execution.running", running, AtomicInteger::get)
+                    .description("Requests running")
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+            FunctionCounter.builder("broker.execution.rejected", rejected, LongAdder::sum)
+                    .description("Requests refused with 503 for too many requests in flight")
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ua.apryby.udemy.broker.execution;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+@Data
+@ConfigurationProperties("broker.execution")
+public class ExecutionConfiguration {
+
+    private ExecutionMode mode = ExecutionMode.WORK_STEALING;
+
+    /**
+     * Pool threads in {@link ExecutionMode#WORK_STEALING}; with virtual threads every admitted request runs at once.
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Requests admitted beyond {@link #threads} before further ones are refused with 503.
+     */
+    private int queueSize = 256;
+}
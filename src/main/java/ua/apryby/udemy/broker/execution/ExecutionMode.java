@@ -0,0 +1,12 @@
+package ua.apryby.udemy.broker.execution;
+
+public enum ExecutionMode {
+    /**
+     * A fixed number of threads taking work from each other's queues.
+     */
+    WORK_STEALING,
+    /**
+     * A virtual thread per request on JDKs that have them, a work stealing pool on older ones.
+     */
+    VIRTUAL_THREADS
+}
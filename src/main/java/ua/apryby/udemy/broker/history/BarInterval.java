@@ -0,0 +1,48 @@
+package ua.apryby.udemy.broker.history;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Bar lengths aggregated on every update, aligned to the epoch.
+ */
+public enum BarInterval {
+    SECOND("1s", 1_000),
+    MINUTE("1m", 60_000),
+    FIVE_MINUTES("5m", 300_000),
+    HOUR("1h", 3_600_000);
+
+    public static final String LABELS = Arrays.stream(values())
+            .map(BarInterval::getLabel)
+            .collect(Collectors.joining(", "));
+
+    private final String label;
+    private final long millis;
+
+    BarInterval(final String label, final long millis) {
+        this.label = label;
+        this.millis = millis;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public long start(final long time) {
+        return time - Math.floorMod(time, millis);
+    }
+
+    public static Optional<BarInterval> of(final String label) {
+        for (BarInterval interval : values()) {
+            if (interval.label.equals(label)) {
+                return Optional.of(interval);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,105 @@
+package ua.apryby.udemy.broker.history;
+
+/**
+ * Fixed capacity ring of rows of {@code long} columns, stored column by column. Rows are addressed by an
+ * ever increasing sequence number; once the ring is full each append overwrites the oldest row. Columns are
+ * allocated in chunks on first use, so a ring costs memory in proportion to what it has held.
+ * <p>
+ * Not thread-safe.
+ */
+final class ColumnRing {
+
+    private static final int CHUNK_BITS = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // [column][chunk][row within chunk]
+    private final long[][][] columns;
+    private final int capacity;
+    private long end;
+
+    ColumnRing(final int columnCount, final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        final int chunks = (capacity + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        this.capacity = chunks << CHUNK_BITS;
+        this.columns = new long[columnCount][chunks][];
+    }
+
+    /**
+     * @return sequence number of the oldest retained row
+     */
+    long first() {
+        return Math.max(0, end - capacity);
+    }
+
+    /**
+     * @return sequence number the next row gets
+     */
+    long end() {
+        return end;
+    }
+
+    long append() {
+        final int chunk = slot(end) >>> CHUNK_BITS;
+        if (columns[0][chunk] == null) {
+            for (long[][] column : columns) {
+                column[chunk] = new long[CHUNK_SIZE];
+            }
+        }
+        return end++;
+    }
+
+    long get(final long row, final int column) {
+        final int slot = slot(row);
+        return columns[column][slot >>> CHUNK_BITS][slot & CHUNK_MASK];
+    }
+
+    void set(final long row, final int column, final long value) {
+        final int slot = slot(row);
+        columns[column][slot >>> CHUNK_BITS][slot & CHUNK_MASK] = value;
+    }
+
+    /**
+     * @return first retained row whose value in the given non-decreasing column is at least {@code value},
+     * {@link #end()} if there is none
+     */
+    long search(final int column, final long value) {
+        long low = first();
+        long high = end;
+        while (low < high) {
+            final long middle = (low + high) >>> 1;
+            if (get(middle, column) < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the retained rows from {@code from} up to the first one whose value in the given non-decreasing
+     * column exceeds {@code to}, row by row
+     */
+    long[] copy(final long from, final int column, final long to) {
+        long last = from;
+        while (last < end && get(last, column) <= to) {
+            last++;
+        }
+        final int columnCount = columns.length;
+        final long[] rows = new long[Math.toIntExact((last - from) * columnCount)];
+        for (long row = from; row < last; row++) {
+            final int offset = (int) (row - from) * columnCount;
+            for (int c = 0; c < columnCount; c++) {
+                rows[offset + c] = get(row, c);
+            }
+        }
+        return rows;
+    }
+
+    private int slot(final long row) {
+        return (int) (row % capacity);
+    }
+}
@@ -0,0 +1,48 @@
+package ua.apryby.udemy.broker.history;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+/**
+ * Per-symbol limits of the retained history; 0 keeps none. Storage grows in small chunks up to these limits,
+ * so rarely traded symbols stay cheap.
+ */
+@Data
+@ConfigurationProperties("broker.history")
+public class HistoryConfiguration {
+
+    private int ticks = 4_096;
+
+    /**
+     * One hour of one second bars.
+     */
+    private int secondBars = 3_600;
+
+    /**
+     * One day of one minute bars.
+     */
+    private int minuteBars = 1_440;
+
+    /**
+     * One week of five minute bars.
+     */
+    private int fiveMinuteBars = 2_016;
+
+    /**
+     * One month of hourly bars.
+     */
+    private int hourBars = 720;
+
+    int bars(final BarInterval interval) {
+        switch (interval) {
+            case SECOND:
+                return secondBars;
+            case MINUTE:
+                return minuteBars;
+            case FIVE_MINUTES:
+                return fiveMinuteBars;
+            default:
+                return hourBars;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ua.apryby.udemy.broker.history;
+
+import ua.apryby.udemy.broker.model.Bar;
+import ua.apryby.udemy.broker.model.Tick;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.QuoteTicks;
+import ua.apryby.udemy.broker.store.TickSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recent ticks and OHLCV bars of one symbol. Every recorded tick updates the open bar of each interval in
+ * place or starts the next one, so queries only copy out what is already aggregated. Intervals without any
+ * tick have no bar.
+ * <p>
+ * Bars aggregate last prices; their volume is the sum of the volumes of their ticks.
+ */
+final class SymbolHistory {
+
+    private static final int TIME = 0;
+    private static final int BID = 1;
+    private static final int ASK = 2;
+    private static final int LAST_PRICE = 3;
+    private static final int VOLUME = 4;
+    private static final int TICK_COLUMNS = 5;
+
+    private static final int START = 0;
+    private static final int OPEN = 1;
+    private static final int HIGH = 2;
+    private static final int LOW = 3;
+    private static final int CLOSE = 4;
+    private static final int BAR_VOLUME = 5;
+    private static final int BAR_COLUMNS = 6;
+
+    private static final BarInterval[] INTERVALS = BarInterval.values();
+
+    private final QuoteBook.Entry entry;
+    private final QuoteTicks scratch = new QuoteTicks();
+    private final ColumnRing ticks;
+    // indexed by interval ordinal, null for intervals without retained bars
+    private final ColumnRing[] bars = new ColumnRing[INTERVALS.length];
+    private long version;
+    private long lastTime = Long.MIN_VALUE;
+
+    SymbolHistory(final QuoteBook.Entry entry, final HistoryConfiguration configuration) {
+        this.entry = entry;
+        this.ticks = configuration.getTicks() > 0 ? new ColumnRing(TICK_COLUMNS, configuration.getTicks()) : null;
+        for (BarInterval interval : INTERVALS) {
+            final int capacity = configuration.bars(interval);
+            if (capacity > 0) {
+                bars[interval.ordinal()] = new ColumnRing(BAR_COLUMNS, capacity);
+            }
+        }
+    }
+
+    /**
+     * Records the current quote of the entry unless it is already recorded. Time never goes backwards within a
+     * history; an earlier time is recorded as the latest one.
+     */
+    synchronized void record(final long now) {
+        if (!entry.read(scratch) || scratch.getVersion() <= version) {
+            return;
+        }
+        version = scratch.getVersion();
+        final long time = Math.max(now, lastTime);
+        lastTime = time;
+        final long price = scratch.getLastPrice();
+        final long volume = scratch.getVolume();
+        if (ticks != null) {
+            final long row = ticks.append();
+            ticks.set(row, TIME, time);
+            ticks.set(row, BID, scratch.getBid());
+            ticks.set(row, ASK, scratch.getAsk());
+            ticks.set(row, LAST_PRICE, price);
+            ticks.set(row, VOLUME, volume);
+        }
+        for (BarInterval interval : INTERVALS) {
+            final ColumnRing ring = bars[interval.ordinal()];
+            if (ring != null) {
+                aggregate(ring, interval.start(time), price, volume);
+            }
+        }
+    }
+
+    /**
+     * @return bars overlapping {@code [from, to]}, oldest first
+     */
+    List<Bar> bars(final BarInterval interval, final long from, final long to) {
+        final ColumnRing ring = bars[interval.ordinal()];
+        if (ring == null) {
+            return List.of();
+        }
+        final long[] rows;
+        // only the primitive columns are copied under the lock recording needs, objects are built outside it
+        synchronized (this) {
+            rows = ring.copy(ring.search(START, interval.start(from)), START, to);
+        }
+        final TickSize tickSize = entry.getTickSize();
+        final List<Bar> result = new ArrayList<>(rows.length / BAR_COLUMNS);
+        for (int row = 0; row < rows.length; row += BAR_COLUMNS) {
+            result.add(Bar.builder()
+                    .time(rows[row + START])
+                    .open(tickSize.price(rows[row + OPEN]))
+                    .high(tickSize.price(rows[row + HIGH]))
+                    .low(tickSize.price(rows[row + LOW]))
+                    .close(tickSize.price(rows[row + CLOSE]))
+                    .volume(tickSize.volume(rows[row + BAR_VOLUME]))
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * @return retained ticks published within {@code [from, to]}, oldest first
+     */
+    List<Tick> ticks(final long from, final long to) {
+        if (ticks == null) {
+            return List.of();
+        }
+        final long[] rows;
+        synchronized (this) {
+            rows = ticks.copy(ticks.search(TIME, from), TIME, to);
+        }
+        final TickSize tickSize = entry.getTickSize();
+        final List<Tick> result = new ArrayList<>(rows.length / TICK_COLUMNS);
+        for (int row = 0; row < rows.length; row += TICK_COLUMNS) {
+            result.add(Tick.builder()
+                    .time(rows[row + TIME])
+                    .bid(tickSize.price(rows[row + BID]))
+                    .ask(tickSize.price(rows[row + ASK]))
+                    .lastPrice(tickSize.price(rows[row + LAST_PRICE]))
+                    .volume(tickSize.volume(rows[row + VOLUME]))
+                    .build());
+        }
+        return result;
+    }
+
+    private static void aggregate(final ColumnRing ring, final long start, final long price, final long volume) {
+        final long end = ring.end();
+        if (end > 0 && ring.get(end - 1, START) == start) {
+            final long open = end - 1;
+            ring.set(open, HIGH, Math.max(ring.get(open, HIGH), price));
+            ring.set(open, LOW, Math.min(ring.get(open, LOW), price));
+            ring.set(open, CLOSE, price);
+            ring.set(open, BAR_VOLUME, ring.get(open, BAR_VOLUME) + volume);
+            return;
+        }
+        final long row = ring.append();
+        ring.set(row, START, start);
+        ring.set(row, OPEN, price);
+        ring.set(row, HIGH, price);
+        ring.set(row, LOW, price);
+        ring.set(row, CLOSE, price);
+        ring.set(row, BAR_VOLUME, volume);
+    }
+}
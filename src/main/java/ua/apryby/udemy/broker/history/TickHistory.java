@@ -0,0 +1,73 @@
+package ua.apryby.udemy.broker.history;
+
+import io.micronaut.context.annotation.Context;
+import ua.apryby.udemy.broker.model.Bar;
+import ua.apryby.udemy.broker.model.Tick;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.QuoteListener;
+import ua.apryby.udemy.broker.store.SymbolSlots;
+
+import javax.inject.Inject;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the recent history of every symbol of {@link InMemoryStore}: its ticks and OHLCV bars of each
+ * {@link BarInterval}, bounded per symbol by {@link HistoryConfiguration}. Created eagerly so history is
+ * recorded from startup rather than from the first request.
+ */
+@Context
+public class TickHistory implements QuoteListener {
+
+    private final InMemoryStore store;
+    private final HistoryConfiguration configuration;
+    private final LongSupplier clock;
+    private final SymbolSlots<SymbolHistory> histories = new SymbolSlots<>();
+
+    @Inject
+    public TickHistory(final InMemoryStore store, final HistoryConfiguration configuration) {
+        this(store, configuration, System::currentTimeMillis);
+    }
+
+    TickHistory(final InMemoryStore store, final HistoryConfiguration configuration, final LongSupplier clock) {
+        this.store = store;
+        this.configuration = configuration;
+        this.clock = clock;
+        store.addListener(this);
+    }
+
+    @Override
+    public void onQuote(final QuoteBook.Entry entry) {
+        history(entry).record(clock.getAsLong());
+    }
+
+    /**
+     * @return bars of the symbol overlapping {@code [from, to]} in epoch milliseconds, empty if the symbol
+     * is not listed
+     */
+    public Optional<List<Bar>> bars(final String symbol, final BarInterval interval, final long from, final long to) {
+        final QuoteBook.Entry entry = store.quoteEntry(symbol);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        return Optional.of(history(entry).bars(interval, from, to));
+    }
+
+    /**
+     * @return retained ticks of the symbol published within {@code [from, to]} in epoch milliseconds, empty if
+     * the symbol is not listed
+     */
+    public Optional<List<Tick>> ticks(final String symbol, final long from, final long to) {
+        final QuoteBook.Entry entry = store.quoteEntry(symbol);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        return Optional.of(history(entry).ticks(from, to));
+    }
+
+    private SymbolHistory history(final QuoteBook.Entry entry) {
+        return histories.computeIfAbsent(entry.getId(), id -> new SymbolHistory(entry, configuration));
+    }
+}
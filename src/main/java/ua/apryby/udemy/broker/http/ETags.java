@@ -0,0 +1,68 @@
+package ua.apryby.udemy.broker.http;
+
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MutableHttpResponse;
+
+import javax.annotation.Nullable;
+
+/**
+ * Entity tags derived from the monotonically increasing versions of stored entities. Tags are prefixed
+ * with a per-process epoch so versions restarting from zero after a restart never match stale tags.
+ */
+public final class ETags {
+
+    private static final String EPOCH = Long.toHexString(System.currentTimeMillis());
+
+    private ETags() {
+    }
+
+    public static String of(final long version) {
+        return "\"" + EPOCH + "-" + Long.toHexString(version) + "\"";
+    }
+
+    /**
+     * @return {@code 304 Not Modified} carrying the tag if {@code If-None-Match} matches it, otherwise {@code null}
+     */
+    @Nullable
+    public static MutableHttpResponse<?> notModified(@Nullable final String ifNoneMatch, final String etag) {
+        if (!matches(ifNoneMatch, etag)) {
+            return null;
+        }
+        return HttpResponse.notModified().header(HttpHeaders.ETAG, etag);
+    }
+
+    public static boolean matches(@Nullable final String ifNoneMatch, final String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        final int length = ifNoneMatch.length();
+        int index = 0;
+        while (index < length) {
+            final char c = ifNoneMatch.charAt(index);
+            if (c == ',' || Character.isWhitespace(c)) {
+                index++;
+                continue;
+            }
+            if (c == '*') {
+                return true;
+            }
+            if (ifNoneMatch.startsWith("W/", index)) {
+                index += 2;
+            }
+            int end = ifNoneMatch.indexOf(',', index);
+            if (end < 0) {
+                end = length;
+            }
+            int tagEnd = end;
+            while (tagEnd > index && Character.isWhitespace(ifNoneMatch.charAt(tagEnd - 1))) {
+                tagEnd--;
+            }
+            if (tagEnd - index == etag.length() && ifNoneMatch.regionMatches(index, etag, 0, etag.length())) {
+                return true;
+            }
+            index = end + 1;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,51 @@
+package ua.apryby.udemy.broker.ingest;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+@Data
+@ConfigurationProperties("broker.ingest")
+public class IngestionConfiguration {
+
+    /**
+     * Ticks the ring buffer holds before sources are pushed back, rounded up to a power of two.
+     */
+    private int bufferSize = 65_536;
+
+    /**
+     * Most ticks the writer drains and coalesces before publishing to the store.
+     */
+    private int batchSize = 4_096;
+
+    @Data
+    @ConfigurationProperties("random-walk")
+    public static class RandomWalk {
+
+        private boolean enabled;
+
+        /**
+         * Ticks per second over all listed symbols, 0 for as fast as the pipeline accepts them.
+         */
+        private int rate = 1_000;
+
+        /**
+         * Largest move of a price per tick, in price ticks.
+         */
+        private int maxStep = 5;
+    }
+
+    @Data
+    @ConfigurationProperties("replay")
+    public static class Replay {
+
+        /**
+         * CSV file of {@code symbol,bid,ask,lastPrice,volume} lines; {@code #} starts a comment.
+         */
+        private String file;
+
+        /**
+         * Start over at the end of the file instead of finishing.
+         */
+        private boolean loop;
+    }
+}
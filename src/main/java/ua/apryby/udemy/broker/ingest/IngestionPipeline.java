@@ -0,0 +1,286 @@
+package ua.apryby.udemy.broker.ingest;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves ticks from the {@link TickSource}s into the {@link InMemoryStore}. Sources enqueue into a bounded
+ * {@link TickRingBuffer}; a single writer thread drains it in batches, keeps only the latest tick per symbol
+ * of each batch and publishes those, so a burst for one symbol costs one store update and one notification.
+ * The published tick carries the summed volume of the ticks it replaces, so no traded volume is lost.
+ * The writer thread is started by the first tick enqueued, so a node without any feed runs no thread at all.
+ */
+@Context
+public class IngestionPipeline implements TickSink {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IngestionPipeline.class);
+    private static final long MAX_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final InMemoryStore store;
+    private final List<TickSource> sources;
+    private final TickRingBuffer buffer;
+    private final int batchSize;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+    private volatile boolean writerStarted;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder backpressured = new LongAdder();
+    // only written by the writer thread
+    private volatile long coalesced;
+    private volatile long published;
+    private volatile long unknown;
+    private volatile long batches;
+
+    // pending latest tick per symbol id of the current batch, writer thread only
+    private boolean[] pending = new boolean[0];
+    private long[] bids = new long[0];
+    private long[] asks = new long[0];
+    private long[] lastPrices = new long[0];
+    private long[] volumes = new long[0];
+    private int[] pendingIds = new int[0];
+    private int pendingCount;
+    private int unknownInBatch;
+
+    public IngestionPipeline(final InMemoryStore store,
+                             final List<TickSource> sources,
+                             final IngestionConfiguration configuration,
+                             final MeterRegistry meterRegistry) {
+        this.store = store;
+        this.sources = List.copyOf(sources);
+        this.buffer = new TickRingBuffer(Integer.highestOneBit(Math.max(2, configuration.getBufferSize() * 2 - 1)));
+        this.batchSize = Math.max(1, configuration.getBatchSize());
+        FunctionCounter.builder("broker.ingest.ticks.accepted", accepted, LongAdder::sum)
+                .description("Ticks accepted into the ingestion buffer").register(meterRegistry);
+        FunctionCounter.builder("broker.ingest.ticks.dropped", dropped, LongAdder::sum)
+                .description("Ticks dropped because the ingestion buffer was full").register(meterRegistry);
+        FunctionCounter.builder("broker.ingest.backpressure", backpressured, LongAdder::sum)
+                .description("Times a source had to wait for room in the ingestion buffer").register(meterRegistry);
+        FunctionCounter.builder("broker.ingest.ticks.coalesced", this, IngestionPipeline::getCoalesced)
+                .description("Ticks superseded by a later tick of the same symbol in the same batch")
+                .register(meterRegistry);
+        FunctionCounter.builder("broker.ingest.ticks.published", this, IngestionPipeline::getPublished)
+                .description("Quote updates published to the store").register(meterRegistry);
+        FunctionCounter.builder("broker.ingest.batches", this, IngestionPipeline::getBatches)
+                .register(meterRegistry);
+        Gauge.builder("broker.ingest.buffer.size", buffer, TickRingBuffer::size)
+                .description("Ticks waiting in the ingestion buffer").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (TickSource source : sources) {
+            final Thread feeder = new Thread(() -> runSource(source), "quote-source-" + source.getName());
+            feeder.setDaemon(true);
+            threads.add(feeder);
+            feeder.start();
+        }
+        if (!sources.isEmpty()) {
+            LOG.info("Ingesting quotes from {} source(s) through a buffer of {} ticks",
+                    sources.size(), buffer.capacity());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        for (Thread thread : threads) {
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        threads.clear();
+        writerStarted = false;
+    }
+
+    @Override
+    public boolean offer(final int symbolId, final long bid, final long ask, final long lastPrice, final long volume) {
+        if (!writerStarted) {
+            startWriter();
+        }
+        if (buffer.offer(symbolId, bid, ask, lastPrice, volume)) {
+            accepted.increment();
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    @Override
+    public boolean put(final int symbolId, final long bid, final long ask, final long lastPrice, final long volume) {
+        if (!writerStarted) {
+            startWriter();
+        }
+        if (!buffer.offer(symbolId, bid, ask, lastPrice, volume)) {
+            backpressured.increment();
+            int idle = 0;
+            do {
+                if (!running) {
+                    return false;
+                }
+                idle = idle(idle);
+            } while (!buffer.offer(symbolId, bid, ask, lastPrice, volume));
+        }
+        accepted.increment();
+        return true;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getBackpressured() {
+        return backpressured.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    public long getUnknown() {
+        return unknown;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    private synchronized void startWriter() {
+        if (writerStarted || !running) {
+            return;
+        }
+        final Thread writer = new Thread(this::drainLoop, "quote-ingest-writer");
+        writer.setDaemon(true);
+        threads.add(writer);
+        writer.start();
+        writerStarted = true;
+    }
+
+    private void runSource(final TickSource source) {
+        try {
+            source.run(this);
+            LOG.info("Quote source {} finished", source.getName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOG.error("Quote source {} failed", source.getName(), e);
+        }
+    }
+
+    private void drainLoop() {
+        int idle = 0;
+        while (running) {
+            if (drainBatch() > 0) {
+                idle = 0;
+            } else {
+                idle = idle(idle);
+            }
+        }
+        drainBatch();
+    }
+
+    private int drainBatch() {
+        final int drained = buffer.drain(this::coalesce, batchSize);
+        if (drained == 0) {
+            return 0;
+        }
+        int updated = 0;
+        for (int i = 0; i < pendingCount; i++) {
+            final int id = pendingIds[i];
+            pending[id] = false;
+            if (store.quoteEntry(id) == null) {
+                continue;
+            }
+            try {
+                store.update(id, bids[id], asks[id], lastPrices[id], volumes[id]);
+                updated++;
+            } catch (RuntimeException e) {
+                LOG.error("Failed to publish quote of {}", store.getRegistry().symbol(id), e);
+            }
+        }
+        coalesced += drained - pendingCount - unknownInBatch;
+        published += updated;
+        unknown += unknownInBatch + pendingCount - updated;
+        batches++;
+        pendingCount = 0;
+        unknownInBatch = 0;
+        return drained;
+    }
+
+    private void coalesce(final int symbolId, final long bid, final long ask, final long lastPrice, final long volume) {
+        if (symbolId < 0) {
+            unknownInBatch++;
+            return;
+        }
+        if (symbolId >= pending.length) {
+            grow(symbolId + 1);
+        }
+        if (!pending[symbolId]) {
+            pending[symbolId] = true;
+            pendingIds[pendingCount++] = symbolId;
+            volumes[symbolId] = volume;
+        } else {
+            volumes[symbolId] += volume;
+        }
+        bids[symbolId] = bid;
+        asks[symbolId] = ask;
+        lastPrices[symbolId] = lastPrice;
+    }
+
+    private void grow(final int minimum) {
+        final int length = Math.max(minimum, Math.max(64, Math.max(store.getRegistry().size(), pending.length * 2)));
+        pending = Arrays.copyOf(pending, length);
+        bids = Arrays.copyOf(bids, length);
+        asks = Arrays.copyOf(asks, length);
+        lastPrices = Arrays.copyOf(lastPrices, length);
+        volumes = Arrays.copyOf(volumes, length);
+        pendingIds = Arrays.copyOf(pendingIds, length);
+    }
+
+    private static int idle(final int idle) {
+        if (idle < 100) {
+            Thread.onSpinWait();
+        } else if (idle < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(Math.min(MAX_IDLE_PARK_NANOS, 1_000L << Math.min(10, idle - 200)));
+        }
+        return Math.min(idle + 1, 1_000);
+    }
+}
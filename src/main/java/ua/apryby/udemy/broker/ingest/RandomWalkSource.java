@@ -0,0 +1,74 @@
+package ua.apryby.udemy.broker.ingest;
+
+import io.micronaut.context.annotation.Requires;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteTicks;
+import ua.apryby.udemy.broker.store.SymbolRegistry;
+
+import javax.inject.Singleton;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Synthetic feed moving the last price of every listed symbol by a random number of ticks, quoting a small
+ * spread around it. Ticks are offered, not put, so a writer that cannot keep up shows as dropped ticks.
+ */
+@Singleton
+@Requires(property = "broker.ingest.random-walk.enabled", value = "true")
+public class RandomWalkSource implements TickSource {
+
+    private static final int PACING_BATCH = 256;
+
+    private final InMemoryStore store;
+    private final IngestionConfiguration.RandomWalk configuration;
+
+    public RandomWalkSource(final InMemoryStore store, final IngestionConfiguration.RandomWalk configuration) {
+        this.store = store;
+        this.configuration = configuration;
+    }
+
+    @Override
+    public String getName() {
+        return "random-walk";
+    }
+
+    @Override
+    public void run(final TickSink sink) {
+        final SymbolRegistry registry = store.getRegistry();
+        final int[] ids = store.getAllSymbols().stream()
+                .mapToInt(symbol -> registry.resolve(symbol.getValue()))
+                .toArray();
+        if (ids.length == 0) {
+            return;
+        }
+        final long[] prices = new long[ids.length];
+        final QuoteTicks quote = new QuoteTicks();
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < ids.length; i++) {
+            prices[i] = store.quoteEntry(ids[i]).read(quote) ? Math.max(1, quote.getLastPrice()) : 10_000;
+        }
+
+        final int maxStep = Math.max(1, configuration.getMaxStep());
+        final long nanosPerBatch = configuration.getRate() > 0
+                ? TimeUnit.SECONDS.toNanos(PACING_BATCH) / configuration.getRate()
+                : 0;
+        long due = System.nanoTime();
+        while (sink.isRunning()) {
+            for (int n = 0; n < PACING_BATCH; n++) {
+                final int index = random.nextInt(ids.length);
+                final long price = Math.max(1, prices[index] + random.nextInt(-maxStep, maxStep + 1));
+                prices[index] = price;
+                final long spread = 1 + random.nextInt(maxStep);
+                sink.offer(ids[index], Math.max(1, price - spread), price + spread, price, random.nextLong(1, 1_000));
+            }
+            if (nanosPerBatch > 0) {
+                due += nanosPerBatch;
+                final long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ua.apryby.udemy.broker.ingest;
+
+import io.micronaut.context.annotation.Requires;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.SymbolRegistry;
+import ua.apryby.udemy.broker.store.TickSize;
+
+import javax.inject.Singleton;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Replays recorded quotes from a CSV file of {@code symbol,bid,ask,lastPrice,volume} lines as fast as the
+ * pipeline takes them. Unknown symbols are passed on and counted by the pipeline, malformed lines are
+ * rejected.
+ */
+@Singleton
+@Requires(property = "broker.ingest.replay.file")
+public class ReplayFileSource implements TickSource {
+
+    private final InMemoryStore store;
+    private final Path file;
+    private final boolean loop;
+
+    public ReplayFileSource(final InMemoryStore store, final IngestionConfiguration.Replay configuration) {
+        this.store = store;
+        this.file = Paths.get(configuration.getFile());
+        this.loop = configuration.isLoop();
+    }
+
+    @Override
+    public String getName() {
+        return "replay";
+    }
+
+    @Override
+    public void run(final TickSink sink) throws IOException {
+        do {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                int lineNumber = 0;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (!replay(line, lineNumber, sink)) {
+                        return;
+                    }
+                }
+            }
+        } while (loop && sink.isRunning());
+    }
+
+    private boolean replay(final String line, final int lineNumber, final TickSink sink) {
+        final String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return true;
+        }
+        final String[] fields = trimmed.split(",");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException(file + ":" + lineNumber + " expected symbol,bid,ask,lastPrice,volume");
+        }
+        final QuoteBook.Entry entry = store.quoteEntry(fields[0].trim());
+        if (entry == null) {
+            return sink.put(SymbolRegistry.UNKNOWN, 0, 0, 0, 0);
+        }
+        final TickSize tickSize = entry.getTickSize();
+        try {
+            return sink.put(entry.getId(),
+                    tickSize.priceTicks(new BigDecimal(fields[1].trim())),
+                    tickSize.priceTicks(new BigDecimal(fields[2].trim())),
+                    tickSize.priceTicks(new BigDecimal(fields[3].trim())),
+                    tickSize.volumeTicks(new BigDecimal(fields[4].trim())));
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new IllegalArgumentException(file + ":" + lineNumber + " " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package ua.apryby.udemy.broker.ingest;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded multi-producer, single-consumer queue of quote ticks kept in parallel primitive arrays, so enqueuing
+ * a tick allocates nothing. Producers claim a sequence with a CAS and publish their slot by storing the
+ * sequence into it; the consumer only takes a prefix of published slots and frees them by advancing
+ * {@code head}.
+ */
+final class TickRingBuffer {
+
+    private static final VarHandle PUBLISHED = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int capacity;
+    private final int mask;
+    private final int[] symbolIds;
+    private final long[] bids;
+    private final long[] asks;
+    private final long[] lastPrices;
+    private final long[] volumes;
+    private final long[] published;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    TickRingBuffer(final int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two, was " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.symbolIds = new int[capacity];
+        this.bids = new long[capacity];
+        this.asks = new long[capacity];
+        this.lastPrices = new long[capacity];
+        this.volumes = new long[capacity];
+        this.published = new long[capacity];
+        Arrays.fill(published, -1);
+    }
+
+    /**
+     * @return false without blocking if the buffer is full
+     */
+    boolean offer(final int symbolId, final long bid, final long ask, final long lastPrice, final long volume) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= capacity) {
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        final int slot = (int) sequence & mask;
+        symbolIds[slot] = symbolId;
+        bids[slot] = bid;
+        asks[slot] = ask;
+        lastPrices[slot] = lastPrice;
+        volumes[slot] = volume;
+        PUBLISHED.setRelease(published, slot, sequence);
+        return true;
+    }
+
+    /**
+     * Hands up to {@code limit} published ticks to the handler in order. Must only be called by the consumer.
+     *
+     * @return the number of ticks handled
+     */
+    int drain(final TickHandler handler, final int limit) {
+        final long first = head;
+        int drained = 0;
+        while (drained < limit) {
+            final long sequence = first + drained;
+            final int slot = (int) sequence & mask;
+            if ((long) PUBLISHED.getAcquire(published, slot) != sequence) {
+                break;
+            }
+            handler.onTick(symbolIds[slot], bids[slot], asks[slot], lastPrices[slot], volumes[slot]);
+            drained++;
+        }
+        if (drained > 0) {
+            head = first + drained;
+        }
+        return drained;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    @FunctionalInterface
+    interface TickHandler {
+        void onTick(int symbolId, long bid, long ask, long lastPrice, long volume);
+    }
+}
@@ -0,0 +1,25 @@
+package ua.apryby.udemy.broker.ingest;
+
+/**
+ * Where a {@link TickSource} delivers ticks. Prices and volumes are in the ticks of the symbol's
+ * {@link ua.apryby.udemy.broker.store.TickSize}, symbols are {@link ua.apryby.udemy.broker.store.SymbolRegistry}
+ * ids.
+ */
+public interface TickSink {
+
+    /**
+     * Enqueues the tick unless the pipeline is full, in which case it is dropped and counted.
+     *
+     * @return whether the tick was accepted
+     */
+    boolean offer(int symbolId, long bid, long ask, long lastPrice, long volume);
+
+    /**
+     * Enqueues the tick, waiting for the writer to make room if the pipeline is full.
+     *
+     * @return false only if the pipeline stopped while waiting
+     */
+    boolean put(int symbolId, long bid, long ask, long lastPrice, long volume);
+
+    boolean isRunning();
+}
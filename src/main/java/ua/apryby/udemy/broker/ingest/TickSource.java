@@ -0,0 +1,12 @@
+package ua.apryby.udemy.broker.ingest;
+
+/**
+ * A feed of quote ticks. Every source bean is run on its own thread by the {@link IngestionPipeline} until it
+ * returns or the sink stops running.
+ */
+public interface TickSource {
+
+    String getName();
+
+    void run(TickSink sink) throws Exception;
+}
@@ -0,0 +1,283 @@
+package ua.apryby.udemy.broker.journal;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.TaskScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.apryby.udemy.broker.model.Symbol;
+import ua.apryby.udemy.broker.model.WatchList;
+import ua.apryby.udemy.broker.store.InMemoryAccountStore;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.QuoteListener;
+import ua.apryby.udemy.broker.store.TickSize;
+import ua.apryby.udemy.broker.store.Versioned;
+import ua.apryby.udemy.broker.store.WatchListListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Named;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Makes quotes and watchlists survive restarts. On startup the newest snapshot is loaded and the journal tail
+ * after it replayed; afterwards every quote update and watchlist change is appended to the journal, which is
+ * flushed to disk in groups every {@code broker.journal.flush-interval}. A new snapshot is taken whenever a
+ * segment fills up, every {@code broker.journal.snapshot-interval} and on shutdown, after which older segments
+ * and snapshots are deleted. With {@code broker.journal.record-changes} off the stores are only checkpointed by
+ * those snapshots.
+ * <p>
+ * Records are written with the state read from the store at the time of writing rather than the state a
+ * listener was called with, so the last record of a symbol or account always holds its latest state even when
+ * concurrent changes are journaled in a different order than they were made.
+ */
+@Context
+@Requires(property = "broker.journal.enabled", value = "true")
+public class Journal implements QuoteListener, WatchListListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Journal.class);
+
+    private final InMemoryStore store;
+    private final InMemoryAccountStore accounts;
+    private final JournalConfiguration configuration;
+    private final TaskScheduler scheduler;
+    private final MeterRegistry meterRegistry;
+    private final Path directory;
+    private final Object snapshotLock = new Object();
+    private JournalWriter writer;
+    private ScheduledFuture<?> flushTask;
+    private ScheduledFuture<?> snapshotTask;
+    private Timer snapshotTimer;
+    private final LongAdder failures = new LongAdder();
+    private volatile long recoveryMillis;
+    private volatile long snapshotRestoreMillis;
+    private volatile long snapshotSize;
+
+    public Journal(final InMemoryStore store,
+                   final InMemoryAccountStore accounts,
+                   final JournalConfiguration configuration,
+                   @Named(TaskExecutors.SCHEDULED) final TaskScheduler scheduler,
+                   final MeterRegistry meterRegistry) {
+        this.store = store;
+        this.accounts = accounts;
+        this.configuration = configuration;
+        this.scheduler = scheduler;
+        this.meterRegistry = meterRegistry;
+        this.directory = Paths.get(configuration.getDirectory());
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        final long end = recover();
+        writer = new JournalWriter(directory, end, configuration.getSegmentSize(),
+                position -> scheduler.schedule(Duration.ZERO, this::snapshot));
+        if (configuration.isRecordChanges()) {
+            store.addListener(this);
+            accounts.addListener(this);
+            flushTask = scheduler.scheduleAtFixedRate(configuration.getFlushInterval(),
+                    configuration.getFlushInterval(), this::flush);
+        }
+        final Duration snapshotInterval = configuration.getSnapshotInterval();
+        if (snapshotInterval != null && !snapshotInterval.isZero() && !snapshotInterval.isNegative()) {
+            snapshotTask = scheduler.scheduleAtFixedRate(snapshotInterval, snapshotInterval, this::snapshot);
+        }
+
+        FunctionCounter.builder("broker.journal.records", writer, JournalWriter::records)
+                .description("Records appended to the journal").register(meterRegistry);
+        FunctionCounter.builder("broker.journal.flushes", writer, JournalWriter::flushes)
+                .description("Group commits forcing appended records to disk").register(meterRegistry);
+        FunctionCounter.builder("broker.journal.failures", this, Journal::getFailures)
+                .description("Changes that could not be journaled").register(meterRegistry);
+        Gauge.builder("broker.journal.position", this, Journal::getPosition)
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("broker.journal.recovery.time", this, Journal::getRecoveryMillis)
+                .baseUnit("milliseconds").register(meterRegistry);
+        snapshotTimer = Timer.builder("broker.snapshot.duration")
+                .description("Time taken to write a snapshot").register(meterRegistry);
+        Gauge.builder("broker.snapshot.size", this, Journal::getSnapshotSize)
+                .description("Size of the latest snapshot").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("broker.snapshot.restore.time", this, Journal::getSnapshotRestoreMillis)
+                .description("Time taken to load the snapshot on startup").baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        store.removeListener(this);
+        accounts.removeListener(this);
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        if (snapshotTask != null) {
+            snapshotTask.cancel(false);
+        }
+        writer.close();
+        snapshot();
+    }
+
+    @Override
+    public void onQuote(final QuoteBook.Entry entry) {
+        try {
+            writer.appendQuote(entry);
+        } catch (RuntimeException e) {
+            failed(e);
+        }
+    }
+
+    @Override
+    public void onWatchList(final UUID accountId, final Versioned<WatchList> watchList) {
+        // racing changes of one account may be appended out of order, replay keeps the highest version
+        try {
+            if (watchList.getValue() == null) {
+                writer.appendWatchListDeleted(accountId, watchList.getVersion());
+            } else {
+                writer.appendWatchList(accountId, watchList.getVersion(), watchList.getValue());
+            }
+        } catch (RuntimeException e) {
+            failed(e);
+        }
+    }
+
+    /**
+     * Forces appended records to disk.
+     */
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (RuntimeException e) {
+            failed(e);
+        }
+    }
+
+    /**
+     * Writes a snapshot and deletes the segments and snapshots it makes obsolete.
+     */
+    public void snapshot() {
+        synchronized (snapshotLock) {
+            try {
+                writer.flush();
+                final long position = writer.position();
+                final long started = System.nanoTime();
+                final Path file = SnapshotFile.write(directory, position, store, accounts);
+                final long elapsed = System.nanoTime() - started;
+                snapshotSize = Files.size(file);
+                if (snapshotTimer != null) {
+                    snapshotTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                }
+                LOG.info("Wrote snapshot {} of {} bytes in {} ms", file.getFileName(), snapshotSize,
+                        TimeUnit.NANOSECONDS.toMillis(elapsed));
+                deleteBefore(position);
+            } catch (IOException | RuntimeException e) {
+                LOG.error("Failed to write a snapshot to {}", directory, e);
+            }
+        }
+    }
+
+    public long getPosition() {
+        return writer.position();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getRecoveryMillis() {
+        return recoveryMillis;
+    }
+
+    public long getSnapshotRestoreMillis() {
+        return snapshotRestoreMillis;
+    }
+
+    public long getSnapshotSize() {
+        return snapshotSize;
+    }
+
+    private long recover() throws IOException {
+        final long started = System.nanoTime();
+        final long snapshotPosition = SnapshotFile.restoreLatest(directory, store, accounts);
+        snapshotRestoreMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        final JournalReader reader = new JournalReader();
+        final long end = reader.replay(directory, snapshotPosition, new Replay());
+        // a segment without a single intact record starts where the new one would; it holds nothing to keep
+        Files.deleteIfExists(directory.resolve(JournalRecords.segmentName(end)));
+        recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        LOG.info("Recovered {} symbols and {} watchlists from {} in {} ms, replaying {} journal records",
+                store.getAllSymbols().size(), accounts.size(), directory, recoveryMillis, reader.records());
+        return end;
+    }
+
+    private void deleteBefore(final long position) throws IOException {
+        final List<Path> segments = JournalReader.segments(directory);
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (JournalRecords.basePosition(segments.get(i + 1)) <= position) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        }
+        for (Path snapshot : SnapshotFile.snapshots(directory)) {
+            if (SnapshotFile.position(snapshot) < position) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+    }
+
+    private void failed(final RuntimeException e) {
+        failures.increment();
+        final long count = failures.sum();
+        // first failure and then ever less often, a full disk would otherwise log every single update
+        if (Long.bitCount(count) == 1) {
+            LOG.error("Journaling failed {} time(s)", count, e);
+        }
+    }
+
+    private final class Replay implements JournalReader.Handler {
+
+        @Override
+        public void onQuote(final Symbol symbol, final TickSize tickSize,
+                            final long bid, final long ask, final long lastPrice, final long volume) {
+            QuoteBook.Entry entry = store.quoteEntry(symbol.getValue());
+            if (entry == null) {
+                entry = store.listSymbol(symbol, tickSize);
+            }
+            store.update(entry.getId(), bid, ask, lastPrice, volume);
+        }
+
+        // versions of deletions replayed so far, a watchlist journaled after its deletion may still be older
+        private final Map<UUID, Long> deletions = new HashMap<>();
+
+        @Override
+        public void onWatchList(final UUID accountId, final long version, final List<Symbol> symbols) {
+            final Long deleted = deletions.get(accountId);
+            if (deleted == null || deleted < version) {
+                accounts.restoreWatchList(accountId, version, symbols);
+            }
+        }
+
+        @Override
+        public void onWatchListDeleted(final UUID accountId, final long version) {
+            deletions.merge(accountId, version, Math::max);
+            accounts.restoreDeletion(accountId, version);
+        }
+    }
+}
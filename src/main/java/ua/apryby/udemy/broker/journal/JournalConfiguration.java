@@ -0,0 +1,36 @@
+package ua.apryby.udemy.broker.journal;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("broker.journal")
+public class JournalConfiguration {
+
+    private boolean enabled;
+
+    private String directory = "data/journal";
+
+    /**
+     * Size of each memory-mapped segment file; a snapshot is taken whenever one fills up.
+     */
+    private int segmentSize = 64 * 1024 * 1024;
+
+    /**
+     * Group commit interval: records appended within it are forced to disk together.
+     */
+    private Duration flushInterval = Duration.ofMillis(10);
+
+    /**
+     * Interval of the periodic snapshots taken in addition to those on full segments; zero disables them.
+     */
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+
+    /**
+     * Whether every change is journaled. Without it only the snapshots are written, and changes made since the
+     * last one are lost on a crash.
+     */
+    private boolean recordChanges = true;
+}
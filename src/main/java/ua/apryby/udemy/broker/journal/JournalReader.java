@@ -0,0 +1,194 @@
+package ua.apryby.udemy.broker.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.apryby.udemy.broker.model.Symbol;
+import ua.apryby.udemy.broker.store.TickSize;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Replays the records of all segments from a journal position on. Each segment is read up to its first empty
+ * or damaged record, which is where a crash may have left a partly written one.
+ */
+final class JournalReader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JournalReader.class);
+
+    interface Handler {
+
+        void onQuote(Symbol symbol, TickSize tickSize, long bid, long ask, long lastPrice, long volume);
+
+        void onWatchList(UUID accountId, long version, List<Symbol> symbols);
+
+        void onWatchListDeleted(UUID accountId, long version);
+    }
+
+    private final CRC32C crc = new CRC32C();
+    private Symbol[] listings = new Symbol[64];
+    private TickSize[] tickSizes = new TickSize[64];
+    private Symbol[] names = new Symbol[64];
+    private long records;
+
+    /**
+     * @return the position after the last intact record, where writing should continue
+     */
+    long replay(final Path directory, final long from, final Handler handler) throws IOException {
+        final List<Path> segments = segments(directory);
+        long end = from;
+        for (int i = 0; i < segments.size(); i++) {
+            final long base = JournalRecords.basePosition(segments.get(i));
+            final long next = i + 1 < segments.size() ? JournalRecords.basePosition(segments.get(i + 1)) : Long.MAX_VALUE;
+            if (next <= from) {
+                continue;
+            }
+            end = Math.max(end, replaySegment(segments.get(i), base, from, handler));
+        }
+        return end;
+    }
+
+    long records() {
+        return records;
+    }
+
+    /**
+     * @return the segment files of the directory ordered by position
+     */
+    static List<Path> segments(final Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> JournalRecords.basePosition(file) >= 0)
+                    .sorted((a, b) -> Long.compare(JournalRecords.basePosition(a), JournalRecords.basePosition(b)))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private long replaySegment(final Path file, final long base, final long from, final Handler handler)
+            throws IOException {
+        final MappedByteBuffer segment;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        Arrays.fill(listings, null);
+        Arrays.fill(names, null);
+        while (segment.remaining() >= JournalRecords.HEADER_SIZE) {
+            final int offset = segment.position();
+            final int length = segment.getInt();
+            final int checksum = segment.getInt();
+            if (length <= 0 || length > segment.remaining()) {
+                segment.position(offset);
+                break;
+            }
+            final ByteBuffer record = segment.slice();
+            record.limit(length);
+            crc.reset();
+            crc.update(record.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                LOG.warn("Journal segment {} is damaged at offset {}, ignoring the rest of it", file, offset);
+                segment.position(offset);
+                break;
+            }
+            try {
+                apply(record, base + offset >= from, handler);
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                LOG.warn("Journal segment {} has a malformed record at offset {}, ignoring the rest of it", file,
+                        offset, e);
+                segment.position(offset);
+                break;
+            }
+            segment.position(offset + JournalRecords.HEADER_SIZE + length);
+        }
+        return base + segment.position();
+    }
+
+    private void apply(final ByteBuffer record, final boolean replay, final Handler handler) {
+        final byte type = record.get();
+        switch (type) {
+            case JournalRecords.LISTING: {
+                final int id = Varints.readUnsignedInt(record);
+                final TickSize tickSize = new TickSize(record.get(), record.get());
+                final Symbol symbol = new Symbol(Varints.readString(record));
+                ensureListings(id);
+                listings[id] = symbol;
+                tickSizes[id] = tickSize;
+                break;
+            }
+            case JournalRecords.QUOTE: {
+                final int id = Varints.readUnsignedInt(record);
+                if (id >= listings.length || listings[id] == null) {
+                    throw new IllegalArgumentException("quote of undefined symbol " + id);
+                }
+                final long bid = Varints.readSigned(record);
+                final long ask = Varints.readSigned(record);
+                final long lastPrice = Varints.readSigned(record);
+                final long volume = Varints.readSigned(record);
+                if (replay) {
+                    records++;
+                    handler.onQuote(listings[id], tickSizes[id], bid, ask, lastPrice, volume);
+                }
+                break;
+            }
+            case JournalRecords.NAME: {
+                final int id = Varints.readUnsignedInt(record);
+                if (id >= names.length) {
+                    names = Arrays.copyOf(names, Math.max(id + 1, names.length * 2));
+                }
+                names[id] = new Symbol(Varints.readString(record));
+                break;
+            }
+            case JournalRecords.WATCHLIST: {
+                final UUID accountId = new UUID(record.getLong(), record.getLong());
+                final long version = Varints.readUnsigned(record);
+                final int count = Varints.readUnsignedInt(record);
+                final List<Symbol> symbols = new ArrayList<>(Math.min(count, record.remaining()));
+                for (int i = 0; i < count; i++) {
+                    final int id = Varints.readUnsignedInt(record);
+                    if (id >= names.length || names[id] == null) {
+                        throw new IllegalArgumentException("watchlist of undefined symbol " + id);
+                    }
+                    symbols.add(names[id]);
+                }
+                if (replay) {
+                    records++;
+                    handler.onWatchList(accountId, version, symbols);
+                }
+                break;
+            }
+            case JournalRecords.WATCHLIST_DELETED: {
+                final UUID accountId = new UUID(record.getLong(), record.getLong());
+                final long version = Varints.readUnsigned(record);
+                if (replay) {
+                    records++;
+                    handler.onWatchListDeleted(accountId, version);
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("unknown journal record type " + type);
+        }
+    }
+
+    private void ensureListings(final int id) {
+        if (id >= listings.length) {
+            final int length = Math.max(id + 1, listings.length * 2);
+            listings = Arrays.copyOf(listings, length);
+            tickSizes = Arrays.copyOf(tickSizes, length);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ua.apryby.udemy.broker.journal;
+
+import java.nio.file.Path;
+
+/**
+ * Layout shared by {@link JournalWriter} and {@link JournalReader}. A segment file is named after the journal
+ * position of its first byte and holds records of
+ * <pre>
+ * int length | int crc32c | byte type | payload
+ * </pre>
+ * where {@code length} counts type and payload and a zero length marks the end of the written part. Ids in
+ * {@code QUOTE} and {@code WATCHLIST} records refer to the latest {@code LISTING} / {@code NAME} record of the
+ * same segment, so every segment can be read on its own.
+ */
+final class JournalRecords {
+
+    static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    /** varint symbol id, byte price scale, byte volume scale, string symbol. */
+    static final byte LISTING = 1;
+    /** varint symbol id, zigzag varint bid, ask, last price, volume ticks. */
+    static final byte QUOTE = 2;
+    /** varint name id, string symbol. */
+    static final byte NAME = 3;
+    /** long account id msb, long lsb, varint version, varint count, varint name id per symbol. */
+    static final byte WATCHLIST = 4;
+    /** long account id msb, long lsb, varint version. */
+    static final byte WATCHLIST_DELETED = 5;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private JournalRecords() {
+    }
+
+    static String segmentName(final long basePosition) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, basePosition, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * @return the base position of the segment file, or -1 if it is not a segment
+     */
+    static long basePosition(final Path file) {
+        final String name = file.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
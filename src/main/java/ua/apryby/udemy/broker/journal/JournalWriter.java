@@ -0,0 +1,264 @@
+package ua.apryby.udemy.broker.journal;
+
+import ua.apryby.udemy.broker.model.Symbol;
+import ua.apryby.udemy.broker.model.WatchList;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.QuoteTicks;
+import ua.apryby.udemy.broker.store.TickSize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Appends records to memory-mapped segment files. Appending copies the encoded record into the mapping under a
+ * lock and returns; {@link #flush()} forces everything appended since the last flush to disk in one go, so
+ * records are made durable in groups instead of one sync each.
+ */
+final class JournalWriter implements Closeable {
+
+    private static final int MAX_VARINT_LENGTH = 10;
+    // header, type, two uuid halves and five varints: more than any record needs besides its strings
+    private static final int MAX_RECORD_OVERHEAD = JournalRecords.HEADER_SIZE + 1 + 2 * Long.BYTES
+            + 5 * MAX_VARINT_LENGTH;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final LongConsumer onRoll;
+    private final CRC32C crc = new CRC32C();
+    private final QuoteTicks ticks = new QuoteTicks();
+    private final Object flushLock = new Object();
+
+    // symbols defined in the current segment: registry ids of listings, dictionary ids of watchlist symbols
+    private final BitSet listed = new BitSet();
+    private final Map<String, Integer> names = new HashMap<>();
+
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+    private MappedByteBuffer segment;
+    private volatile long position;
+    private volatile long records;
+    private volatile long flushes;
+    private long flushed;
+    private boolean closed;
+
+    /**
+     * Starts a new segment at the given position.
+     *
+     * @param onRoll called with the base position of every new segment after the first
+     */
+    JournalWriter(final Path directory, final long position, final int segmentSize, final LongConsumer onRoll) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.onRoll = onRoll;
+        this.position = position;
+        this.flushed = position;
+        openSegment(position);
+    }
+
+    synchronized void appendQuote(final QuoteBook.Entry entry) {
+        if (closed || !entry.read(ticks)) {
+            return;
+        }
+        ensureScratch(2 * MAX_RECORD_OVERHEAD + maxEncodedLength(entry.getSymbol().getValue()));
+        do {
+            scratch.clear();
+            final int id = entry.getId();
+            if (!listed.get(id)) {
+                final int start = startRecord(JournalRecords.LISTING);
+                Varints.writeUnsigned(scratch, id);
+                final TickSize tickSize = entry.getTickSize();
+                scratch.put((byte) tickSize.getPriceScale());
+                scratch.put((byte) tickSize.getVolumeScale());
+                Varints.writeString(scratch, entry.getSymbol().getValue());
+                endRecord(start);
+                listed.set(id);
+            }
+            final int start = startRecord(JournalRecords.QUOTE);
+            Varints.writeUnsigned(scratch, id);
+            Varints.writeSigned(scratch, ticks.getBid());
+            Varints.writeSigned(scratch, ticks.getAsk());
+            Varints.writeSigned(scratch, ticks.getLastPrice());
+            Varints.writeSigned(scratch, ticks.getVolume());
+            endRecord(start);
+        } while (!commit(2));
+    }
+
+    synchronized void appendWatchList(final UUID accountId, final long version, final WatchList watchList) {
+        if (closed) {
+            return;
+        }
+        final List<Symbol> symbols = watchList.getSymbols();
+        int capacity = MAX_RECORD_OVERHEAD;
+        for (Symbol symbol : symbols) {
+            capacity += MAX_RECORD_OVERHEAD + maxEncodedLength(symbol.getValue());
+        }
+        ensureScratch(capacity);
+        int recordCount;
+        do {
+            scratch.clear();
+            recordCount = 1;
+            final int[] ids = new int[symbols.size()];
+            for (int i = 0; i < ids.length; i++) {
+                final String name = symbols.get(i).getValue();
+                final Integer known = names.get(name);
+                if (known != null) {
+                    ids[i] = known;
+                    continue;
+                }
+                ids[i] = names.size();
+                names.put(name, ids[i]);
+                final int start = startRecord(JournalRecords.NAME);
+                Varints.writeUnsigned(scratch, ids[i]);
+                Varints.writeString(scratch, name);
+                endRecord(start);
+                recordCount++;
+            }
+            final int start = startRecord(JournalRecords.WATCHLIST);
+            writeAccountId(accountId);
+            Varints.writeUnsigned(scratch, version);
+            Varints.writeUnsigned(scratch, ids.length);
+            for (int id : ids) {
+                Varints.writeUnsigned(scratch, id);
+            }
+            endRecord(start);
+        } while (!commit(recordCount));
+    }
+
+    synchronized void appendWatchListDeleted(final UUID accountId, final long version) {
+        if (closed) {
+            return;
+        }
+        do {
+            scratch.clear();
+            final int start = startRecord(JournalRecords.WATCHLIST_DELETED);
+            writeAccountId(accountId);
+            Varints.writeUnsigned(scratch, version);
+            endRecord(start);
+        } while (!commit(1));
+    }
+
+    /**
+     * @return the position the next record will be written at
+     */
+    long position() {
+        return position;
+    }
+
+    long records() {
+        return records;
+    }
+
+    long flushes() {
+        return flushes;
+    }
+
+    /**
+     * Forces all records appended so far to disk, unless that already happened.
+     */
+    void flush() {
+        synchronized (flushLock) {
+            final MappedByteBuffer current;
+            final long target;
+            synchronized (this) {
+                current = segment;
+                target = position;
+            }
+            if (target == flushed) {
+                return;
+            }
+            current.force();
+            flushed = target;
+            flushes++;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+    }
+
+    private void ensureScratch(final int capacity) {
+        if (scratch.capacity() < capacity) {
+            scratch = ByteBuffer.allocate(Math.max(capacity, scratch.capacity() * 2));
+        }
+    }
+
+    private static int maxEncodedLength(final String value) {
+        return MAX_VARINT_LENGTH + value.length() * 3;
+    }
+
+    private int startRecord(final byte type) {
+        final int start = scratch.position();
+        scratch.putInt(0);
+        scratch.putInt(0);
+        scratch.put(type);
+        return start;
+    }
+
+    private void endRecord(final int start) {
+        final int bodyStart = start + JournalRecords.HEADER_SIZE;
+        final int length = scratch.position() - bodyStart;
+        crc.reset();
+        crc.update(scratch.array(), scratch.arrayOffset() + bodyStart, length);
+        scratch.putInt(start, length);
+        scratch.putInt(start + Integer.BYTES, (int) crc.getValue());
+    }
+
+    private void writeAccountId(final UUID accountId) {
+        scratch.putLong(accountId.getMostSignificantBits());
+        scratch.putLong(accountId.getLeastSignificantBits());
+    }
+
+    /**
+     * Copies the encoded records into the segment. If they do not fit, starts a new segment and asks the caller
+     * to encode again, since the symbol definitions of the old segment do not carry over.
+     */
+    private boolean commit(final int recordCount) {
+        scratch.flip();
+        final int length = scratch.remaining();
+        if (length > segment.remaining()) {
+            if (segment.position() == 0) {
+                throw new IllegalArgumentException("journal record of " + length + " bytes exceeds segment size");
+            }
+            roll();
+            return false;
+        }
+        segment.put(scratch);
+        position += length;
+        records += recordCount;
+        return true;
+    }
+
+    private void roll() {
+        segment.force();
+        openSegment(position);
+        onRoll.accept(position);
+    }
+
+    private void openSegment(final long base) {
+        final Path file = directory.resolve(JournalRecords.segmentName(base));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal segment " + file, e);
+        }
+        listed.clear();
+        names.clear();
+    }
+}
@@ -0,0 +1,351 @@
+package ua.apryby.udemy.broker.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.apryby.udemy.broker.model.Symbol;
+import ua.apryby.udemy.broker.model.WatchList;
+import ua.apryby.udemy.broker.store.InMemoryAccountStore;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.QuoteTicks;
+import ua.apryby.udemy.broker.store.TickSize;
+import ua.apryby.udemy.broker.store.Versioned;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Compact copy of the quotes and watchlists, named after the journal position from which the journal has to be
+ * replayed on top of it.
+ * <pre>
+ * int magic | int format | long journal position | long dictionary offset
+ * section: quotes      varint count, per quote: string symbol, byte price scale, byte volume scale,
+ *                      zigzag varint bid, ask, last price, volume
+ * section: accounts    varint count, per account: long id msb, long lsb, varint version,
+ *                      varint count, varint symbol id per symbol     (repeated, one per chunk)
+ * int 0
+ * section: dictionary  varint count, string symbol per symbol id
+ * </pre>
+ * Every section is {@code int length | int crc32c | body}. Watchlists refer to symbols by id and are split into
+ * chunks that are checked and decoded in parallel on restore.
+ * <p>
+ * Writing walks the store without locking it. Watchlists are immutable, so each account is copied as it was at
+ * some moment during the walk; changes the walk misses are in the journal after the snapshot position and are
+ * replayed on top.
+ */
+final class SnapshotFile {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotFile.class);
+
+    private static final int MAGIC = 0x4D4E5342;
+    private static final int FORMAT = 2;
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES * 2;
+    private static final int SECTION_HEADER_SIZE = Integer.BYTES * 2;
+    private static final int ACCOUNTS_PER_CHUNK = 8192;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    private SnapshotFile() {
+    }
+
+    static Path write(final Path directory, final long position,
+                      final InMemoryStore store, final InMemoryAccountStore accounts) throws IOException {
+        final Path file = directory.resolve(String.format("%s%020d%s", PREFIX, position, SUFFIX));
+        final Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final SectionWriter out = new SectionWriter(channel);
+            channel.position(HEADER_SIZE);
+            writeQuotes(store, out);
+
+            final Map<String, Integer> symbolIds = new HashMap<>();
+            final List<String> dictionary = new ArrayList<>();
+            final int[] accountsInChunk = {0};
+            out.start();
+            try {
+                accounts.forEachWatchList((accountId, watchList) -> {
+                    encodeAccount(accountId, watchList, symbolIds, dictionary, out);
+                    if (++accountsInChunk[0] == ACCOUNTS_PER_CHUNK) {
+                        out.finish(accountsInChunk[0]);
+                        accountsInChunk[0] = 0;
+                        out.start();
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (accountsInChunk[0] > 0) {
+                out.finish(accountsInChunk[0]);
+            }
+            out.writeFully(ByteBuffer.allocate(Integer.BYTES).putInt(0).flip());
+
+            final long dictionaryOffset = channel.position();
+            out.start();
+            for (String symbol : dictionary) {
+                out.ensure(Varints.MAX_LENGTH + symbol.length() * 3);
+                Varints.writeString(out.body, symbol);
+            }
+            out.finish(dictionary.size());
+
+            channel.write(ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC).putInt(FORMAT).putLong(position).putLong(dictionaryOffset)
+                    .flip(), 0);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    /**
+     * Loads the newest intact snapshot into the stores. A snapshot is checked completely before anything of it
+     * is loaded, so a damaged one leaves the stores untouched for the next older one.
+     *
+     * @return its journal position, or 0 if there is none
+     */
+    static long restoreLatest(final Path directory, final InMemoryStore store, final InMemoryAccountStore accounts)
+            throws IOException {
+        final List<Path> snapshots = snapshots(directory);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            try {
+                return restore(snapshots.get(i), store, accounts);
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("Skipping unreadable snapshot {}", snapshots.get(i), e);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return snapshot files ordered by position
+     */
+    static List<Path> snapshots(final Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> position(file) >= 0)
+                    .sorted((a, b) -> Long.compare(position(a), position(b)))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    static long position(final Path file) {
+        final String name = file.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void writeQuotes(final InMemoryStore store, final SectionWriter out) throws IOException {
+        final QuoteTicks ticks = new QuoteTicks();
+        int count = 0;
+        out.start();
+        for (Symbol symbol : store.getAllSymbols()) {
+            final QuoteBook.Entry entry = store.quoteEntry(symbol.getValue());
+            if (entry == null || !entry.read(ticks)) {
+                continue;
+            }
+            out.ensure(Varints.MAX_LENGTH * 5 + 2 + symbol.getValue().length() * 3);
+            Varints.writeString(out.body, symbol.getValue());
+            out.body.put((byte) ticks.getTickSize().getPriceScale());
+            out.body.put((byte) ticks.getTickSize().getVolumeScale());
+            Varints.writeSigned(out.body, ticks.getBid());
+            Varints.writeSigned(out.body, ticks.getAsk());
+            Varints.writeSigned(out.body, ticks.getLastPrice());
+            Varints.writeSigned(out.body, ticks.getVolume());
+            count++;
+        }
+        out.finish(count);
+    }
+
+    private static void encodeAccount(final UUID accountId, final Versioned<WatchList> watchList,
+                                      final Map<String, Integer> symbolIds, final List<String> dictionary,
+                                      final SectionWriter out) {
+        final List<Symbol> symbols = watchList.getValue().getSymbols();
+        out.ensure(2 * Long.BYTES + Varints.MAX_LENGTH * (2 + symbols.size()));
+        out.body.putLong(accountId.getMostSignificantBits());
+        out.body.putLong(accountId.getLeastSignificantBits());
+        Varints.writeUnsigned(out.body, watchList.getVersion());
+        Varints.writeUnsigned(out.body, symbols.size());
+        for (Symbol symbol : symbols) {
+            Integer id = symbolIds.get(symbol.getValue());
+            if (id == null) {
+                id = dictionary.size();
+                symbolIds.put(symbol.getValue(), id);
+                dictionary.add(symbol.getValue());
+            }
+            Varints.writeUnsigned(out.body, id);
+        }
+    }
+
+    private static long restore(final Path file, final InMemoryStore store, final InMemoryAccountStore accounts)
+            throws IOException {
+        final MappedByteBuffer snapshot;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (snapshot.remaining() < HEADER_SIZE || snapshot.getInt() != MAGIC || snapshot.getInt() != FORMAT) {
+            throw new IllegalArgumentException("not a snapshot of a supported format");
+        }
+        final long position = snapshot.getLong();
+        final long dictionaryOffset = snapshot.getLong();
+        final ByteBuffer quotes = section(snapshot);
+        final List<ByteBuffer> chunks = new ArrayList<>();
+        while (snapshot.getInt(snapshot.position()) != 0) {
+            chunks.add(section(snapshot));
+        }
+        snapshot.position(Math.toIntExact(dictionaryOffset));
+        final Symbol[] dictionary = readDictionary(section(snapshot));
+        final boolean intact = chunks.parallelStream().allMatch(SnapshotFile::checksumMatches);
+        if (!intact || !checksumMatches(quotes)) {
+            throw new IllegalArgumentException("checksum mismatch");
+        }
+
+        restoreQuotes(body(quotes), store);
+        chunks.parallelStream().forEach(chunk -> restoreAccounts(body(chunk), dictionary, accounts));
+        return position;
+    }
+
+    private static void restoreQuotes(final ByteBuffer quotes, final InMemoryStore store) {
+        final int count = Varints.readUnsignedInt(quotes);
+        final Map<Integer, List<Symbol>> listings = new TreeMap<>();
+        final String[] symbols = new String[count];
+        final long[] ticks = new long[count * 4];
+        for (int i = 0; i < count; i++) {
+            symbols[i] = Varints.readString(quotes);
+            final int scales = quotes.get() * (TickSize.MAX_SCALE + 1) + quotes.get();
+            listings.computeIfAbsent(scales, key -> new ArrayList<>()).add(new Symbol(symbols[i]));
+            for (int field = 0; field < 4; field++) {
+                ticks[i * 4 + field] = Varints.readSigned(quotes);
+            }
+        }
+        listings.forEach((scales, listed) -> store.listSymbols(listed,
+                new TickSize(scales / (TickSize.MAX_SCALE + 1), scales % (TickSize.MAX_SCALE + 1))));
+        for (int i = 0; i < count; i++) {
+            store.update(symbols[i], ticks[i * 4], ticks[i * 4 + 1], ticks[i * 4 + 2], ticks[i * 4 + 3]);
+        }
+    }
+
+    private static void restoreAccounts(final ByteBuffer chunk, final Symbol[] dictionary,
+                                        final InMemoryAccountStore accounts) {
+        final int count = Varints.readUnsignedInt(chunk);
+        for (int i = 0; i < count; i++) {
+            final UUID accountId = new UUID(chunk.getLong(), chunk.getLong());
+            final long version = Varints.readUnsigned(chunk);
+            final Symbol[] symbols = new Symbol[Varints.readUnsignedInt(chunk)];
+            for (int s = 0; s < symbols.length; s++) {
+                symbols[s] = dictionary[Varints.readUnsignedInt(chunk)];
+            }
+            accounts.restoreWatchList(accountId, version, List.of(symbols));
+        }
+    }
+
+    private static Symbol[] readDictionary(final ByteBuffer section) {
+        if (!checksumMatches(section)) {
+            throw new IllegalArgumentException("checksum mismatch");
+        }
+        final ByteBuffer body = body(section);
+        final Symbol[] dictionary = new Symbol[Varints.readUnsignedInt(body)];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = new Symbol(Varints.readString(body));
+        }
+        return dictionary;
+    }
+
+    /**
+     * @return the section at the position of the buffer, header included, advancing past it
+     */
+    private static ByteBuffer section(final ByteBuffer snapshot) {
+        final int length = snapshot.getInt(snapshot.position());
+        if (length < 0 || length > snapshot.remaining() - SECTION_HEADER_SIZE) {
+            throw new IllegalArgumentException("truncated snapshot");
+        }
+        final ByteBuffer section = snapshot.slice();
+        section.limit(SECTION_HEADER_SIZE + length);
+        snapshot.position(snapshot.position() + SECTION_HEADER_SIZE + length);
+        return section;
+    }
+
+    private static ByteBuffer body(final ByteBuffer section) {
+        return section.duplicate().position(SECTION_HEADER_SIZE).slice();
+    }
+
+    private static boolean checksumMatches(final ByteBuffer section) {
+        final CRC32C crc = new CRC32C();
+        crc.update(body(section));
+        return (int) crc.getValue() == section.getInt(Integer.BYTES);
+    }
+
+    /**
+     * Encodes one section at a time into a growing buffer and appends it to the channel with its header.
+     */
+    private static final class SectionWriter {
+        private final FileChannel channel;
+        private final CRC32C crc = new CRC32C();
+        private ByteBuffer body = ByteBuffer.allocate(64 * 1024);
+
+        private SectionWriter(final FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void start() {
+            body.clear();
+            // leave room for the varint count written in front of the body on finish
+            body.position(Varints.MAX_LENGTH);
+        }
+
+        private void ensure(final int bytes) {
+            if (body.remaining() < bytes) {
+                final ByteBuffer grown = ByteBuffer.allocate(Math.max(body.capacity() * 2, body.position() + bytes));
+                body.flip();
+                grown.put(body);
+                body = grown;
+            }
+        }
+
+        private void finish(final int count) {
+            final int end = body.position();
+            final ByteBuffer countBytes = ByteBuffer.allocate(Varints.MAX_LENGTH);
+            Varints.writeUnsigned(countBytes, count);
+            final int start = Varints.MAX_LENGTH - countBytes.position();
+            body.duplicate().position(start).put(countBytes.flip());
+            final ByteBuffer section = body.duplicate().position(start).limit(end).slice();
+            crc.reset();
+            crc.update(section.duplicate());
+            try {
+                writeFully(ByteBuffer.allocate(SECTION_HEADER_SIZE)
+                        .putInt(section.remaining()).putInt((int) crc.getValue()).flip());
+                writeFully(section);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeFully(final ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
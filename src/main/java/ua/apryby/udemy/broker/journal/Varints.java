@@ -0,0 +1,73 @@
+package ua.apryby.udemy.broker.journal;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * LEB128 variable length integers: 7 bits per byte, least significant group first, high bit set on all but the
+ * last byte. Signed values are zigzag encoded first so small negative numbers stay short.
+ */
+public final class Varints {
+
+    /**
+     * Longest encoding of a 64 bit value.
+     */
+    public static final int MAX_LENGTH = 10;
+
+    private Varints() {
+    }
+
+    public static void writeUnsigned(final ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    public static void writeSigned(final ByteBuffer out, final long value) {
+        writeUnsigned(out, (value << 1) ^ (value >> 63));
+    }
+
+    public static void writeString(final ByteBuffer out, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeUnsigned(out, bytes.length);
+        out.put(bytes);
+    }
+
+    public static long readUnsigned(final ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint longer than 10 bytes");
+    }
+
+    public static int readUnsignedInt(final ByteBuffer in) {
+        final long value = readUnsigned(in);
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("varint " + value + " does not fit an int");
+        }
+        return (int) value;
+    }
+
+    public static long readSigned(final ByteBuffer in) {
+        final long zigzag = readUnsigned(in);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    public static String readString(final ByteBuffer in) {
+        final int length = readUnsignedInt(in);
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        final byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,21 @@
+package ua.apryby.udemy.broker.metrics;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("broker.metrics")
+public class MetricsConfiguration {
+
+    /**
+     * Routes with their own request latency histogram; requests to further ones are not timed.
+     */
+    private int maxRoutes = 256;
+
+    /**
+     * Window the client side latency percentiles are computed over.
+     */
+    private Duration histogramExpiry = Duration.ofMinutes(1);
+}
@@ -0,0 +1,53 @@
+package ua.apryby.udemy.broker.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Factory;
+
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Turns the per route request timers of the web metrics binder into latency histograms: fixed buckets for
+ * Prometheus plus client side percentiles, both recorded without locks.
+ */
+@Factory
+public class RequestMetricsFactory {
+
+    static final String REQUESTS = "http.server.requests";
+    private static final Duration MIN_LATENCY = Duration.of(50, ChronoUnit.MICROS);
+    private static final Duration MAX_LATENCY = Duration.ofSeconds(10);
+
+    @Bean
+    @Singleton
+    MeterFilter requestLatencyHistograms(final MetricsConfiguration configuration) {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(final Meter.Id id, final DistributionStatisticConfig config) {
+                if (!REQUESTS.equals(id.getName())) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .percentiles(0.5, 0.9, 0.99, 0.999)
+                        .minimumExpectedValue((double) MIN_LATENCY.toNanos())
+                        .maximumExpectedValue((double) MAX_LATENCY.toNanos())
+                        .expiry(configuration.getHistogramExpiry())
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+
+    /**
+     * Caps the routes timed, as unmatched paths would otherwise each add a time series.
+     */
+    @Bean
+    @Singleton
+    MeterFilter requestRouteLimit(final MetricsConfiguration configuration) {
+        return MeterFilter.maximumAllowableTags(REQUESTS, "uri", configuration.getMaxRoutes(), MeterFilter.deny());
+    }
+}
@@ -0,0 +1,35 @@
+package ua.apryby.udemy.broker.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Context;
+import ua.apryby.udemy.broker.store.InMemoryAccountStore;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteBook;
+
+/**
+ * Meters of the quote and account stores, read when scraped. Apart from the JSON cache hits and misses, which
+ * every quote read adds to a shared {@link java.util.concurrent.atomic.LongAdder}, they read counts the stores
+ * keep anyway and add nothing to updates or requests.
+ */
+@Context
+public class StoreMetrics {
+
+    public StoreMetrics(final InMemoryStore store, final InMemoryAccountStore accounts,
+                        final MeterRegistry meterRegistry) {
+        final QuoteBook quotes = store.getQuoteBook();
+        FunctionCounter.builder("broker.quotes.updates", quotes, QuoteBook::updates)
+                .description("Quote updates published").register(meterRegistry);
+        FunctionCounter.builder("broker.quotes.json.cache.hits", quotes, QuoteBook::getJsonHits)
+                .description("Quote reads served from the encoded JSON of the current quote").register(meterRegistry);
+        FunctionCounter.builder("broker.quotes.json.cache.misses", quotes, QuoteBook::getJsonMisses)
+                .description("Quote reads that encoded the quote to JSON").register(meterRegistry);
+        Gauge.builder("broker.quotes.symbols", quotes, QuoteBook::size)
+                .description("Listed symbols").register(meterRegistry);
+        Gauge.builder("broker.watchlists.accounts", accounts, InMemoryAccountStore::size)
+                .description("Accounts with a watchlist").register(meterRegistry);
+        Gauge.builder("broker.watchlists.symbols", accounts, InMemoryAccountStore::symbolCount)
+                .description("Symbols on all watchlists").register(meterRegistry);
+    }
+}
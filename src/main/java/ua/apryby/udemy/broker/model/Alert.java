@@ -0,0 +1,19 @@
+package ua.apryby.udemy.broker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Alert {
+    private long id;
+    private Symbol symbol;
+    private AlertDirection direction;
+    private BigDecimal price;
+}
@@ -0,0 +1,12 @@
+package ua.apryby.udemy.broker.model;
+
+public enum AlertDirection {
+    /**
+     * Triggers once the last price reaches the threshold or more.
+     */
+    ABOVE,
+    /**
+     * Triggers once the last price reaches the threshold or less.
+     */
+    BELOW
+}
@@ -0,0 +1,24 @@
+package ua.apryby.udemy.broker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AlertNotification {
+    private Alert alert;
+    /**
+     * Last price that triggered the alert.
+     */
+    private BigDecimal lastPrice;
+    /**
+     * Time of triggering in epoch milliseconds.
+     */
+    private long time;
+}
@@ -0,0 +1,21 @@
+package ua.apryby.udemy.broker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AlertRequest {
+    private Symbol symbol;
+    private BigDecimal price;
+    /**
+     * Optional; by default the direction in which the price has to move from its current last price.
+     */
+    private AlertDirection direction;
+}
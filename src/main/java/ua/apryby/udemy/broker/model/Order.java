@@ -0,0 +1,27 @@
+package ua.apryby.udemy.broker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Order {
+    private long id;
+    private Symbol symbol;
+    private Side side;
+    private OrderType type;
+    private BigDecimal price;
+    private BigDecimal quantity;
+    private BigDecimal filledQuantity;
+    /**
+     * Volume weighted price of the fills on entry, {@code null} without any.
+     */
+    private BigDecimal averagePrice;
+    private OrderStatus status;
+}
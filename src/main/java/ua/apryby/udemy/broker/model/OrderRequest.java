@@ -0,0 +1,23 @@
+package ua.apryby.udemy.broker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderRequest {
+    private Symbol symbol;
+    private Side side;
+    private OrderType type;
+    /**
+     * Limit price, ignored for market orders.
+     */
+    private BigDecimal price;
+    private BigDecimal quantity;
+}
@@ -0,0 +1,17 @@
+package ua.apryby.udemy.broker.model;
+
+public enum OrderStatus {
+    /**
+     * Resting in the book without any fill.
+     */
+    NEW,
+    /**
+     * Resting in the book with the rest of its quantity.
+     */
+    PARTIALLY_FILLED,
+    FILLED,
+    /**
+     * Market order whose unfilled quantity found no more liquidity.
+     */
+    CANCELLED
+}
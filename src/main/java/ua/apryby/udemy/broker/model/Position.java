@@ -0,0 +1,28 @@
+package ua.apryby.udemy.broker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Position {
+    private Symbol symbol;
+    /**
+     * Negative for a short position.
+     */
+    private BigDecimal quantity;
+    /**
+     * Average price of the open quantity, {@code null} while nothing is open.
+     */
+    private BigDecimal averageCost;
+    private BigDecimal lastPrice;
+    private BigDecimal marketValue;
+    private BigDecimal unrealizedPnl;
+    private BigDecimal realizedPnl;
+}
@@ -0,0 +1,42 @@
+package ua.apryby.udemy.broker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Rolling statistics of a symbol over its most recent ticks and over a recent period of time. Averages are
+ * {@code null} while a window holds no tick, otherwise rounded half-even to two decimal places beyond the
+ * price scale of the symbol.
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class QuoteStatistics {
+    private Symbol symbol;
+    private Window ticks;
+    private Window time;
+
+    @Builder
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Window {
+        /**
+         * Number of ticks for the tick window, ISO-8601 duration for the time window.
+         */
+        private String length;
+        private long count;
+        private BigDecimal vwap;
+        private BigDecimal sma;
+        private BigDecimal ema;
+        /**
+         * Square root of the sum of squared log returns of the last price within the window.
+         */
+        private double volatility;
+    }
+}
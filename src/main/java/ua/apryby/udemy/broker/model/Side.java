@@ -0,0 +1,5 @@
+package ua.apryby.udemy.broker.model;
+
+public enum Side {
+    BUY, SELL
+}
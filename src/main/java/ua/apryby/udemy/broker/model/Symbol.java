@@ -1,16 +1,22 @@
 package ua.apryby.udemy.broker.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
-@Data
-@AllArgsConstructor
-@NoArgsConstructor
+import java.util.Objects;
+
+@Value
 @Schema(name = "Symbol", description = "Abbreviation to uniquely identify public trades shares of a stock.")
 public class Symbol {
 
     @Schema(description = "symbol value", minLength = 1, maxLength = 5)
-    private String value;
+    String value;
+
+    @JsonCreator(mode = JsonCreator.Mode.PROPERTIES)
+    public Symbol(@JsonProperty("value") final String value) {
+        // a request body with a null symbol is refused with 400 while it is bound
+        this.value = Objects.requireNonNull(value, "symbol value is required");
+    }
 }
@@ -0,0 +1,23 @@
+package ua.apryby.udemy.broker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Tick {
+    /**
+     * Time the quote was published in epoch milliseconds.
+     */
+    private long time;
+    private BigDecimal bid;
+    private BigDecimal ask;
+    private BigDecimal lastPrice;
+    private BigDecimal volume;
+}
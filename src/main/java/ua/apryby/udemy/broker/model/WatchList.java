@@ -1,17 +1,41 @@
 package ua.apryby.udemy.broker.model;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
-@Data
-@AllArgsConstructor
-@NoArgsConstructor
+@Value
 public class WatchList {
 
-  private List<Symbol> symbols = new ArrayList<>();
+  public static final WatchList EMPTY = new WatchList();
+
+  List<Symbol> symbols;
+
+  /**
+   * @throws NullPointerException for a null symbol, so a request body holding one is refused with 400
+   */
+  @JsonCreator
+  public WatchList(@JsonProperty("symbols") final List<Symbol> symbols) {
+    this.symbols = symbols == null ? List.of() : List.copyOf(symbols);
+  }
+
+  public WatchList() {
+    this(List.of());
+  }
+
+  private WatchList(final Symbol[] symbols) {
+    this.symbols = Collections.unmodifiableList(Arrays.asList(symbols));
+  }
+
+  /**
+   * Wraps the symbols without copying them; the caller hands the array over and must not change it.
+   */
+  public static WatchList adopt(final Symbol[] symbols) {
+    return new WatchList(symbols);
+  }
 
 }
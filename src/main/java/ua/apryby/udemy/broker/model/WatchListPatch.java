@@ -0,0 +1,27 @@
+package ua.apryby.udemy.broker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WatchListPatch {
+
+  private List<Symbol> add = new ArrayList<>();
+  private List<Symbol> remove = new ArrayList<>();
+
+  // copied so a null symbol fails binding, refusing the request with 400
+  public void setAdd(final List<Symbol> add) {
+    this.add = add == null ? null : List.copyOf(add);
+  }
+
+  public void setRemove(final List<Symbol> remove) {
+    this.remove = remove == null ? null : List.copyOf(remove);
+  }
+
+}
@@ -0,0 +1,81 @@
+package ua.apryby.udemy.broker.order;
+
+import java.util.Arrays;
+
+/**
+ * Price levels of one side of a book in a sorted primitive array, best price last: most activity happens at
+ * the top of the book, where removing a level costs nothing and inserting one shifts only the few levels
+ * better than it. Not thread-safe.
+ */
+final class BookSide {
+
+    private final boolean bids;
+    // ascending sort keys, the price for bids and the negated price for asks, so the best level is last
+    private long[] keys = new long[16];
+    private PriceLevel[] levels = new PriceLevel[16];
+    private int size;
+
+    BookSide(final boolean bids) {
+        this.bids = bids;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int depth() {
+        return size;
+    }
+
+    PriceLevel best() {
+        return size == 0 ? null : levels[size - 1];
+    }
+
+    /**
+     * @return whether an order at {@code price} on the other side trades against the best level
+     */
+    boolean crosses(final long price) {
+        if (size == 0) {
+            return false;
+        }
+        final long best = levels[size - 1].price;
+        return bids ? price <= best : price >= best;
+    }
+
+    /**
+     * @return the level at {@code price}, {@code null} if the side has none
+     */
+    PriceLevel find(final long price) {
+        final int index = Arrays.binarySearch(keys, 0, size, bids ? price : -price);
+        return index >= 0 ? levels[index] : null;
+    }
+
+    void removeBest(final OrderPool pool) {
+        final PriceLevel level = levels[--size];
+        levels[size] = null;
+        pool.release(level);
+    }
+
+    /**
+     * @return the level at {@code price}, added if the side has none
+     */
+    PriceLevel level(final long price, final OrderPool pool) {
+        final long key = bids ? price : -price;
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index >= 0) {
+            return levels[index];
+        }
+        index = -index - 1;
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            levels = Arrays.copyOf(levels, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(levels, index, levels, index + 1, size - index);
+        final PriceLevel level = pool.level(price);
+        keys[index] = key;
+        levels[index] = level;
+        size++;
+        return level;
+    }
+}
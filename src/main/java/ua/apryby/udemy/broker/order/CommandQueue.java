@@ -0,0 +1,65 @@
+package ua.apryby.udemy.broker.order;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue of many producers and a single consumer. Producers claim a slot by advancing the
+ * tail and then publish their element into it; the consumer takes elements in claim order, waiting for a
+ * claimed slot to be published rather than skipping it.
+ */
+final class CommandQueue<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    CommandQueue(final int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @return false if the queue is full
+     */
+    boolean offer(final E element) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.lazySet((int) claimed & mask, element);
+        return true;
+    }
+
+    /**
+     * Consumer thread only.
+     *
+     * @return the next element, {@code null} if there is none published yet
+     */
+    E poll() {
+        final long next = head;
+        final int slot = (int) next & mask;
+        final E element = slots.get(slot);
+        if (element == null) {
+            return null;
+        }
+        slots.lazySet(slot, null);
+        head = next + 1;
+        return element;
+    }
+
+    boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
@@ -0,0 +1,57 @@
+package ua.apryby.udemy.broker.order;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Trades of the order being matched, in primitive arrays reused from order to order.
+ * <p>
+ * Not thread-safe.
+ */
+final class Fills {
+
+    private long[] prices = new long[16];
+    private long[] quantities = new long[16];
+    private long[] makerOrderIds = new long[16];
+    private UUID[] makerAccountIds = new UUID[16];
+    private int count;
+
+    void clear() {
+        Arrays.fill(makerAccountIds, 0, count, null);
+        count = 0;
+    }
+
+    void add(final long price, final long quantity, final long makerOrderId, final UUID makerAccountId) {
+        if (count == prices.length) {
+            prices = Arrays.copyOf(prices, count * 2);
+            quantities = Arrays.copyOf(quantities, count * 2);
+            makerOrderIds = Arrays.copyOf(makerOrderIds, count * 2);
+            makerAccountIds = Arrays.copyOf(makerAccountIds, count * 2);
+        }
+        prices[count] = price;
+        quantities[count] = quantity;
+        makerOrderIds[count] = makerOrderId;
+        makerAccountIds[count] = makerAccountId;
+        count++;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long price(final int fill) {
+        return prices[fill];
+    }
+
+    long quantity(final int fill) {
+        return quantities[fill];
+    }
+
+    long makerOrderId(final int fill) {
+        return makerOrderIds[fill];
+    }
+
+    UUID makerAccountId(final int fill) {
+        return makerAccountIds[fill];
+    }
+}
@@ -0,0 +1,106 @@
+package ua.apryby.udemy.broker.order;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.context.annotation.Context;
+import ua.apryby.udemy.broker.model.Order;
+import ua.apryby.udemy.broker.model.OrderType;
+import ua.apryby.udemy.broker.model.Side;
+import ua.apryby.udemy.broker.ingest.TickSink;
+import ua.apryby.udemy.broker.store.QuoteBook;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Matches orders in per-symbol limit order books. Symbols are spread over {@code broker.orders.matchers}
+ * {@link MatchingShard}s by id; each book is only ever touched by its shard's thread, which takes orders off a
+ * lock-free queue, so matching needs no locks at all.
+ */
+@Context
+public class MatchingEngine {
+
+    private final MatchingShard[] shards;
+    private final AtomicLong ids = new AtomicLong();
+    private final LongAdder rejected = new LongAdder();
+
+    public MatchingEngine(final TickSink sink,
+                          final List<TradeListener> listeners,
+                          final OrderConfiguration configuration,
+                          final MeterRegistry meterRegistry) {
+        final TradeListener[] tradeListeners = listeners.toArray(new TradeListener[0]);
+        final Timer matchTime = Timer.builder("broker.orders.match.time")
+                .description("Time taken to match an order against its book")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+        final Timer latency = Timer.builder("broker.orders.latency")
+                .description("Time from submitting an order to its result, queueing included")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+        shards = new MatchingShard[Math.max(1, configuration.getMatchers())];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new MatchingShard(sink, tradeListeners, configuration.getQueueSize(),
+                    configuration.getPooledOrders(), matchTime, latency);
+        }
+        FunctionCounter.builder("broker.orders.matched", this, MatchingEngine::getMatched)
+                .description("Orders matched").register(meterRegistry);
+        FunctionCounter.builder("broker.orders.rejected", rejected, LongAdder::sum)
+                .description("Orders rejected because their matching queue was full").register(meterRegistry);
+        Gauge.builder("broker.orders.queued", this, MatchingEngine::getQueued)
+                .description("Orders waiting to be matched").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < shards.length; i++) {
+            shards[i].start("order-matcher-" + i);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        for (MatchingShard shard : shards) {
+            shard.stop();
+        }
+    }
+
+    /**
+     * Queues an order for matching. Prices and quantities are in the ticks of the symbol's tick size; the price
+     * of a market order is ignored.
+     *
+     * @return the order after matching, failed with {@link RejectedExecutionException} if its matching queue
+     * is full
+     */
+    public CompletableFuture<Order> submit(final UUID accountId, final QuoteBook.Entry entry,
+                                           final Side side, final OrderType type,
+                                           final long price, final long quantity) {
+        final OrderCommand command = new OrderCommand(ids.incrementAndGet(), accountId, entry, side, type,
+                price, quantity);
+        if (!shards[entry.getId() % shards.length].submit(command)) {
+            rejected.increment();
+            command.result.completeExceptionally(new RejectedExecutionException("too many orders queued"));
+        }
+        return command.result;
+    }
+
+    public long getMatched() {
+        return Arrays.stream(shards).mapToLong(MatchingShard::getMatched).sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public int getQueued() {
+        return Arrays.stream(shards).mapToInt(MatchingShard::queued).sum();
+    }
+}
@@ -0,0 +1,230 @@
+package ua.apryby.udemy.broker.order;
+
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.apryby.udemy.broker.model.Order;
+import ua.apryby.udemy.broker.model.OrderStatus;
+import ua.apryby.udemy.broker.model.OrderType;
+import ua.apryby.udemy.broker.model.Side;
+import ua.apryby.udemy.broker.ingest.TickSink;
+import ua.apryby.udemy.broker.store.QuoteTicks;
+import ua.apryby.udemy.broker.store.TickSize;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Matching thread of a subset of the symbols. Takes orders off its queue one at a time, matches them against
+ * the books it owns and reports every trade to the {@link TradeListener}s. The trades of an order are put
+ * into the {@link TickSink} as one tick: the last trade price, their summed quantity and, where the book holds
+ * both sides, its top as bid and ask, otherwise the current bid and ask of the symbol. A full sink is waited
+ * for rather than the trade dropped. Quote listeners therefore run on the ingestion writer, not on the
+ * matching thread.
+ * <p>
+ * Spins briefly when the queue runs dry so an order arriving shortly after is picked up without a wake-up,
+ * then parks without a timeout until the next submission, or {@link #stop()}, unparks it.
+ */
+final class MatchingShard implements Runnable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MatchingShard.class);
+    private static final int SPINS_BEFORE_PARKING = 10_000;
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    private final TickSink sink;
+    private final TradeListener[] listeners;
+    private final CommandQueue<OrderCommand> queue;
+    private final OrderPool pool;
+    private final Timer matchTime;
+    private final Timer latency;
+    private final Fills fills = new Fills();
+    private final QuoteTicks quote = new QuoteTicks();
+    // indexed by symbol id, matching thread only
+    private OrderBook[] books = new OrderBook[64];
+    private volatile Thread thread;
+    private volatile boolean parked;
+    private volatile boolean running = true;
+    private volatile long matched;
+
+    MatchingShard(final TickSink sink, final TradeListener[] listeners, final int queueSize,
+                  final int pooledOrders, final Timer matchTime, final Timer latency) {
+        this.sink = sink;
+        this.listeners = listeners;
+        this.queue = new CommandQueue<>(Integer.highestOneBit(Math.max(2, queueSize * 2 - 1)));
+        this.pool = new OrderPool(pooledOrders);
+        this.matchTime = matchTime;
+        this.latency = latency;
+    }
+
+    void start(final String name) {
+        final Thread started = new Thread(this, name);
+        started.setDaemon(true);
+        thread = started;
+        started.start();
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        final Thread current = thread;
+        if (current != null) {
+            LockSupport.unpark(current);
+            current.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * @return false if the queue is full
+     */
+    boolean submit(final OrderCommand command) {
+        if (!queue.offer(command)) {
+            return false;
+        }
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    int queued() {
+        return queue.size();
+    }
+
+    long getMatched() {
+        return matched;
+    }
+
+    @Override
+    public void run() {
+        int idle = 0;
+        while (running || !queue.isEmpty()) {
+            final OrderCommand command = queue.poll();
+            if (command != null) {
+                idle = 0;
+                execute(command);
+            } else if (++idle < SPINS_BEFORE_PARKING) {
+                Thread.onSpinWait();
+            } else {
+                // announced before the queue is checked again, so a submission either is seen or unparks
+                parked = true;
+                if (queue.isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+            }
+        }
+    }
+
+    void execute(final OrderCommand command) {
+        try {
+            final long started = System.nanoTime();
+            final OrderBook book = book(command.entry.getId());
+            fills.clear();
+            final long limit = command.type == OrderType.LIMIT ? command.price
+                    : command.side == Side.BUY ? Long.MAX_VALUE : Long.MIN_VALUE;
+            final long remaining = book.match(command.side, limit, command.quantity, fills);
+            if (remaining > 0 && command.type == OrderType.LIMIT) {
+                book.rest(command.id, command.accountId, command.side, command.price, remaining);
+            }
+            matchTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            matched++;
+            publishTrades(command, book);
+            notifyListeners(command);
+            command.result.complete(toOrder(command, remaining));
+            latency.record(System.nanoTime() - command.submittedNanos, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            LOG.error("Failed to match order {}", command.id, e);
+            command.result.completeExceptionally(e);
+        }
+    }
+
+    private void publishTrades(final OrderCommand command, final OrderBook book) {
+        if (fills.count() == 0) {
+            return;
+        }
+        long quantity = 0;
+        for (int i = 0; i < fills.count(); i++) {
+            quantity += fills.quantity(i);
+        }
+        long bid = book.bestBid(NO_PRICE);
+        long ask = book.bestAsk(NO_PRICE);
+        // never mix a side of the book with a side of the feed, that may cross
+        if (bid == NO_PRICE || ask == NO_PRICE) {
+            final boolean quoted = command.entry.read(quote);
+            bid = quoted ? quote.getBid() : 0;
+            ask = quoted ? quote.getAsk() : 0;
+        }
+        // waits for room rather than losing the trade; false only once ingestion stopped
+        if (!sink.put(command.entry.getId(), bid, ask, fills.price(fills.count() - 1), quantity)) {
+            LOG.warn("Trade of order {} not published, ingestion stopped", command.id);
+        }
+    }
+
+    private void notifyListeners(final OrderCommand command) {
+        for (int i = 0; i < fills.count(); i++) {
+            final UUID maker = fills.makerAccountId(i);
+            final UUID buyer = command.side == Side.BUY ? command.accountId : maker;
+            final UUID seller = command.side == Side.BUY ? maker : command.accountId;
+            for (TradeListener listener : listeners) {
+                try {
+                    listener.onTrade(command.entry, buyer, seller, fills.price(i), fills.quantity(i));
+                } catch (RuntimeException e) {
+                    LOG.error("Trade listener {} failed", listener, e);
+                }
+            }
+        }
+    }
+
+    private Order toOrder(final OrderCommand command, final long remaining) {
+        final TickSize tickSize = command.entry.getTickSize();
+        final long filled = command.quantity - remaining;
+        final OrderStatus status;
+        if (remaining == 0) {
+            status = OrderStatus.FILLED;
+        } else if (command.type == OrderType.MARKET) {
+            status = OrderStatus.CANCELLED;
+        } else {
+            status = filled == 0 ? OrderStatus.NEW : OrderStatus.PARTIALLY_FILLED;
+        }
+        return Order.builder()
+                .id(command.id)
+                .symbol(command.entry.getSymbol())
+                .side(command.side)
+                .type(command.type)
+                .price(command.type == OrderType.LIMIT ? tickSize.price(command.price) : null)
+                .quantity(tickSize.volume(command.quantity))
+                .filledQuantity(tickSize.volume(filled))
+                .averagePrice(averagePrice(tickSize, filled))
+                .status(status)
+                .build();
+    }
+
+    private BigDecimal averagePrice(final TickSize tickSize, final long filled) {
+        if (filled == 0) {
+            return null;
+        }
+        BigDecimal notional = BigDecimal.ZERO;
+        for (int i = 0; i < fills.count(); i++) {
+            notional = notional.add(BigDecimal.valueOf(fills.price(i)).multiply(BigDecimal.valueOf(fills.quantity(i))));
+        }
+        final BigDecimal average = notional.divide(BigDecimal.valueOf(filled), 4, RoundingMode.HALF_EVEN)
+                .movePointLeft(tickSize.getPriceScale())
+                .stripTrailingZeros();
+        return average.scale() < tickSize.getPriceScale() ? average.setScale(tickSize.getPriceScale()) : average;
+    }
+
+    private OrderBook book(final int symbolId) {
+        if (symbolId >= books.length) {
+            books = Arrays.copyOf(books, Math.max(symbolId + 1, books.length * 2));
+        }
+        OrderBook book = books[symbolId];
+        if (book == null) {
+            book = new OrderBook(pool);
+            books[symbolId] = book;
+        }
+        return book;
+    }
+}
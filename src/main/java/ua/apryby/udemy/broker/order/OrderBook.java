@@ -0,0 +1,96 @@
+package ua.apryby.udemy.broker.order;
+
+import ua.apryby.udemy.broker.model.Side;
+
+import java.util.UUID;
+
+/**
+ * Limit order book of one symbol with price-time priority: an incoming order trades against the best prices
+ * of the other side first and, within a price, against the oldest orders first, always at the resting
+ * order's price. Prices and quantities are in the ticks of the symbol's {@link ua.apryby.udemy.broker.store.TickSize}.
+ * <p>
+ * Owned by a single matching thread, not thread-safe.
+ */
+final class OrderBook {
+
+    private final BookSide bids = new BookSide(true);
+    private final BookSide asks = new BookSide(false);
+    private final OrderPool pool;
+
+    OrderBook(final OrderPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Trades an incoming order against the other side as far as its limit allows.
+     *
+     * @param limit price limit; pass {@link Long#MAX_VALUE} for a market buy and
+     *              {@link Long#MIN_VALUE} for a market sell
+     * @return quantity left unfilled
+     */
+    long match(final Side side, final long limit, final long quantity, final Fills fills) {
+        final BookSide other = side == Side.BUY ? asks : bids;
+        long remaining = quantity;
+        while (remaining > 0 && other.crosses(limit)) {
+            final PriceLevel level = other.best();
+            while (remaining > 0 && !level.isEmpty()) {
+                final RestingOrder maker = level.head;
+                final long traded = Math.min(remaining, maker.remaining);
+                fills.add(level.price, traded, maker.id, maker.accountId);
+                remaining -= traded;
+                maker.remaining -= traded;
+                level.quantity -= traded;
+                if (maker.remaining == 0) {
+                    pool.release(level.removeHead());
+                }
+            }
+            if (level.isEmpty()) {
+                other.removeBest(pool);
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Adds the unfilled rest of a limit order behind the orders already resting at its price.
+     */
+    void rest(final long orderId, final UUID accountId, final Side side, final long price, final long quantity) {
+        final RestingOrder order = pool.order();
+        order.id = orderId;
+        order.accountId = accountId;
+        order.remaining = quantity;
+        (side == Side.BUY ? bids : asks).level(price, pool).append(order);
+    }
+
+    /**
+     * @return best bid price, {@code fallback} if there is no bid
+     */
+    long bestBid(final long fallback) {
+        final PriceLevel best = bids.best();
+        return best == null ? fallback : best.price;
+    }
+
+    /**
+     * @return best ask price, {@code fallback} if there is no ask
+     */
+    long bestAsk(final long fallback) {
+        final PriceLevel best = asks.best();
+        return best == null ? fallback : best.price;
+    }
+
+    /**
+     * @return quantity resting at the given price on the given side
+     */
+    long quantityAt(final Side side, final long price) {
+        final BookSide bookSide = side == Side.BUY ? bids : asks;
+        if (bookSide.isEmpty()) {
+            return 0;
+        }
+        final PriceLevel level = bookSide.find(price);
+        return level == null ? 0 : level.quantity;
+    }
+
+    int depth(final Side side) {
+        return (side == Side.BUY ? bids : asks).depth();
+    }
+}
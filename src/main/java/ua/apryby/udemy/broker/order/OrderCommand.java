@@ -0,0 +1,36 @@
+package ua.apryby.udemy.broker.order;
+
+import ua.apryby.udemy.broker.model.Order;
+import ua.apryby.udemy.broker.model.OrderType;
+import ua.apryby.udemy.broker.model.Side;
+import ua.apryby.udemy.broker.store.QuoteBook;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Order handed to a matching thread, completed with its state after matching.
+ */
+final class OrderCommand {
+
+    final long id;
+    final UUID accountId;
+    final QuoteBook.Entry entry;
+    final Side side;
+    final OrderType type;
+    final long price;
+    final long quantity;
+    final long submittedNanos = System.nanoTime();
+    final CompletableFuture<Order> result = new CompletableFuture<>();
+
+    OrderCommand(final long id, final UUID accountId, final QuoteBook.Entry entry,
+                 final Side side, final OrderType type, final long price, final long quantity) {
+        this.id = id;
+        this.accountId = accountId;
+        this.entry = entry;
+        this.side = side;
+        this.type = type;
+        this.price = price;
+        this.quantity = quantity;
+    }
+}
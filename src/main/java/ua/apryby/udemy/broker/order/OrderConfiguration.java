@@ -0,0 +1,24 @@
+package ua.apryby.udemy.broker.order;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+@Data
+@ConfigurationProperties("broker.orders")
+public class OrderConfiguration {
+
+    /**
+     * Matching threads; each symbol is always matched by the same one.
+     */
+    private int matchers = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    /**
+     * Orders each matching thread queues before new ones are rejected, rounded up to a power of two.
+     */
+    private int queueSize = 16_384;
+
+    /**
+     * Filled orders and emptied price levels each matching thread keeps for reuse.
+     */
+    private int pooledOrders = 65_536;
+}
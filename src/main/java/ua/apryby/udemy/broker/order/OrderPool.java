@@ -0,0 +1,66 @@
+package ua.apryby.udemy.broker.order;
+
+import java.util.Arrays;
+
+/**
+ * Free lists of resting orders and price levels of one matching thread, so a steady flow of orders does not
+ * allocate. Keeps at most {@code maxPooled} of each; the rest is left to the garbage collector.
+ * <p>
+ * Not thread-safe.
+ */
+final class OrderPool {
+
+    private final int maxPooled;
+    private RestingOrder freeOrders;
+    private int pooledOrders;
+    private PriceLevel[] freeLevels = new PriceLevel[16];
+    private int pooledLevels;
+
+    OrderPool(final int maxPooled) {
+        this.maxPooled = maxPooled;
+    }
+
+    RestingOrder order() {
+        final RestingOrder order = freeOrders;
+        if (order == null) {
+            return new RestingOrder();
+        }
+        freeOrders = order.next;
+        order.next = null;
+        pooledOrders--;
+        return order;
+    }
+
+    void release(final RestingOrder order) {
+        order.accountId = null;
+        if (pooledOrders < maxPooled) {
+            order.next = freeOrders;
+            freeOrders = order;
+            pooledOrders++;
+        }
+    }
+
+    PriceLevel level(final long price) {
+        final PriceLevel level;
+        if (pooledLevels == 0) {
+            level = new PriceLevel();
+        } else {
+            level = freeLevels[--pooledLevels];
+            freeLevels[pooledLevels] = null;
+        }
+        level.price = price;
+        level.quantity = 0;
+        return level;
+    }
+
+    void release(final PriceLevel level) {
+        level.head = null;
+        level.tail = null;
+        if (pooledLevels < maxPooled) {
+            if (pooledLevels == freeLevels.length) {
+                freeLevels = Arrays.copyOf(freeLevels, pooledLevels * 2);
+            }
+            freeLevels[pooledLevels++] = level;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ua.apryby.udemy.broker.order;
+
+/**
+ * Orders resting at one price, oldest first. Recycled through {@link OrderPool} once empty.
+ */
+final class PriceLevel {
+
+    long price;
+    long quantity;
+    RestingOrder head;
+    RestingOrder tail;
+
+    void append(final RestingOrder order) {
+        order.next = null;
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.next = order;
+        }
+        tail = order;
+        quantity += order.remaining;
+    }
+
+    /**
+     * Unlinks the oldest order, which must be filled.
+     */
+    RestingOrder removeHead() {
+        final RestingOrder removed = head;
+        head = removed.next;
+        if (head == null) {
+            tail = null;
+        }
+        removed.next = null;
+        return removed;
+    }
+
+    boolean isEmpty() {
+        return head == null;
+    }
+}
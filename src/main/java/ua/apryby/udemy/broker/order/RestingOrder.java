@@ -0,0 +1,15 @@
+package ua.apryby.udemy.broker.order;
+
+import java.util.UUID;
+
+/**
+ * Order waiting in a {@link PriceLevel}, linked to the next one in time priority. Recycled through
+ * {@link OrderPool} once filled.
+ */
+final class RestingOrder {
+
+    long id;
+    UUID accountId;
+    long remaining;
+    RestingOrder next;
+}
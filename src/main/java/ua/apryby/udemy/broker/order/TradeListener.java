@@ -0,0 +1,15 @@
+package ua.apryby.udemy.broker.order;
+
+import ua.apryby.udemy.broker.store.QuoteBook;
+
+import java.util.UUID;
+
+/**
+ * Callback invoked on a matching thread for every trade, before the order that caused it is answered.
+ * Implementations must be fast and non-blocking. Price and quantity are in the ticks of the symbol's tick size.
+ */
+@FunctionalInterface
+public interface TradeListener {
+
+    void onTrade(QuoteBook.Entry entry, UUID buyerId, UUID sellerId, long price, long quantity);
+}
@@ -0,0 +1,53 @@
+package ua.apryby.udemy.broker.portfolio;
+
+import ua.apryby.udemy.broker.model.Portfolio;
+import ua.apryby.udemy.broker.model.Position;
+import ua.apryby.udemy.broker.store.QuoteBook;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Holdings of one account by symbol id; its monitor guards them.
+ */
+final class AccountPortfolio {
+
+    final UUID accountId;
+    private final Map<Integer, Holding> holdings = new HashMap<>();
+
+    AccountPortfolio(final UUID accountId) {
+        this.accountId = accountId;
+    }
+
+    /**
+     * Caller holds the monitor.
+     */
+    Holding holding(final QuoteBook.Entry entry) {
+        return holdings.computeIfAbsent(entry.getId(), id -> new Holding(this, entry));
+    }
+
+    synchronized Portfolio toPortfolio() {
+        final List<Position> positions = new ArrayList<>(holdings.size());
+        BigDecimal marketValue = BigDecimal.ZERO;
+        BigDecimal unrealizedPnl = BigDecimal.ZERO;
+        BigDecimal realizedPnl = BigDecimal.ZERO;
+        for (Holding holding : holdings.values()) {
+            final Position position = holding.toPosition();
+            positions.add(position);
+            marketValue = marketValue.add(position.getMarketValue());
+            unrealizedPnl = unrealizedPnl.add(position.getUnrealizedPnl());
+            realizedPnl = realizedPnl.add(position.getRealizedPnl());
+        }
+        positions.sort((a, b) -> a.getSymbol().getValue().compareTo(b.getSymbol().getValue()));
+        return Portfolio.builder()
+                .positions(positions)
+                .marketValue(marketValue)
+                .unrealizedPnl(unrealizedPnl)
+                .realizedPnl(realizedPnl)
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+package ua.apryby.udemy.broker.portfolio;
+
+import ua.apryby.udemy.broker.model.Position;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.TickSize;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Position of one account in one symbol. Quantity is in volume ticks and prices in price ticks of the symbol;
+ * cost basis, market value and P&amp;L are in their products. Guarded by the monitor of its
+ * {@link AccountPortfolio}.
+ */
+final class Holding {
+
+    final AccountPortfolio account;
+    final QuoteBook.Entry entry;
+    // signed: negative while short
+    long quantity;
+    // what the open quantity cost, negative while short
+    long costBasis;
+    long realizedPnl;
+    long lastPrice;
+    // quote version the last price was read from
+    long markVersion = -1;
+    long marketValue;
+    boolean indexed;
+
+    Holding(final AccountPortfolio account, final QuoteBook.Entry entry) {
+        this.account = account;
+        this.entry = entry;
+    }
+
+    /**
+     * Books a trade, {@code delta} positive when bought. Closing trades realize the difference between their
+     * price and the proportional cost of what they close.
+     */
+    void trade(final long delta, final long price) {
+        long opening = delta;
+        if (quantity != 0 && Long.signum(quantity) != Long.signum(delta)) {
+            final long closing = Long.signum(delta) * Math.min(Math.abs(delta), Math.abs(quantity));
+            final long closedCost = Math.multiplyExact(costBasis, -closing) / quantity;
+            realizedPnl += Math.multiplyExact(-closing, price) - closedCost;
+            costBasis -= closedCost;
+            quantity += closing;
+            opening -= closing;
+        }
+        quantity += opening;
+        costBasis += Math.multiplyExact(opening, price);
+        marketValue = Math.multiplyExact(quantity, lastPrice);
+    }
+
+    /**
+     * Revalues the position at the last price of a quote, in constant time. Quotes are read after the store
+     * published them, possibly out of order on different threads, so one older than the current mark is ignored.
+     */
+    void mark(final long version, final long price) {
+        if (version < markVersion) {
+            return;
+        }
+        markVersion = version;
+        lastPrice = price;
+        marketValue = Math.multiplyExact(quantity, price);
+    }
+
+    long unrealizedPnl() {
+        return marketValue - costBasis;
+    }
+
+    Position toPosition() {
+        final TickSize tickSize = entry.getTickSize();
+        final int valueScale = tickSize.getPriceScale() + tickSize.getVolumeScale();
+        return Position.builder()
+                .symbol(entry.getSymbol())
+                .quantity(tickSize.volume(quantity))
+                .averageCost(quantity == 0 ? null : BigDecimal.valueOf(costBasis, valueScale)
+                        .divide(tickSize.volume(quantity), tickSize.getPriceScale(), RoundingMode.HALF_EVEN))
+                .lastPrice(tickSize.price(lastPrice))
+                .marketValue(BigDecimal.valueOf(marketValue, valueScale))
+                .unrealizedPnl(BigDecimal.valueOf(unrealizedPnl(), valueScale))
+                .realizedPnl(BigDecimal.valueOf(realizedPnl, valueScale))
+                .build();
+    }
+}
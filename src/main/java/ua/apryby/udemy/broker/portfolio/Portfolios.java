@@ -0,0 +1,112 @@
+package ua.apryby.udemy.broker.portfolio;
+
+import ua.apryby.udemy.broker.model.Portfolio;
+import ua.apryby.udemy.broker.order.TradeListener;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.QuoteListener;
+import ua.apryby.udemy.broker.store.QuoteTicks;
+import ua.apryby.udemy.broker.store.SymbolSlots;
+
+import javax.inject.Singleton;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Positions of every account, built from the trades of the matching engine and marked to market on every
+ * quote update. Open holdings are indexed by symbol, so an update only revalues the holdings of its symbol,
+ * each in constant time, however many accounts there are.
+ */
+@Singleton
+public class Portfolios implements TradeListener, QuoteListener {
+
+    private static final Holding[] NONE = new Holding[0];
+
+    private final InMemoryStore store;
+    private final ConcurrentHashMap<UUID, AccountPortfolio> accounts = new ConcurrentHashMap<>();
+    // open holdings of each symbol, replaced rather than changed
+    private final SymbolSlots<Holding[]> holders = new SymbolSlots<>();
+
+    public Portfolios(final InMemoryStore store) {
+        this.store = store;
+        store.addListener(this);
+    }
+
+    @Override
+    public void onTrade(final QuoteBook.Entry entry, final UUID buyerId, final UUID sellerId,
+                        final long price, final long quantity) {
+        book(buyerId, entry, quantity, price);
+        book(sellerId, entry, -quantity, price);
+    }
+
+    @Override
+    public void onQuote(final QuoteBook.Entry entry) {
+        final Holding[] holdings = holdings(entry.getId());
+        if (holdings.length == 0) {
+            return;
+        }
+        final QuoteTicks quote = new QuoteTicks();
+        if (!entry.read(quote)) {
+            return;
+        }
+        for (Holding holding : holdings) {
+            synchronized (holding.account) {
+                holding.mark(quote.getVersion(), quote.getLastPrice());
+            }
+        }
+    }
+
+    public Portfolio portfolio(final UUID accountId) {
+        final AccountPortfolio account = accounts.get(accountId);
+        if (account == null) {
+            return Portfolio.builder()
+                    .positions(List.of())
+                    .marketValue(BigDecimal.ZERO)
+                    .unrealizedPnl(BigDecimal.ZERO)
+                    .realizedPnl(BigDecimal.ZERO)
+                    .build();
+        }
+        return account.toPortfolio();
+    }
+
+    private void book(final UUID accountId, final QuoteBook.Entry entry, final long delta, final long price) {
+        final AccountPortfolio account = accounts.computeIfAbsent(accountId, AccountPortfolio::new);
+        final QuoteTicks quote = new QuoteTicks();
+        synchronized (account) {
+            final Holding holding = account.holding(entry);
+            holding.trade(delta, price);
+            if (entry.read(quote)) {
+                holding.mark(quote.getVersion(), quote.getLastPrice());
+            } else {
+                holding.mark(0, price);
+            }
+            if (holding.quantity != 0 && !holding.indexed) {
+                holding.indexed = true;
+                index(holding, true);
+            } else if (holding.quantity == 0 && holding.indexed) {
+                holding.indexed = false;
+                index(holding, false);
+            }
+        }
+    }
+
+    Holding[] holdings(final int symbolId) {
+        final Holding[] holdings = holders.get(symbolId);
+        return holdings == null ? NONE : holdings;
+    }
+
+    private void index(final Holding holding, final boolean add) {
+        holders.update(holding.entry.getId(), current -> {
+            final Holding[] before = current == null ? NONE : current;
+            if (!add) {
+                return Arrays.stream(before).filter(other -> other != holding).toArray(Holding[]::new);
+            }
+            final Holding[] after = Arrays.copyOf(before, before.length + 1);
+            after[before.length] = holding;
+            return after;
+        });
+    }
+}
@@ -0,0 +1,211 @@
+package ua.apryby.udemy.broker.simulator;
+
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.TaskScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.apryby.udemy.broker.ingest.IngestionPipeline;
+import ua.apryby.udemy.broker.ingest.TickSink;
+import ua.apryby.udemy.broker.model.Symbol;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteTicks;
+import ua.apryby.udemy.broker.store.SymbolRegistry;
+import ua.apryby.udemy.broker.store.TickSize;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves the price of every listed symbol by geometric Brownian motion and quotes a spread around it. Each
+ * scheduled step advances the next symbols round-robin, as many as the tick rate allows for the time since the
+ * last step, so the cost of a step depends on the tick rate and not on the number of symbols. A step wraps around
+ * the symbols when the rate asks for more ticks than there are symbols, spreading the ticks over the time since
+ * the last step. Quotes are offered to the {@link IngestionPipeline} like any other feed.
+ */
+@Context
+@Requires(property = "broker.simulator.enabled", value = "true")
+public class MarketSimulator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MarketSimulator.class);
+    private static final double SECONDS_PER_YEAR = 365.25 * 24 * 60 * 60;
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    // four base-36 digits after the S prefix
+    static final int MAX_SYNTHETIC_SYMBOLS = 36 * 36 * 36 * 36;
+
+    private final TickSink sink;
+    private final TaskScheduler scheduler;
+    private final SimulatorConfiguration configuration;
+    private final int[] symbolIds;
+    // price of each simulated symbol in (fractional) price ticks
+    private final double[] prices;
+    private final long[] movedAt;
+    // bid, ask and last price of the quote being built
+    private final long[] quote = new long[3];
+    private int cursor;
+    private double pendingTicks;
+    private long lastStep;
+    private long ticks;
+    private long reportedTicks;
+    private long reportedAt;
+    private ScheduledFuture<?> task;
+
+    @Inject
+    public MarketSimulator(final InMemoryStore store,
+                           final IngestionPipeline pipeline,
+                           @Named(TaskExecutors.SCHEDULED) final TaskScheduler scheduler,
+                           final SimulatorConfiguration configuration) {
+        this((TickSink) pipeline, store, scheduler, configuration);
+    }
+
+    MarketSimulator(final TickSink sink,
+                    final InMemoryStore store,
+                    final TaskScheduler scheduler,
+                    final SimulatorConfiguration configuration) {
+        this.sink = sink;
+        this.scheduler = scheduler;
+        this.configuration = configuration;
+        listSyntheticSymbols(store, configuration.getSymbols());
+
+        final SymbolRegistry registry = store.getRegistry();
+        final List<Symbol> symbols = store.getAllSymbols();
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final QuoteTicks current = new QuoteTicks();
+        final long now = System.nanoTime();
+        symbolIds = new int[symbols.size()];
+        prices = new double[symbols.size()];
+        movedAt = new long[symbols.size()];
+        for (int i = 0; i < symbolIds.length; i++) {
+            symbolIds[i] = registry.resolve(symbols.get(i).getValue());
+            final boolean quoted = store.fetchQuote(symbols.get(i).getValue(), current) && current.getLastPrice() > 0;
+            prices[i] = quoted ? current.getLastPrice() : random.nextLong(1_000, 50_000);
+            movedAt[i] = now;
+            if (!quoted) {
+                quote(prices[i], random);
+                store.update(symbolIds[i], quote[0], quote[1], quote[2], random.nextLong(1, 100));
+            }
+        }
+        lastStep = now;
+        reportedAt = now;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (configuration.getTickRate() <= 0 || symbolIds.length == 0) {
+            return;
+        }
+        task = scheduler.scheduleAtFixedRate(configuration.getInterval(), configuration.getInterval(), this::step);
+        LOG.info("Simulating {} symbols, targeting {} ticks/s", symbolIds.length, configuration.getTickRate());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
+    void step() {
+        try {
+            step(System.nanoTime());
+        } catch (RuntimeException e) {
+            LOG.error("Market simulation step failed", e);
+        }
+    }
+
+    /**
+     * Advances symbols as often as the tick rate allows since the previous step. Ticks the scheduler fell behind
+     * on by more than a second are skipped rather than sent as one burst.
+     *
+     * @return the number of ticks offered
+     */
+    int step(final long now) {
+        final long elapsed = now - lastStep;
+        final double due = pendingTicks + configuration.getTickRate() * (elapsed / NANOS_PER_SECOND);
+        final int count = (int) Math.min(due, configuration.getTickRate());
+        pendingTicks = count < configuration.getTickRate() ? due - count : 0;
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int n = 1; n <= count; n++) {
+            // a symbol advanced twice in one step moves by the time between its two ticks
+            advance(cursor, lastStep + elapsed * n / count, random);
+            cursor = cursor + 1 == symbolIds.length ? 0 : cursor + 1;
+        }
+        lastStep = now;
+        ticks += count;
+        report(now);
+        return count;
+    }
+
+    private void report(final long now) {
+        if (now - reportedAt < REPORT_INTERVAL_NANOS) {
+            return;
+        }
+        final double achieved = (ticks - reportedTicks) * NANOS_PER_SECOND / (now - reportedAt);
+        reportedTicks = ticks;
+        reportedAt = now;
+        if (achieved < configuration.getTickRate() * 0.95) {
+            LOG.warn("Simulated {} ticks/s, short of the {} ticks/s configured", Math.round(achieved),
+                    configuration.getTickRate());
+        } else {
+            LOG.debug("Simulated {} ticks/s", Math.round(achieved));
+        }
+    }
+
+    private void advance(final int index, final long now, final ThreadLocalRandom random) {
+        final double years = (now - movedAt[index]) / NANOS_PER_SECOND * configuration.getSpeed() / SECONDS_PER_YEAR;
+        movedAt[index] = now;
+        final double volatility = configuration.getVolatility();
+        final double exponent = (configuration.getDrift() - volatility * volatility / 2) * years
+                + volatility * Math.sqrt(years) * random.nextGaussian();
+        final double price = Math.max(1, prices[index] * Math.exp(exponent));
+        prices[index] = price;
+        quote(price, random);
+        sink.offer(symbolIds[index], quote[0], quote[1], quote[2],
+                random.nextLong(1, Math.max(2, configuration.getMaxVolume() + 1)));
+    }
+
+    /**
+     * Sets bid, ask and last price ticks around the given price, with bid &lt; ask.
+     */
+    private void quote(final double price, final ThreadLocalRandom random) {
+        final long mid = Math.round(price);
+        final long halfSpread = Math.max(1, Math.round(price * configuration.getSpreadBasisPoints() / 20_000));
+        final long bid = Math.max(1, mid - halfSpread);
+        final long ask = Math.max(bid + 1, mid + halfSpread);
+        quote[0] = bid;
+        quote[1] = ask;
+        quote[2] = random.nextLong(bid, ask + 1);
+    }
+
+    /**
+     * @return {@code S} and the index in four upper-case base-36 digits, within the five characters of a symbol
+     */
+    static String syntheticSymbol(final int index) {
+        final String digits = Integer.toString(index, 36).toUpperCase(Locale.ROOT);
+        return "S" + "0".repeat(4 - digits.length()) + digits;
+    }
+
+    private static void listSyntheticSymbols(final InMemoryStore store, final int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (count > MAX_SYNTHETIC_SYMBOLS) {
+            throw new IllegalArgumentException("at most " + MAX_SYNTHETIC_SYMBOLS + " synthetic symbols");
+        }
+        final List<Symbol> symbols = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            symbols.add(new Symbol(syntheticSymbol(i)));
+        }
+        store.listSymbols(symbols, TickSize.DEFAULT);
+    }
+}
@@ -0,0 +1,50 @@
+package ua.apryby.udemy.broker.simulator;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("broker.simulator")
+public class SimulatorConfiguration {
+
+    private boolean enabled;
+
+    /**
+     * Synthetic symbols listed in addition to the built-in ones, named {@code S0000} to {@code SZZZZ}.
+     */
+    private int symbols;
+
+    /**
+     * Quote updates per second over all simulated symbols.
+     */
+    private int tickRate = 1_000;
+
+    /**
+     * How often the scheduler runs a simulation step.
+     */
+    private Duration interval = Duration.ofMillis(10);
+
+    /**
+     * Annualized drift of the geometric Brownian motion.
+     */
+    private double drift = 0.05;
+
+    /**
+     * Annualized volatility of the geometric Brownian motion.
+     */
+    private double volatility = 0.3;
+
+    /**
+     * Simulated seconds per real second.
+     */
+    private double speed = 3_600;
+
+    /**
+     * Bid/ask spread in basis points of the price, never less than one tick on each side.
+     */
+    private double spreadBasisPoints = 10;
+
+    private int maxVolume = 1_000;
+}
@@ -1,27 +1,197 @@
 package ua.apryby.udemy.broker.store;
 
+import ua.apryby.udemy.broker.model.Symbol;
 import ua.apryby.udemy.broker.model.WatchList;
 
 
 import javax.inject.Singleton;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 @Singleton
 public class InMemoryAccountStore {
 
-  private final HashMap<UUID, WatchList> watchListsPerAccount = new HashMap<>();
+  private static final Versioned<WatchList> NO_WATCHLIST = Versioned.of(0, WatchList.EMPTY);
+
+  // lock striped per hash bin: mutations of different accounts do not contend, reads never lock
+  private final ConcurrentHashMap<UUID, Versioned<WatchList>> watchListsPerAccount = new ConcurrentHashMap<>();
+  // registered tickers are shared by all watchlists instead of stored once per account
+  private final SymbolRegistry registry;
+  // one sequence for all accounts, so a watchlist re-created after a delete never reuses an old version
+  private final AtomicLong versions = new AtomicLong();
+  // symbols on all watchlists, adjusted by every change instead of counted on demand
+  private final AtomicLong symbolCount = new AtomicLong();
+  private volatile WatchListListener[] listeners = new WatchListListener[0];
+
+  public InMemoryAccountStore(final SymbolRegistry registry) {
+    this.registry = registry;
+  }
 
   public WatchList getWatchList(final UUID accountId) {
-    return watchListsPerAccount.getOrDefault(accountId, new WatchList());
+    return fetchWatchList(accountId).getValue();
+  }
+
+  public Versioned<WatchList> fetchWatchList(final UUID accountId) {
+    final Versioned<WatchList> stored = watchListsPerAccount.get(accountId);
+    return stored != null ? stored : NO_WATCHLIST;
   }
 
   public WatchList updateWatchList(final UUID accountId, final WatchList watchList) {
-    watchListsPerAccount.put(accountId, watchList);
-    return getWatchList(accountId);
+    final WatchList compacted = compact(watchList.getSymbols());
+    // versioned under the bin lock, so versions of one account follow the order its changes are applied in
+    final Versioned<WatchList> stored = watchListsPerAccount.compute(accountId, (id, current) -> {
+      final Versioned<WatchList> replacement = Versioned.of(versions.incrementAndGet(), compacted);
+      countReplaced(current, replacement);
+      return replacement;
+    });
+    notifyListeners(accountId, stored);
+    return stored.getValue();
+  }
+
+  /**
+   * Atomically removes and then adds the given symbols. The version only changes if the list did.
+   */
+  public Versioned<WatchList> patchWatchList(final UUID accountId,
+                                             final Collection<Symbol> add,
+                                             final Collection<Symbol> remove) {
+    // decided under the bin lock: comparing with a value read before compute could mistake another change for this one
+    final boolean[] changedByPatch = new boolean[1];
+    final Versioned<WatchList> patched = watchListsPerAccount.compute(accountId, (id, current) -> {
+      final List<Symbol> symbols = current == null
+          ? new ArrayList<>()
+          : new ArrayList<>(current.getValue().getSymbols());
+      boolean changed = symbols.removeAll(remove);
+      for (Symbol symbol : add) {
+        if (!symbols.contains(symbol)) {
+          symbols.add(symbol);
+          changed = true;
+        }
+      }
+      if (!changed) {
+        return current;
+      }
+      final Versioned<WatchList> replacement = Versioned.of(versions.incrementAndGet(), compact(symbols));
+      countReplaced(current, replacement);
+      changedByPatch[0] = true;
+      return replacement;
+    });
+    if (changedByPatch[0]) {
+      notifyListeners(accountId, patched);
+    }
+    return patched != null ? patched : NO_WATCHLIST;
+  }
+
+  public Versioned<WatchList> addSymbol(final UUID accountId, final Symbol symbol) {
+    return patchWatchList(accountId, List.of(symbol), List.of());
+  }
+
+  public Versioned<WatchList> removeSymbol(final UUID accountId, final Symbol symbol) {
+    return patchWatchList(accountId, List.of(), List.of(symbol));
   }
 
   public void deleteWatchList(final UUID accountId) {
-    watchListsPerAccount.remove(accountId);
+    final long[] deletion = new long[1];
+    watchListsPerAccount.computeIfPresent(accountId, (id, current) -> {
+      deletion[0] = versions.incrementAndGet();
+      countReplaced(current, null);
+      return null;
+    });
+    if (deletion[0] != 0) {
+      notifyListeners(accountId, Versioned.of(deletion[0], null));
+    }
+  }
+
+  /**
+   * Puts back a watchlist recovered from disk with its original version, without notifying listeners. A
+   * watchlist already stored with a higher version is kept. Versions handed out afterwards are higher than
+   * every restored one.
+   */
+  public void restoreWatchList(final UUID accountId, final long version, final List<Symbol> symbols) {
+    final WatchList restored = compact(symbols);
+    watchListsPerAccount.compute(accountId, (id, current) -> {
+      if (current != null && current.getVersion() >= version) {
+        return current;
+      }
+      final Versioned<WatchList> replacement = Versioned.of(version, restored);
+      countReplaced(current, replacement);
+      return replacement;
+    });
+    versions.accumulateAndGet(version, Math::max);
+  }
+
+  /**
+   * Removes a watchlist recovered as deleted with the given version, unless it is stored with a higher one,
+   * without notifying listeners.
+   */
+  public void restoreDeletion(final UUID accountId, final long version) {
+    watchListsPerAccount.computeIfPresent(accountId, (id, current) -> {
+      if (current.getVersion() > version) {
+        return current;
+      }
+      countReplaced(current, null);
+      return null;
+    });
+    versions.accumulateAndGet(version, Math::max);
+  }
+
+  /**
+   * Visits every stored watchlist without locking; concurrent changes may or may not be seen.
+   */
+  public void forEachWatchList(final BiConsumer<UUID, Versioned<WatchList>> action) {
+    watchListsPerAccount.forEach(action);
+  }
+
+  public int size() {
+    return watchListsPerAccount.size();
+  }
+
+  public long symbolCount() {
+    return symbolCount.get();
+  }
+
+  public synchronized void addListener(final WatchListListener listener) {
+    final WatchListListener[] copy = Arrays.copyOf(listeners, listeners.length + 1);
+    copy[listeners.length] = listener;
+    listeners = copy;
+  }
+
+  public synchronized void removeListener(final WatchListListener listener) {
+    listeners = Arrays.stream(listeners)
+        .filter(registered -> registered != listener)
+        .toArray(WatchListListener[]::new);
+  }
+
+  private void notifyListeners(final UUID accountId, final Versioned<WatchList> watchList) {
+    for (WatchListListener listener : listeners) {
+      listener.onWatchList(accountId, watchList);
+    }
+  }
+
+  private void countReplaced(final Versioned<WatchList> before, final Versioned<WatchList> after) {
+    final int delta = symbolsOf(after) - symbolsOf(before);
+    if (delta != 0) {
+      symbolCount.addAndGet(delta);
+    }
+  }
+
+  private static int symbolsOf(final Versioned<WatchList> watchList) {
+    return watchList == null ? 0 : watchList.getValue().getSymbols().size();
+  }
+
+  private WatchList compact(final List<Symbol> symbols) {
+    if (symbols.isEmpty()) {
+      return WatchList.EMPTY;
+    }
+    final Symbol[] interned = new Symbol[symbols.size()];
+    for (int i = 0; i < interned.length; i++) {
+      interned[i] = registry.intern(symbols.get(i));
+    }
+    return WatchList.adopt(interned);
   }
 }
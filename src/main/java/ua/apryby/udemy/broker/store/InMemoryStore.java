@@ -1,57 +1,169 @@
 package ua.apryby.udemy.broker.store;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import ua.apryby.udemy.broker.model.Quote;
 import ua.apryby.udemy.broker.model.Symbol;
 
 import javax.inject.Singleton;
-import java.math.BigDecimal;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Singleton
 public class InMemoryStore {
-    private final List<Symbol> symbols;
-    private final ThreadLocalRandom current = ThreadLocalRandom.current();
 
-    private final Map<String, Quote> cachedQuotes = new HashMap<>();
+    private final SymbolRegistry registry;
+    private final QuoteBook cachedQuotes;
+    private volatile Markets markets = new Markets(List.of(), 0);
+    private volatile QuoteListener[] listeners = new QuoteListener[0];
 
-    public InMemoryStore() {
-        symbols = Stream.of("AAPL", "AMZN", "FB", "GOOG", "MSFT", "NFLX", "TSLA")
+    public InMemoryStore(final SymbolRegistry registry) {
+        this.registry = registry;
+        this.cachedQuotes = new QuoteBook(registry);
+        final List<Symbol> symbols = Stream.of("AAPL", "AMZN", "FB", "GOOG", "MSFT", "NFLX", "TSLA")
                 .map(Symbol::new)
                 .collect(Collectors.toList());
-        symbols.forEach(symbol -> {
-            cachedQuotes.put(symbol.getValue(), randomQuote(symbol));
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        listSymbols(symbols, TickSize.DEFAULT).forEach(entry -> {
+            final long lastPrice = random.nextLong(100, 10_000);
+            final long halfSpread = random.nextLong(1, 10);
+            entry.update(lastPrice - halfSpread, lastPrice + halfSpread, lastPrice, random.nextLong(1, 100));
         });
     }
 
-    private Quote randomQuote(final Symbol symbol) {
-        return Quote.builder()
-                .symbol(symbol)
-                .bid(randomValue())
-                .ask(randomValue())
-                .lastPrice(randomValue())
-                .volume(randomValue())
-                .build();
+    /**
+     * Adds the symbol to the available markets and registers its quote entry.
+     */
+    public QuoteBook.Entry listSymbol(final Symbol symbol, final TickSize tickSize) {
+        return listSymbols(List.of(symbol), tickSize).get(0);
+    }
+
+    /**
+     * Adds the symbols to the available markets in one step, rebuilding the market list only once.
+     */
+    public synchronized List<QuoteBook.Entry> listSymbols(final Collection<Symbol> symbols, final TickSize tickSize) {
+        final Markets listed = markets;
+        final Set<Symbol> known = new HashSet<>(listed.symbols);
+        final List<Symbol> updated = new ArrayList<>(listed.symbols);
+        final List<QuoteBook.Entry> entries = new ArrayList<>(symbols.size());
+        for (Symbol symbol : symbols) {
+            final QuoteBook.Entry entry = cachedQuotes.register(symbol, tickSize);
+            if (known.add(entry.getSymbol())) {
+                updated.add(entry.getSymbol());
+            }
+            entries.add(entry);
+        }
+        if (updated.size() != listed.symbols.size()) {
+            markets = new Markets(updated, listed.version + 1);
+        }
+        return entries;
     }
 
     public List<Symbol> getAllSymbols() {
-        return symbols;
+        return markets.symbols;
+    }
+
+    public ByteBuf getAllSymbolsJson() {
+        return markets.json.duplicate();
+    }
+
+    public long getAllSymbolsVersion() {
+        return markets.version;
+    }
+
+    public SymbolRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * @return the book behind the quotes, for reading its statistics
+     */
+    public QuoteBook getQuoteBook() {
+        return cachedQuotes;
     }
 
     public Optional<Quote> fetchQuote(final String symbol) {
-        return Optional.ofNullable(cachedQuotes.get(symbol));
+        final QuoteTicks ticks = new QuoteTicks();
+        return cachedQuotes.read(symbol, ticks) ? Optional.of(ticks.toQuote()) : Optional.empty();
+    }
+
+    public boolean fetchQuote(final String symbol, final QuoteTicks into) {
+        return cachedQuotes.read(symbol, into);
+    }
+
+    public Optional<QuoteBook.EncodedJson> fetchQuoteJson(final String symbol) {
+        final QuoteBook.Entry entry = cachedQuotes.entry(symbol);
+        return entry == null ? Optional.empty() : Optional.ofNullable(entry.json());
+    }
+
+    public boolean writeQuoteJson(final String symbol, final ByteBuf out) {
+        final QuoteBook.Entry entry = cachedQuotes.entry(symbol);
+        return entry != null && entry.writeJson(out);
     }
 
-    private BigDecimal randomValue() {
-        return BigDecimal.valueOf(current.nextDouble(1, 100));
+    public QuoteBook.Entry quoteEntry(final String symbol) {
+        return cachedQuotes.entry(symbol);
+    }
+
+    public QuoteBook.Entry quoteEntry(final int symbolId) {
+        return cachedQuotes.entry(symbolId);
     }
 
     public void update(Quote quote) {
-        cachedQuotes.put(quote.getSymbol().getValue(), quote);
+        cachedQuotes.publish(quote);
+        notifyListeners(cachedQuotes.entry(quote.getSymbol().getValue()));
+    }
+
+    public void update(final String symbol, final long bid, final long ask, final long lastPrice, final long volume) {
+        update(registry.resolve(symbol), bid, ask, lastPrice, volume);
+    }
+
+    public void update(final int symbolId, final long bid, final long ask, final long lastPrice, final long volume) {
+        final QuoteBook.Entry entry = cachedQuotes.entry(symbolId);
+        if (entry == null) {
+            throw new IllegalArgumentException("Unknown symbol " + registry.symbol(symbolId));
+        }
+        entry.update(bid, ask, lastPrice, volume);
+        notifyListeners(entry);
+    }
+
+    public synchronized void addListener(final QuoteListener listener) {
+        final QuoteListener[] copy = Arrays.copyOf(listeners, listeners.length + 1);
+        copy[listeners.length] = listener;
+        listeners = copy;
+    }
+
+    public synchronized void removeListener(final QuoteListener listener) {
+        listeners = Arrays.stream(listeners)
+                .filter(registered -> registered != listener)
+                .toArray(QuoteListener[]::new);
+    }
+
+    private void notifyListeners(final QuoteBook.Entry entry) {
+        for (QuoteListener listener : listeners) {
+            listener.onQuote(entry);
+        }
+    }
+
+    private static final class Markets {
+        private final List<Symbol> symbols;
+        private final ByteBuf json;
+        private final long version;
+
+        private Markets(final List<Symbol> symbols, final long version) {
+            this.symbols = List.copyOf(symbols);
+            this.version = version;
+            final ByteBuf encoded = Unpooled.buffer();
+            QuoteJson.writeSymbols(this.symbols, encoded);
+            this.json = Unpooled.unreleasableBuffer(encoded.asReadOnly());
+        }
     }
 }
@@ -0,0 +1,278 @@
+package ua.apryby.udemy.broker.store;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import ua.apryby.udemy.broker.model.Quote;
+import ua.apryby.udemy.broker.model.Symbol;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent quote book, an array of entries indexed by the {@link SymbolRegistry} id of their symbol.
+ * <p>
+ * Every symbol owns an {@link Entry} whose prices are primitive ticks kept in two slots and guarded by a
+ * sequence that is odd while a write is in progress. A write fills the slot readers are not using and
+ * completes by moving the sequence on, so the last published quote stays readable throughout: readers
+ * never wait for a writer, even one descheduled mid-write, and only retry when two writes completed while
+ * they copied the fields. Writers claim the entry with a CAS on the sequence and therefore only contend
+ * with writers of the same symbol. Neither path allocates once the entry exists.
+ * <p>
+ * Entries also keep their quote pre-encoded as JSON. The encoding is rebuilt lazily by the first read
+ * after an update, so reads of unchanged quotes cost neither serialization nor garbage.
+ */
+public class QuoteBook {
+
+    private final SymbolRegistry registry;
+    // shared by all entries, striped so readers of different symbols do not contend
+    private final LongAdder jsonHits = new LongAdder();
+    private final LongAdder jsonMisses = new LongAdder();
+    private volatile Entry[] entries = new Entry[64];
+    private int size;
+
+    public QuoteBook() {
+        this(new SymbolRegistry());
+    }
+
+    public QuoteBook(final SymbolRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Entry register(final Symbol symbol, final TickSize tickSize) {
+        final int id = registry.register(symbol.getValue());
+        final Entry entry = entry(id);
+        if (entry != null) {
+            return entry;
+        }
+        synchronized (this) {
+            final Entry[] current = entries;
+            if (id < current.length && current[id] != null) {
+                return current[id];
+            }
+            // copied even when there is room, so a lock-free entry(id) only sees the entry once it is constructed
+            final Entry[] next = Arrays.copyOf(current,
+                    id < current.length ? current.length : Math.max(current.length * 2, id + 1));
+            final Entry created = new Entry(id, registry.symbol(id), tickSize, jsonHits, jsonMisses);
+            next[id] = created;
+            entries = next;
+            size++;
+            return created;
+        }
+    }
+
+    public Entry entry(final int id) {
+        final Entry[] current = entries;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    public Entry entry(final String symbol) {
+        return entry(registry.resolve(symbol));
+    }
+
+    public long publish(final Quote quote) {
+        final Entry entry = register(quote.getSymbol(), TickSize.DEFAULT);
+        final TickSize tickSize = entry.tickSize;
+        return entry.update(
+                tickSize.priceTicks(quote.getBid()),
+                tickSize.priceTicks(quote.getAsk()),
+                tickSize.priceTicks(quote.getLastPrice()),
+                tickSize.volumeTicks(quote.getVolume()));
+    }
+
+    public boolean read(final String symbol, final QuoteTicks into) {
+        final Entry entry = entry(symbol);
+        return entry != null && entry.read(into);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return updates published to all symbols, summed from their versions without counting on the write path
+     */
+    public long updates() {
+        long updates = 0;
+        for (Entry entry : entries) {
+            if (entry != null) {
+                updates += entry.getVersion();
+            }
+        }
+        return updates;
+    }
+
+    public long getJsonHits() {
+        return jsonHits.sum();
+    }
+
+    public long getJsonMisses() {
+        return jsonMisses.sum();
+    }
+
+    public static final class Entry {
+
+        private static final VarHandle SEQUENCE;
+
+        static {
+            try {
+                SEQUENCE = MethodHandles.lookup().findVarHandle(Entry.class, "sequence", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final int id;
+        private final Symbol symbol;
+        private final TickSize tickSize;
+        private final LongAdder jsonHits;
+        private final LongAdder jsonMisses;
+
+        private static final int FIELDS = 4;
+
+        private volatile long sequence;
+        private volatile EncodedJson json = EncodedJson.NONE;
+        // bid, ask, last price and volume of even versions followed by those of odd versions
+        private final long[] slots = new long[2 * FIELDS];
+
+        private Entry(final int id, final Symbol symbol, final TickSize tickSize,
+                      final LongAdder jsonHits, final LongAdder jsonMisses) {
+            this.id = id;
+            this.symbol = symbol;
+            this.tickSize = tickSize;
+            this.jsonHits = jsonHits;
+            this.jsonMisses = jsonMisses;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public Symbol getSymbol() {
+            return symbol;
+        }
+
+        public TickSize getTickSize() {
+            return tickSize;
+        }
+
+        /**
+         * @return number of completed updates, 0 until the first quote is published
+         */
+        public long getVersion() {
+            return sequence >>> 1;
+        }
+
+        public long update(final long bid, final long ask, final long lastPrice, final long volume) {
+            long seq;
+            while (true) {
+                seq = sequence;
+                if ((seq & 1) == 0 && SEQUENCE.compareAndSet(this, seq, seq + 1)) {
+                    break;
+                }
+                Thread.onSpinWait();
+            }
+            // version seq / 2 + 1 goes to the slot the published version seq / 2 is not read from
+            final int slot = slot((seq >>> 1) + 1);
+            slots[slot] = bid;
+            slots[slot + 1] = ask;
+            slots[slot + 2] = lastPrice;
+            slots[slot + 3] = volume;
+            sequence = seq + 2;
+            return (seq + 2) >>> 1;
+        }
+
+        /**
+         * @return JSON document of the current quote, {@code null} before the first update
+         */
+        public EncodedJson json() {
+            final EncodedJson cached = json;
+            if (cached.version == getVersion()) {
+                jsonHits.increment();
+                return cached;
+            }
+            final QuoteTicks ticks = new QuoteTicks();
+            if (!read(ticks)) {
+                return null;
+            }
+            jsonMisses.increment();
+            final ByteBuf scratch = Unpooled.buffer(128);
+            QuoteJson.write(ticks, scratch);
+            final EncodedJson encoded = new EncodedJson(ticks.getVersion(), Unpooled.unreleasableBuffer(
+                    Unpooled.wrappedBuffer(ByteBufUtil.getBytes(scratch)).asReadOnly()));
+            json = encoded;
+            return encoded;
+        }
+
+        public boolean writeJson(final ByteBuf out) {
+            final EncodedJson encoded = json();
+            if (encoded == null) {
+                return false;
+            }
+            out.writeBytes(encoded.bytes, encoded.bytes.readerIndex(), encoded.bytes.readableBytes());
+            return true;
+        }
+
+        public boolean read(final QuoteTicks into) {
+            long version;
+            long b;
+            long a;
+            long l;
+            long v;
+            while (true) {
+                // the latest completed version, whether or not the next one is being written
+                version = sequence >>> 1;
+                final int slot = slot(version);
+                b = slots[slot];
+                a = slots[slot + 1];
+                l = slots[slot + 2];
+                v = slots[slot + 3];
+                VarHandle.acquireFence();
+                // the slot is only rewritten once the write of version + 2 starts
+                if (sequence <= 2 * version + 2) {
+                    break;
+                }
+            }
+            if (version == 0) {
+                return false;
+            }
+            into.symbol = symbol;
+            into.tickSize = tickSize;
+            into.version = version;
+            into.bid = b;
+            into.ask = a;
+            into.lastPrice = l;
+            into.volume = v;
+            return true;
+        }
+
+        private static int slot(final long version) {
+            return (int) (version & 1) * FIELDS;
+        }
+    }
+
+    public static final class EncodedJson {
+        private static final EncodedJson NONE = new EncodedJson(-1, null);
+
+        private final long version;
+        private final ByteBuf bytes;
+
+        private EncodedJson(final long version, final ByteBuf bytes) {
+            this.version = version;
+            this.bytes = bytes;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return read-only view of the encoded document with its own reader index
+         */
+        public ByteBuf content() {
+            return bytes.duplicate();
+        }
+    }
+}
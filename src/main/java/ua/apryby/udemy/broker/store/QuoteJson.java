@@ -0,0 +1,131 @@
+package ua.apryby.udemy.broker.store;
+
+import io.netty.buffer.ByteBuf;
+import ua.apryby.udemy.broker.model.Symbol;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes quotes as UTF-8 JSON straight from their ticks, producing the same document Jackson renders for
+ * {@link ua.apryby.udemy.broker.model.Quote} without creating any {@code BigDecimal}. Symbol lists are
+ * rendered like Jackson renders a {@code List<Symbol>}.
+ */
+public final class QuoteJson {
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private QuoteJson() {
+    }
+
+    public static void write(final QuoteTicks quote, final ByteBuf out) {
+        final TickSize tickSize = quote.getTickSize();
+        writeSymbol(quote.getSymbol().getValue(), out);
+        writeAscii(",\"bid\":", out);
+        writeTicks(quote.getBid(), tickSize.getPriceScale(), out);
+        writeAscii(",\"ask\":", out);
+        writeTicks(quote.getAsk(), tickSize.getPriceScale(), out);
+        writeAscii(",\"lastPrice\":", out);
+        writeTicks(quote.getLastPrice(), tickSize.getPriceScale(), out);
+        writeAscii(",\"volume\":", out);
+        writeTicks(quote.getVolume(), tickSize.getVolumeScale(), out);
+        out.writeByte('}');
+    }
+
+    public static void writeSymbols(final List<Symbol> symbols, final ByteBuf out) {
+        out.writeByte('[');
+        for (int i = 0; i < symbols.size(); i++) {
+            if (i > 0) {
+                out.writeByte(',');
+            }
+            writeAscii("{\"value\":", out);
+            writeString(symbols.get(i).getValue(), out);
+            out.writeByte('}');
+        }
+        out.writeByte(']');
+    }
+
+    public static void writeNotFound(final String symbol, final ByteBuf out) {
+        writeSymbol(symbol, out);
+        writeAscii(",\"error\":\"NOT_FOUND\"}", out);
+    }
+
+    private static void writeSymbol(final String symbol, final ByteBuf out) {
+        writeAscii("{\"symbol\":{\"value\":", out);
+        writeString(symbol, out);
+        out.writeByte('}');
+    }
+
+    static void writeTicks(final long ticks, final int scale, final ByteBuf out) {
+        if (ticks == Long.MIN_VALUE) {
+            // the only value whose magnitude does not fit a long
+            writeAscii(BigDecimal.valueOf(ticks, scale).toPlainString(), out);
+            return;
+        }
+        long value = ticks;
+        if (value < 0) {
+            out.writeByte('-');
+            value = -value;
+        }
+        if (scale == 0) {
+            writeDigits(value, out);
+            return;
+        }
+        final long unit = POWERS_OF_TEN[scale];
+        writeDigits(value / unit, out);
+        out.writeByte('.');
+        final long fraction = value % unit;
+        for (int digits = digits(fraction); digits < scale; digits++) {
+            out.writeByte('0');
+        }
+        writeDigits(fraction, out);
+    }
+
+    private static void writeDigits(long value, final ByteBuf out) {
+        final int length = digits(value);
+        final int start = out.writerIndex();
+        out.ensureWritable(length);
+        for (int index = start + length - 1; index >= start; index--) {
+            out.setByte(index, (int) ('0' + value % 10));
+            value /= 10;
+        }
+        out.writerIndex(start + length);
+    }
+
+    private static int digits(final long value) {
+        int digits = 1;
+        long remaining = value;
+        while (remaining >= 10) {
+            remaining /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    static void writeString(final String value, final ByteBuf out) {
+        out.writeByte('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                out.writeCharSequence(value.subSequence(start, i), StandardCharsets.UTF_8);
+                out.writeByte('\\');
+                if (c == '"' || c == '\\') {
+                    out.writeByte(c);
+                } else {
+                    writeAscii(String.format("u%04x", (int) c), out);
+                }
+                start = i + 1;
+            }
+        }
+        out.writeCharSequence(start == 0 ? value : value.subSequence(start, value.length()), StandardCharsets.UTF_8);
+        out.writeByte('"');
+    }
+
+    static void writeAscii(final String value, final ByteBuf out) {
+        out.writeCharSequence(value, StandardCharsets.US_ASCII);
+    }
+}
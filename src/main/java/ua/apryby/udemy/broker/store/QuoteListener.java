@@ -0,0 +1,11 @@
+package ua.apryby.udemy.broker.store;
+
+/**
+ * Callback invoked on the writer thread after {@link InMemoryStore} published a quote. Implementations
+ * must be fast and non-blocking; they read the entry they need instead of receiving a copy.
+ */
+@FunctionalInterface
+public interface QuoteListener {
+
+    void onQuote(QuoteBook.Entry entry);
+}
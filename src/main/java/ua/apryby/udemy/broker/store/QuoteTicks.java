@@ -0,0 +1,57 @@
+package ua.apryby.udemy.broker.store;
+
+import ua.apryby.udemy.broker.model.Quote;
+import ua.apryby.udemy.broker.model.Symbol;
+
+/**
+ * Mutable, reusable holder of a quote in fixed-point ticks. Filled by {@link QuoteBook} reads without
+ * allocating; {@link #toQuote()} converts it to the API model at the boundary.
+ */
+public final class QuoteTicks {
+
+    Symbol symbol;
+    TickSize tickSize;
+    long version;
+    long bid;
+    long ask;
+    long lastPrice;
+    long volume;
+
+    public Symbol getSymbol() {
+        return symbol;
+    }
+
+    public TickSize getTickSize() {
+        return tickSize;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getBid() {
+        return bid;
+    }
+
+    public long getAsk() {
+        return ask;
+    }
+
+    public long getLastPrice() {
+        return lastPrice;
+    }
+
+    public long getVolume() {
+        return volume;
+    }
+
+    public Quote toQuote() {
+        return Quote.builder()
+                .symbol(symbol)
+                .bid(tickSize.price(bid))
+                .ask(tickSize.price(ask))
+                .lastPrice(tickSize.price(lastPrice))
+                .volume(tickSize.volume(volume))
+                .build();
+    }
+}
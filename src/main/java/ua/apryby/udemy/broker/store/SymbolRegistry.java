@@ -0,0 +1,66 @@
+package ua.apryby.udemy.broker.store;
+
+import ua.apryby.udemy.broker.model.Symbol;
+
+import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns every ticker once and assigns it a dense {@code int} id, so per-symbol state can live in arrays
+ * indexed by id. Ids are never reused; registering is rare and serialized, resolving is a lock-free
+ * hash lookup.
+ */
+@Singleton
+public class SymbolRegistry {
+
+    public static final int UNKNOWN = -1;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile Symbol[] symbols = new Symbol[64];
+    private volatile int size;
+
+    public int resolve(final String value) {
+        final Integer id = ids.get(value);
+        return id == null ? UNKNOWN : id;
+    }
+
+    public Symbol symbol(final int id) {
+        final Symbol[] current = symbols;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    /**
+     * @return the registered instance of the symbol, or the given one if it is not registered
+     */
+    public Symbol intern(final Symbol symbol) {
+        final int id = resolve(symbol.getValue());
+        return id == UNKNOWN ? symbol : symbols[id];
+    }
+
+    public int register(final String value) {
+        final Integer existing = ids.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (this) {
+            final Integer raced = ids.get(value);
+            if (raced != null) {
+                return raced;
+            }
+            final int id = size;
+            final Symbol[] current = symbols;
+            // copied even when there is room: resolvers read the array without locking
+            final Symbol[] next = Arrays.copyOf(current, id == current.length ? id * 2 : current.length);
+            next[id] = new Symbol(value);
+            symbols = next;
+            ids.put(value, id);
+            size = id + 1;
+            return id;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,51 @@
+package ua.apryby.udemy.broker.store;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * A value per symbol, in an array indexed by {@link SymbolRegistry} id. Reading is a volatile read and an array
+ * access. Writes are serialized and always publish a fresh copy of the array, never write into the one readers
+ * may hold, so a reader that finds a value also sees everything done to it before it was stored.
+ */
+public final class SymbolSlots<T> {
+
+    private volatile Object[] values = new Object[64];
+
+    /**
+     * @return the value of the symbol, null if it has none
+     */
+    @SuppressWarnings("unchecked")
+    public T get(final int id) {
+        final Object[] current = values;
+        return id >= 0 && id < current.length ? (T) current[id] : null;
+    }
+
+    /**
+     * @return the value of the symbol, created by the factory and stored if it has none
+     */
+    public T computeIfAbsent(final int id, final IntFunction<T> factory) {
+        final T value = get(id);
+        return value != null ? value : update(id, current -> current != null ? current : factory.apply(id));
+    }
+
+    /**
+     * Replaces the value of the symbol by what the change makes of it, null if it has none.
+     *
+     * @return the new value
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized T update(final int id, final UnaryOperator<T> change) {
+        final Object[] current = values;
+        final T before = id < current.length ? (T) current[id] : null;
+        final T after = change.apply(before);
+        if (after != before) {
+            final Object[] next = Arrays.copyOf(current,
+                    id < current.length ? current.length : Math.max(id + 1, current.length * 2));
+            next[id] = after;
+            values = next;
+        }
+        return after;
+    }
+}
@@ -0,0 +1,92 @@
+package ua.apryby.udemy.broker.store;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point scale of a symbol: prices are stored as {@code price * 10^priceScale} and volumes as
+ * {@code volume * 10^volumeScale} ticks.
+ */
+public final class TickSize {
+
+    public static final TickSize DEFAULT = new TickSize(2, 0);
+    public static final int MAX_SCALE = 9;
+    /**
+     * Decimal places averages of prices carry beyond the price scale.
+     */
+    public static final int AVERAGE_EXTRA_SCALE = 2;
+
+    private final int priceScale;
+    private final int volumeScale;
+
+    public TickSize(final int priceScale, final int volumeScale) {
+        if (priceScale < 0 || volumeScale < 0 || priceScale > MAX_SCALE || volumeScale > MAX_SCALE) {
+            throw new IllegalArgumentException("scale must be between 0 and " + MAX_SCALE);
+        }
+        this.priceScale = priceScale;
+        this.volumeScale = volumeScale;
+    }
+
+    public int getPriceScale() {
+        return priceScale;
+    }
+
+    public int getVolumeScale() {
+        return volumeScale;
+    }
+
+    public long priceTicks(final BigDecimal price) {
+        return toTicks(price, priceScale);
+    }
+
+    public long volumeTicks(final BigDecimal volume) {
+        return toTicks(volume, volumeScale);
+    }
+
+    /**
+     * @return the price in ticks, -1 if it is missing, finer than the price scale or out of range
+     */
+    public long exactPriceTicks(final BigDecimal price) {
+        return exactTicks(price, priceScale);
+    }
+
+    /**
+     * @return the volume in ticks, -1 if it is missing, finer than the volume scale or out of range
+     */
+    public long exactVolumeTicks(final BigDecimal volume) {
+        return exactTicks(volume, volumeScale);
+    }
+
+    public BigDecimal price(final long ticks) {
+        return BigDecimal.valueOf(ticks, priceScale);
+    }
+
+    /**
+     * @return the average of prices given in (fractional) ticks, rounded half-even to
+     * {@link #AVERAGE_EXTRA_SCALE} decimal places beyond the price scale
+     */
+    public BigDecimal averagePrice(final double ticks) {
+        return BigDecimal.valueOf(ticks)
+                .movePointLeft(priceScale)
+                .setScale(priceScale + AVERAGE_EXTRA_SCALE, RoundingMode.HALF_EVEN);
+    }
+
+    public BigDecimal volume(final long ticks) {
+        return BigDecimal.valueOf(ticks, volumeScale);
+    }
+
+    private static long exactTicks(final BigDecimal value, final int scale) {
+        if (value == null || value.stripTrailingZeros().scale() > scale) {
+            return -1;
+        }
+        try {
+            return value.setScale(scale).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    private static long toTicks(final BigDecimal value, final int scale) {
+        return value == null ? 0 : value.setScale(scale, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+}
@@ -0,0 +1,27 @@
+package ua.apryby.udemy.broker.store;
+
+/**
+ * Immutable pair of a stored value and the version it was stored with.
+ */
+public final class Versioned<T> {
+
+    private final long version;
+    private final T value;
+
+    private Versioned(final long version, final T value) {
+        this.version = version;
+        this.value = value;
+    }
+
+    public static <T> Versioned<T> of(final long version, final T value) {
+        return new Versioned<>(version, value);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public T getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,18 @@
+package ua.apryby.udemy.broker.store;
+
+import ua.apryby.udemy.broker.model.WatchList;
+
+import java.util.UUID;
+
+/**
+ * Callback invoked by {@link InMemoryAccountStore} on the mutating thread after a watchlist changed. Calls for
+ * the same account may race each other; the versions tell which change was applied last.
+ */
+@FunctionalInterface
+public interface WatchListListener {
+
+    /**
+     * @param watchList the stored watchlist, or the version of the deletion with a {@code null} value
+     */
+    void onWatchList(UUID accountId, Versioned<WatchList> watchList);
+}
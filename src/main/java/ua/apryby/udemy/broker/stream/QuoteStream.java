@@ -0,0 +1,100 @@
+package ua.apryby.udemy.broker.stream;
+
+import io.reactivex.Flowable;
+import io.reactivex.processors.FlowableProcessor;
+import io.reactivex.processors.PublishProcessor;
+import ua.apryby.udemy.broker.model.Quote;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.QuoteListener;
+import ua.apryby.udemy.broker.store.QuoteTicks;
+
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Pushes quote changes of {@link InMemoryStore} to subscribers.
+ * <p>
+ * Updates only signal which entry changed; the quote is read from the entry when the subscriber is ready
+ * to receive it. Each subscribed symbol is conflated with {@code onBackpressureLatest}, so a slow consumer
+ * gets the most recent price of every symbol instead of an ever growing backlog.
+ */
+@Singleton
+public class QuoteStream implements QuoteListener {
+
+    private final InMemoryStore store;
+    // indexed by symbol id
+    private volatile FlowableProcessor<QuoteBook.Entry>[] signals = newSignals(64);
+
+    public QuoteStream(final InMemoryStore store) {
+        this.store = store;
+        store.addListener(this);
+    }
+
+    @Override
+    public void onQuote(final QuoteBook.Entry entry) {
+        final FlowableProcessor<QuoteBook.Entry>[] current = signals;
+        final int id = entry.getId();
+        final FlowableProcessor<QuoteBook.Entry> signal = id < current.length ? current[id] : null;
+        if (signal != null && signal.hasSubscribers()) {
+            signal.onNext(entry);
+        }
+    }
+
+    /**
+     * @return changes of the given symbols, starting with their current quotes; unknown symbols are ignored
+     */
+    public Flowable<Quote> updates(final Collection<String> symbols) {
+        final List<Flowable<Quote>> perSymbol = new ArrayList<>(symbols.size());
+        for (String symbol : symbols) {
+            final QuoteBook.Entry entry = store.quoteEntry(symbol);
+            if (entry != null) {
+                perSymbol.add(updates(entry));
+            }
+        }
+        if (perSymbol.isEmpty()) {
+            return Flowable.empty();
+        }
+        return Flowable.merge(perSymbol, perSymbol.size(), 1);
+    }
+
+    private Flowable<Quote> updates(final QuoteBook.Entry entry) {
+        return signal(entry.getId())
+                .mergeWith(Flowable.just(entry))
+                .onBackpressureLatest()
+                .map(changed -> {
+                    final QuoteTicks ticks = new QuoteTicks();
+                    changed.read(ticks);
+                    return ticks;
+                })
+                .filter(ticks -> ticks.getVersion() > 0)
+                .distinctUntilChanged((previous, next) -> previous.getVersion() == next.getVersion())
+                .map(QuoteTicks::toQuote);
+    }
+
+    private FlowableProcessor<QuoteBook.Entry> signal(final int id) {
+        final FlowableProcessor<QuoteBook.Entry>[] current = signals;
+        if (id < current.length && current[id] != null) {
+            return current[id];
+        }
+        synchronized (this) {
+            FlowableProcessor<QuoteBook.Entry>[] grown = signals;
+            if (id >= grown.length) {
+                grown = Arrays.copyOf(grown, Math.max(grown.length * 2, id + 1));
+            }
+            if (grown[id] == null) {
+                grown[id] = PublishProcessor.<QuoteBook.Entry>create().toSerialized();
+            }
+            signals = grown;
+            return grown[id];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FlowableProcessor<QuoteBook.Entry>[] newSignals(final int size) {
+        return (FlowableProcessor<QuoteBook.Entry>[]) new FlowableProcessor[size];
+    }
+}
@@ -0,0 +1,128 @@
+package ua.apryby.udemy.auth.credentials;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordVerifierTest {
+
+    private static final int ITERATIONS = 1_000;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final CredentialsConfiguration configuration = new CredentialsConfiguration();
+    private InMemoryCredentialStore store;
+    private PasswordVerifier verifier;
+
+    @AfterEach
+    void tearDown() {
+        if (verifier != null) {
+            verifier.stop();
+        }
+    }
+
+    @Test
+    void hashesAndMatchesPasswords() {
+        final String encoded = PasswordHasher.encode("secret", ITERATIONS);
+
+        assertTrue(PasswordHasher.matches("secret", encoded));
+        assertFalse(PasswordHasher.matches("Secret", encoded));
+        assertFalse(PasswordHasher.matches("secret", "plain-text"));
+        assertFalse(encoded.equals(PasswordHasher.encode("secret", ITERATIONS)), "salted");
+    }
+
+    @Test
+    void parsesUsersWithRoles() {
+        final UserCredentials credentials = UserCredentials.parse("alice:pbkdf2-sha256$1$a$b:ADMIN, TRADER");
+
+        assertEquals("alice", credentials.getUsername());
+        assertEquals("pbkdf2-sha256$1$a$b", credentials.getPasswordHash());
+        assertEquals(List.of("ADMIN", "TRADER"), credentials.getRoles());
+        assertThrows(IllegalArgumentException.class, () -> UserCredentials.parse("alice"));
+    }
+
+    @Test
+    void letsRecentLoginInWithoutHashing() {
+        start();
+
+        assertEquals("alice", verifier.verify("alice", "secret").join().getUsername());
+        assertNull(verifier.verify("alice", "wrong").join());
+        assertNull(verifier.verify("mallory", "secret").join());
+        assertEquals(0, verifier.getCached());
+
+        assertEquals("alice", verifier.verify("alice", "secret").join().getUsername());
+        assertEquals(1, verifier.getCached());
+
+        now.addAndGet(configuration.getSuccessTtl().toMillis());
+        verifier.verify("alice", "secret").join();
+        assertEquals(1, verifier.getCached(), "expired");
+
+        store.put(UserCredentials.parse("alice:" + PasswordHasher.encode("changed", ITERATIONS)));
+        assertNull(verifier.verify("alice", "secret").join(), "password changed");
+    }
+
+    @Test
+    void throttlesAttemptsPerUser() {
+        configuration.setMaxAttempts(3);
+        start();
+
+        for (int i = 0; i < 3; i++) {
+            assertNull(verifier.verify("alice", "guess" + i).join());
+        }
+        final CompletionException e = assertThrows(CompletionException.class,
+                () -> verifier.verify("alice", "secret").join());
+        assertTrue(e.getCause() instanceof LoginRejectedException);
+        assertEquals(1, verifier.getThrottled());
+        assertNull(verifier.verify("bob", "guess").join(), "other users are not throttled");
+
+        now.addAndGet(configuration.getAttemptWindow().toMillis());
+        assertEquals("alice", verifier.verify("alice", "secret").join().getUsername());
+    }
+
+    @Test
+    void refusesLoginsWhenOverloadedWithoutSpendingAttempts() {
+        configuration.setMaxAttempts(2);
+        configuration.setHashThreads(1);
+        configuration.setQueueSize(1);
+        start(List.of("carol:" + PasswordHasher.encode("secret", 300_000)));
+
+        final CompletableFuture<UserCredentials> running = verifier.verify("carol", "guess");
+        final CompletableFuture<UserCredentials> queued = verifier.verify("carol", "guess");
+        for (int i = 0; i < 3; i++) {
+            final CompletionException e = assertThrows(CompletionException.class,
+                    () -> verifier.verify("alice", "secret").join());
+            assertTrue(e.getCause() instanceof LoginRejectedException);
+        }
+        assertEquals(3, verifier.getOverloaded());
+        assertNull(running.join());
+        assertNull(queued.join());
+
+        assertEquals("alice", verifier.verify("alice", "secret").join().getUsername());
+        assertEquals(0, verifier.getThrottled());
+    }
+
+    private void start() {
+        start(List.of());
+    }
+
+    private void start(final List<String> users) {
+        final List<String> all = new ArrayList<>(users);
+        all.add("alice:" + PasswordHasher.encode("secret", ITERATIONS));
+        all.add("bob:" + PasswordHasher.encode("secret", ITERATIONS));
+        configuration.setUsers(all);
+        configuration.setSuccessTtl(Duration.ofMinutes(1));
+        store = new InMemoryCredentialStore(configuration);
+        verifier = new PasswordVerifier(store, configuration, now::get);
+    }
+}
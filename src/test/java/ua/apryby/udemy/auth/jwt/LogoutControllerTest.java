@@ -0,0 +1,53 @@
+package ua.apryby.udemy.auth.jwt;
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.RxHttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.security.authentication.UsernamePasswordCredentials;
+import io.micronaut.security.token.jwt.render.BearerAccessRefreshToken;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import org.junit.jupiter.api.Test;
+import ua.apryby.udemy.broker.model.WatchList;
+
+import javax.inject.Inject;
+
+import static io.micronaut.http.HttpRequest.GET;
+import static io.micronaut.http.HttpRequest.POST;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@MicronautTest
+class LogoutControllerTest {
+
+    @Inject
+    @Client("/")
+    RxHttpClient client;
+
+    @Inject
+    TokenCache cache;
+
+    @Test
+    void servesRepeatedRequestsFromCacheUntilLogout() {
+        final String token = client.toBlocking()
+                .exchange(HttpRequest.POST("/login", new UsernamePasswordCredentials("my-user", "secret")),
+                        BearerAccessRefreshToken.class)
+                .body().getAccessToken();
+
+        final long hits = cache.getHits();
+        for (int i = 0; i < 3; i++) {
+            client.toBlocking().retrieve(GET("/account/watchlist").bearerAuth(token), WatchList.class);
+        }
+        assertTrue(cache.getHits() - hits >= 2);
+
+        final HttpResponse<?> logout = client.toBlocking().exchange(POST("/logout", "").bearerAuth(token));
+        assertEquals(HttpStatus.NO_CONTENT, logout.getStatus());
+
+        final HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                () -> client.toBlocking().retrieve(GET("/account/watchlist").bearerAuth(token), WatchList.class));
+        assertEquals(HttpStatus.UNAUTHORIZED, e.getStatus());
+    }
+}
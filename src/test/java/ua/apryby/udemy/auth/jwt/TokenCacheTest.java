@@ -0,0 +1,133 @@
+package ua.apryby.udemy.auth.jwt;
+
+import io.micronaut.security.authentication.Authentication;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    void servesVerifiedTokenUntilItExpires() {
+        final TokenCache cache = cache(16);
+        final TokenCache.TokenHash token = TokenCache.hash("header.payload.signature");
+        final Authentication authentication = authentication(now.get() + 60_000);
+
+        assertNull(cache.get(token));
+        cache.put(token, authentication);
+        assertSame(authentication, cache.get(TokenCache.hash("header.payload.signature")));
+        assertNull(cache.get(TokenCache.hash("header.payload.other")));
+
+        now.addAndGet(60_000);
+        assertNull(cache.get(token));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    void trustsTokenForAtMostMaxTtl() {
+        final TokenCache cache = cache(16);
+        final TokenCache.TokenHash token = TokenCache.hash("never.expiring.token");
+        cache.put(token, authentication(null));
+
+        now.addAndGet(Duration.ofMinutes(1).toMillis() - 1);
+        assertTrue(cache.get(token) != null);
+        now.incrementAndGet();
+        assertNull(cache.get(token));
+    }
+
+    @Test
+    void staysWithinMaxSize() {
+        final TokenCache cache = cache(100);
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(TokenCache.hash("token" + i), authentication(now.get() + 60_000));
+        }
+        assertTrue(cache.size() <= 100);
+    }
+
+    @Test
+    void dropsTokensExpiringSoonestWhenFull() {
+        final TokenCache cache = cache(2);
+        final TokenCache.TokenHash soon = TokenCache.hash("soon");
+        final TokenCache.TokenHash late = TokenCache.hash("late");
+        final TokenCache.TokenHash later = TokenCache.hash("later");
+        cache.put(late, authentication(now.get() + 30_000));
+        cache.put(soon, authentication(now.get() + 10_000));
+        cache.put(later, authentication(now.get() + 50_000));
+
+        assertNull(cache.get(soon));
+        assertTrue(cache.get(late) != null);
+        assertTrue(cache.get(later) != null);
+
+        now.addAndGet(30_000);
+        cache.put(soon, authentication(now.get() + 10_000));
+        assertNull(cache.get(late));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void forgetsRevocationsOnceTheirTokensExpire() {
+        final TokenCache cache = cache(16);
+        for (int i = 0; i < 100; i++) {
+            cache.revoke(TokenCache.hash("token" + i), authentication(now.get() + 60_000));
+        }
+        assertEquals(100, cache.revokedSize());
+
+        now.addAndGet(60_000);
+        final TokenCache.TokenHash last = TokenCache.hash("last");
+        cache.revoke(last, authentication(now.get() + 60_000));
+        assertEquals(1, cache.revokedSize());
+        assertTrue(cache.isRevoked(last));
+    }
+
+    @Test
+    void rejectsRevokedTokenUntilItExpires() {
+        final TokenCache cache = cache(16);
+        final TokenCache.TokenHash token = TokenCache.hash("header.payload.signature");
+        final Authentication authentication = authentication(now.get() + 60_000);
+        cache.put(token, authentication);
+
+        cache.revoke(token, authentication);
+        assertTrue(cache.isRevoked(token));
+        assertNull(cache.get(token));
+        cache.put(token, authentication);
+        assertNull(cache.get(token), "a verification finishing after the revocation is not cached");
+
+        now.addAndGet(60_000);
+        assertFalse(cache.isRevoked(token));
+    }
+
+    private TokenCache cache(final int maxSize) {
+        final TokenCacheConfiguration configuration = new TokenCacheConfiguration();
+        configuration.setMaxSize(maxSize);
+        configuration.setMaxTtl(Duration.ofMinutes(1));
+        return new TokenCache(configuration, now::get);
+    }
+
+    private static Authentication authentication(final Long expiresAt) {
+        final Map<String, Object> attributes = expiresAt == null ? Map.of() : Map.of("exp", new Date(expiresAt));
+        return new Authentication() {
+            @Override
+            public Map<String, Object> getAttributes() {
+                return attributes;
+            }
+
+            @Override
+            public String getName() {
+                return "my-user";
+            }
+        };
+    }
+}
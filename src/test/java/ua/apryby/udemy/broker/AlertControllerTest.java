@@ -0,0 +1,107 @@
+package ua.apryby.udemy.broker;
+
+import io.micronaut.core.type.Argument;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.RxHttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.security.authentication.UsernamePasswordCredentials;
+import io.micronaut.security.token.jwt.render.BearerAccessRefreshToken;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ua.apryby.udemy.auth.AccountIds;
+import ua.apryby.udemy.broker.error.CustomError;
+import ua.apryby.udemy.broker.model.Alert;
+import ua.apryby.udemy.broker.model.AlertDirection;
+import ua.apryby.udemy.broker.model.AlertRequest;
+import ua.apryby.udemy.broker.model.Symbol;
+import ua.apryby.udemy.broker.model.WatchList;
+import ua.apryby.udemy.broker.store.InMemoryAccountStore;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+
+import javax.inject.Inject;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static io.micronaut.http.HttpRequest.DELETE;
+import static io.micronaut.http.HttpRequest.GET;
+import static io.micronaut.http.HttpRequest.POST;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@MicronautTest
+class AlertControllerTest {
+
+    @Inject
+    @Client("/")
+    RxHttpClient client;
+
+    @Inject
+    InMemoryStore store;
+
+    @Inject
+    InMemoryAccountStore accounts;
+
+    @BeforeEach
+    void setUp() {
+        accounts.updateWatchList(AccountIds.forUsername("my-user"), new WatchList(List.of(new Symbol("TSLA"))));
+        store.update("TSLA", 9_999, 10_001, 10_000, 1);
+    }
+
+    @Test
+    void infersDirectionFromLastPriceAndDeletes() {
+        final String token = givenMyUserIsLoggedIn();
+
+        final Alert above = create(token, "TSLA", "150");
+        final Alert below = create(token, "TSLA", "50.5");
+        assertEquals(AlertDirection.ABOVE, above.getDirection());
+        assertEquals(AlertDirection.BELOW, below.getDirection());
+
+        final List<Alert> alerts = client.toBlocking()
+                .retrieve(GET("/account/alerts").bearerAuth(token), Argument.listOf(Alert.class));
+        assertTrue(alerts.contains(above) && alerts.contains(below));
+
+        final HttpResponse<?> deleted = client.toBlocking()
+                .exchange(DELETE("/account/alerts/" + above.getId()).bearerAuth(token));
+        assertEquals(HttpStatus.NO_CONTENT, deleted.getStatus());
+
+        final HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                () -> client.toBlocking().exchange(DELETE("/account/alerts/" + above.getId()).bearerAuth(token)));
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatus());
+    }
+
+    @Test
+    void rejectsSymbolNotOnWatchList() {
+        final String token = givenMyUserIsLoggedIn();
+
+        final HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                () -> create(token, "AAPL", "150"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+        assertEquals("symbol is not on the watchlist",
+                e.getResponse().getBody(CustomError.class).orElseThrow().getMessage());
+    }
+
+    private Alert create(final String token, final String symbol, final String price) {
+        final AlertRequest request = AlertRequest.builder()
+                .symbol(new Symbol(symbol))
+                .price(new BigDecimal(price))
+                .build();
+        final HttpResponse<Alert> response = client.toBlocking().exchange(
+                POST("/account/alerts", request).bearerAuth(token),
+                Argument.of(Alert.class), Argument.of(CustomError.class));
+        assertEquals(HttpStatus.CREATED, response.getStatus());
+        return response.body();
+    }
+
+    private String givenMyUserIsLoggedIn() {
+        final UsernamePasswordCredentials credentials = new UsernamePasswordCredentials("my-user", "secret");
+        return client.toBlocking()
+                .exchange(HttpRequest.POST("/login", credentials), BearerAccessRefreshToken.class)
+                .body().getAccessToken();
+    }
+}
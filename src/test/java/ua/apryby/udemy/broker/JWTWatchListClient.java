@@ -8,6 +8,7 @@ import io.micronaut.security.token.jwt.render.BearerAccessRefreshToken;
 import io.reactivex.Flowable;
 import io.reactivex.Single;
 import ua.apryby.udemy.broker.model.WatchList;
+import ua.apryby.udemy.broker.model.WatchListPatch;
 
 import java.util.UUID;
 
@@ -26,6 +27,9 @@ public interface JWTWatchListClient {
     @Put("/account/watchlist-reactive")
     HttpResponse<Object> updateWatchList(@Header String authorization, @Body WatchList watchList);
 
+    @Patch("/account/watchlist-reactive")
+    WatchList patchWatchList(@Header String authorization, @Body WatchListPatch patch);
+
     @Delete("/account/watchlist-reactive/{accountId}")
     HttpResponse<Object> deleteWatchList(@Header String authorization, @PathVariable UUID accountId);
 }
@@ -1,5 +1,8 @@
 package ua.apryby.udemy.broker;
 
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
 import io.micronaut.http.client.RxHttpClient;
 import io.micronaut.http.client.annotation.Client;
 import io.micronaut.runtime.EmbeddedApplication;
@@ -13,6 +16,7 @@ import java.util.List;
 import static io.micronaut.http.HttpRequest.GET;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 @MicronautTest
 class MarketsControllerTest {
@@ -33,4 +37,15 @@ class MarketsControllerTest {
                 .extracting(entry -> entry.get("value"))
                 .containsExactlyInAnyOrder("AAPL", "AMZN", "FB", "GOOG", "MSFT", "NFLX", "TSLA");
     }
+
+    @Test
+    void returnsNotModifiedForCurrentETag() {
+        final HttpResponse<List> first = client.toBlocking().exchange("/markets", List.class);
+        final String etag = first.getHeaders().get(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        final HttpResponse<List> second = client.toBlocking()
+                .exchange(GET("/markets").header(HttpHeaders.IF_NONE_MATCH, etag), List.class);
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getStatus());
+    }
 }
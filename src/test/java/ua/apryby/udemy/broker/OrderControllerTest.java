@@ -0,0 +1,127 @@
+package ua.apryby.udemy.broker;
+
+import io.micronaut.core.type.Argument;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.RxHttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.security.authentication.UsernamePasswordCredentials;
+import io.micronaut.security.token.jwt.render.BearerAccessRefreshToken;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import org.junit.jupiter.api.Test;
+import ua.apryby.udemy.broker.error.CustomError;
+import ua.apryby.udemy.broker.model.Order;
+import ua.apryby.udemy.broker.model.OrderRequest;
+import ua.apryby.udemy.broker.model.OrderStatus;
+import ua.apryby.udemy.broker.model.OrderType;
+import ua.apryby.udemy.broker.model.Portfolio;
+import ua.apryby.udemy.broker.model.Side;
+import ua.apryby.udemy.broker.model.Symbol;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteTicks;
+
+import javax.inject.Inject;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static io.micronaut.http.HttpRequest.GET;
+import static io.micronaut.http.HttpRequest.POST;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@MicronautTest
+class OrderControllerTest {
+
+    @Inject
+    @Client("/")
+    RxHttpClient client;
+
+    @Inject
+    InMemoryStore store;
+
+    @Test
+    void matchesCrossingOrdersAndPublishesTrade() throws InterruptedException {
+        final String token = givenMyUserIsLoggedIn();
+
+        final Order resting = place(token, Side.SELL, OrderType.LIMIT, "123.45", "10");
+        assertEquals(OrderStatus.NEW, resting.getStatus());
+
+        final Order taker = place(token, Side.BUY, OrderType.MARKET, null, "4");
+        assertEquals(OrderStatus.FILLED, taker.getStatus());
+        assertEquals(new BigDecimal("123.45"), taker.getAveragePrice());
+
+        // trades reach the store through the ingestion pipeline
+        final QuoteTicks quote = new QuoteTicks();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (store.fetchQuote("AMZN", quote) && quote.getLastPrice() != 12_345 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(store.fetchQuote("AMZN", quote));
+        assertEquals(12_345, quote.getLastPrice());
+        assertEquals(4, quote.getVolume());
+    }
+
+    @Test
+    void listsTradedSymbolInPortfolio() {
+        final String token = givenMyUserIsLoggedIn();
+        place(token, Side.SELL, OrderType.LIMIT, "50", "1");
+        place(token, Side.BUY, OrderType.LIMIT, "50", "1");
+
+        final Portfolio portfolio = client.toBlocking()
+                .retrieve(GET("/account/portfolio").bearerAuth(token), Portfolio.class);
+
+        assertTrue(portfolio.getPositions().stream()
+                .anyMatch(position -> position.getSymbol().getValue().equals("AMZN")));
+        assertNotNull(portfolio.getRealizedPnl());
+    }
+
+    @Test
+    void rejectsPriceFinerThanTickSize() {
+        final String token = givenMyUserIsLoggedIn();
+
+        final HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                () -> place(token, Side.BUY, OrderType.LIMIT, "1.001", "1"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+        assertEquals("limit price must be positive with at most 2 decimals",
+                e.getResponse().getBody(CustomError.class).orElseThrow().getMessage());
+    }
+
+    @Test
+    void requiresAuthentication() {
+        final HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                () -> client.toBlocking().exchange(POST("/account/orders", request(Side.BUY, OrderType.MARKET, null, "1"))));
+        assertEquals(HttpStatus.UNAUTHORIZED, e.getStatus());
+    }
+
+    private Order place(final String token, final Side side, final OrderType type,
+                        final String price, final String quantity) {
+        final HttpResponse<Order> response = client.toBlocking().exchange(
+                POST("/account/orders", request(side, type, price, quantity)).bearerAuth(token),
+                Argument.of(Order.class), Argument.of(CustomError.class));
+        assertEquals(HttpStatus.CREATED, response.getStatus());
+        return response.body();
+    }
+
+    private static OrderRequest request(final Side side, final OrderType type,
+                                        final String price, final String quantity) {
+        return OrderRequest.builder()
+                .symbol(new Symbol("AMZN"))
+                .side(side)
+                .type(type)
+                .price(price == null ? null : new BigDecimal(price))
+                .quantity(new BigDecimal(quantity))
+                .build();
+    }
+
+    private String givenMyUserIsLoggedIn() {
+        final UsernamePasswordCredentials credentials = new UsernamePasswordCredentials("my-user", "secret");
+        return client.toBlocking()
+                .exchange(HttpRequest.POST("/login", credentials), BearerAccessRefreshToken.class)
+                .body().getAccessToken();
+    }
+}
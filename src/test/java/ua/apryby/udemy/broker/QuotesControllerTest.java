@@ -1,28 +1,41 @@
 package ua.apryby.udemy.broker;
 
 import io.micronaut.core.type.Argument;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.client.RxHttpClient;
 import io.micronaut.http.client.annotation.Client;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.http.client.sse.RxSseClient;
+import io.micronaut.http.sse.Event;
 import io.micronaut.runtime.EmbeddedApplication;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ua.apryby.udemy.broker.error.CustomError;
+import ua.apryby.udemy.broker.model.Bar;
 import ua.apryby.udemy.broker.model.Quote;
+import ua.apryby.udemy.broker.model.QuoteStatistics;
 import ua.apryby.udemy.broker.model.Symbol;
 import ua.apryby.udemy.broker.store.InMemoryStore;
 
 import javax.inject.Inject;
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ThreadLocalRandom;
 
 import static io.micronaut.http.HttpRequest.GET;
+import static io.micronaut.http.HttpRequest.POST;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @MicronautTest
@@ -39,6 +52,10 @@ class QuotesControllerTest {
     @Client("/")
     RxHttpClient client;
 
+    @Inject
+    @Client("/")
+    RxSseClient sseClient;
+
     @Test
     void returnsQuotePerSymbol() {
 
@@ -72,6 +89,108 @@ class QuotesControllerTest {
         }
     }
 
+    @Test
+    void returnsNotModifiedWhenQuoteDidNotChange() {
+        store.update(initRandomQuote("ETAG"));
+        final HttpResponse<Quote> first = client.toBlocking().exchange(GET("/quotes/ETAG"), Quote.class);
+        final String etag = first.getHeaders().get(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        final HttpResponse<Quote> unchanged = client.toBlocking()
+                .exchange(GET("/quotes/ETAG").header(HttpHeaders.IF_NONE_MATCH, etag), Quote.class);
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatus());
+
+        store.update(initRandomQuote("ETAG"));
+        final HttpResponse<Quote> changed = client.toBlocking()
+                .exchange(GET("/quotes/ETAG").header(HttpHeaders.IF_NONE_MATCH, etag), Quote.class);
+        assertEquals(HttpStatus.OK, changed.getStatus());
+        assertNotEquals(etag, changed.getHeaders().get(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void returnsQuotesForBatchOfSymbols() {
+        final List<Map<String, Object>> result = client.toBlocking()
+                .retrieve(GET("/quotes?symbols=AAPL,UNSUPPORTED,MSFT"), Argument.listOf(Argument.mapOf(String.class, Object.class)));
+
+        assertThat(result)
+                .extracting(entry -> (Object) ((Map<?, ?>) entry.get("symbol")).get("value"))
+                .containsExactly("AAPL", "UNSUPPORTED", "MSFT");
+        assertNotNull(result.get(0).get("lastPrice"));
+        assertEquals("NOT_FOUND", result.get(1).get("error"));
+    }
+
+    @Test
+    void returnsQuotesForPostedBatchOfSymbols() {
+        final List<Quote> result = client.toBlocking()
+                .retrieve(POST("/quotes/batch", List.of("GOOG", "TSLA")), Argument.listOf(Quote.class));
+
+        assertThat(result)
+                .extracting(quote -> quote.getSymbol().getValue())
+                .containsExactly("GOOG", "TSLA");
+        assertNotNull(result.get(0).getLastPrice());
+        assertNotNull(result.get(1).getVolume());
+    }
+
+    @Test
+    void skipsBlankAndRepeatedSymbolsOfPostedBatch() {
+        final List<Quote> result = client.toBlocking()
+                .retrieve(POST("/quotes/batch", Arrays.asList("GOOG", null, " ", "GOOG ", "TSLA")),
+                        Argument.listOf(Quote.class));
+
+        assertThat(result)
+                .extracting(quote -> quote.getSymbol().getValue())
+                .containsExactly("GOOG", "TSLA");
+    }
+
+    @Test
+    void streamsCurrentQuoteOfSubscribedSymbols() {
+        final Quote quote = sseClient.eventStream(GET("/quotes/stream?symbols=AAPL,UNSUPPORTED"), Quote.class)
+                .map(Event::getData)
+                .blockingFirst();
+
+        assertEquals("AAPL", quote.getSymbol().getValue());
+        assertNotNull(quote.getLastPrice());
+    }
+
+    @Test
+    void returnsBarsOfRecordedQuotes() {
+        store.update("AMZN", 10_000, 10_002, 10_001, 3);
+        store.update("AMZN", 10_000, 10_002, 10_050, 2);
+
+        final List<Bar> bars = client.toBlocking()
+                .retrieve(GET("/quotes/AMZN/bars?interval=1h"), Argument.listOf(Bar.class));
+
+        final Bar last = bars.get(bars.size() - 1);
+        assertEquals(new BigDecimal("100.50"), last.getClose());
+        assertTrue(last.getHigh().compareTo(new BigDecimal("100.50")) >= 0);
+    }
+
+    @Test
+    void returnsStatisticsOfRecordedQuotes() {
+        store.update("NFLX", 100, 100, 100, 1);
+        store.update("NFLX", 300, 300, 300, 3);
+
+        final QuoteStatistics statistics = client.toBlocking()
+                .retrieve(GET("/quotes/NFLX/statistics"), QuoteStatistics.class);
+
+        assertEquals("NFLX", statistics.getSymbol().getValue());
+        assertTrue(statistics.getTicks().getCount() >= 2);
+        assertNotNull(statistics.getTicks().getVwap());
+        assertNotNull(statistics.getTime().getSma());
+    }
+
+    @Test
+    void rejectsUnknownBarInterval() {
+        final HttpClientResponseException e = assertThrows(HttpClientResponseException.class, () ->
+                client.toBlocking().retrieve(GET("/quotes/AAPL/bars?interval=2m"),
+                        Argument.listOf(Bar.class), Argument.of(CustomError.class)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getResponse().getStatus());
+        final Optional<CustomError> customError = e.getResponse().getBody(CustomError.class);
+        assertTrue(customError.isPresent());
+        assertEquals("interval must be one of 1s, 1m, 5m, 1h", customError.get().getMessage());
+    }
+
     private Quote initRandomQuote(String symbolValue) {
         return Quote.builder()
                 .symbol(new Symbol(symbolValue))
@@ -9,9 +9,10 @@ import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import ua.apryby.udemy.broker.account.WatchListControllerReactive;
+import ua.apryby.udemy.auth.AccountIds;
 import ua.apryby.udemy.broker.model.Symbol;
 import ua.apryby.udemy.broker.model.WatchList;
+import ua.apryby.udemy.broker.model.WatchListPatch;
 import ua.apryby.udemy.broker.store.InMemoryAccountStore;
 
 import javax.inject.Inject;
@@ -28,7 +29,7 @@ import static org.junit.jupiter.api.Assertions.*;
 class WatchListControllerReactiveTest {
 
     private static final Logger LOG = LoggerFactory.getLogger(WatchListControllerReactiveTest.class);
-    private static final UUID TEST_ACCOUNT_ID = WatchListControllerReactive.ACCOUNT_ID;
+    private static final UUID TEST_ACCOUNT_ID = AccountIds.forUsername("my-user");
     public static final String ACCOUNT_WATCHLIST = "/account/watchlist-reactive";
 
     @Inject
@@ -83,6 +84,17 @@ class WatchListControllerReactiveTest {
         assertEquals(watchList, store.getWatchList(TEST_ACCOUNT_ID));
     }
 
+    @Test
+    void canAddAndRemoveSymbolsOfWatchList() {
+        store.updateWatchList(TEST_ACCOUNT_ID, new WatchList(List.of(new Symbol("AAPL"))));
+
+        final WatchListPatch patch = new WatchListPatch(List.of(new Symbol("TSLA")), List.of(new Symbol("AAPL")));
+        final WatchList result = client.patchWatchList(getAuthorizationHeader(), patch);
+
+        assertEquals(List.of(new Symbol("TSLA")), result.getSymbols());
+        assertEquals(List.of(new Symbol("TSLA")), store.getWatchList(TEST_ACCOUNT_ID).getSymbols());
+    }
+
     @Test
     void canDeleteWatchListForAccount() {
         final List<Symbol> symbols = Stream.of("APPL", "AMZN", "NFLX")
@@ -93,7 +105,7 @@ class WatchListControllerReactiveTest {
         assertFalse(store.getWatchList(TEST_ACCOUNT_ID).getSymbols().isEmpty());
 
         var request = DELETE("/" + TEST_ACCOUNT_ID);
-        final HttpResponse<Object> deleted = client.deleteWatchList(getAuthorizationHeader(), WatchListControllerReactive.ACCOUNT_ID);
+        final HttpResponse<Object> deleted = client.deleteWatchList(getAuthorizationHeader(), TEST_ACCOUNT_ID);
         assertEquals(HttpStatus.OK, deleted.getStatus());
         assertTrue(store.getWatchList(TEST_ACCOUNT_ID).getSymbols().isEmpty());
     }
@@ -1,9 +1,11 @@
 package ua.apryby.udemy.broker;
 
+import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpRequest;
 import io.micronaut.http.client.RxHttpClient;
 import io.micronaut.http.client.annotation.Client;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
@@ -13,9 +15,10 @@ import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import ua.apryby.udemy.broker.account.WatchListController;
+import ua.apryby.udemy.auth.AccountIds;
 import ua.apryby.udemy.broker.model.Symbol;
 import ua.apryby.udemy.broker.model.WatchList;
+import ua.apryby.udemy.broker.model.WatchListPatch;
 import ua.apryby.udemy.broker.store.InMemoryAccountStore;
 
 import javax.inject.Inject;
@@ -31,7 +34,7 @@ import static org.junit.jupiter.api.Assertions.*;
 class WatchListControllerTest {
 
     private static final Logger LOG = LoggerFactory.getLogger(WatchListControllerTest.class);
-    private static final UUID TEST_ACCOUNT_ID = WatchListController.ACCOUNT_ID;
+    private static final UUID TEST_ACCOUNT_ID = AccountIds.forUsername("my-user");
 
     @Inject
     @Client("/")
@@ -95,6 +98,29 @@ class WatchListControllerTest {
         assertEquals(3, store.getWatchList(TEST_ACCOUNT_ID).getSymbols().size());
     }
 
+    @Test
+    void returnsNotModifiedUntilWatchListChanges() {
+        BearerAccessRefreshToken token = givenMyUserIsLoggedIn();
+        store.updateWatchList(TEST_ACCOUNT_ID, new WatchList(List.of(new Symbol("AAPL"))));
+
+        final HttpResponse<WatchList> first = client.toBlocking().exchange(GET("/account/watchlist")
+                .bearerAuth(token.getAccessToken()), WatchList.class);
+        final String etag = first.getHeaders().get(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        final HttpResponse<WatchList> unchanged = client.toBlocking().exchange(GET("/account/watchlist")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .bearerAuth(token.getAccessToken()), WatchList.class);
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatus());
+
+        store.updateWatchList(TEST_ACCOUNT_ID, new WatchList(List.of(new Symbol("MSFT"))));
+        final HttpResponse<WatchList> changed = client.toBlocking().exchange(GET("/account/watchlist")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .bearerAuth(token.getAccessToken()), WatchList.class);
+        assertEquals(HttpStatus.OK, changed.getStatus());
+        assertNotEquals(etag, changed.getHeaders().get(HttpHeaders.ETAG));
+    }
+
     @Test
     void canUpdateWatchListForAccount() {
         BearerAccessRefreshToken token = givenMyUserIsLoggedIn();
@@ -113,6 +139,38 @@ class WatchListControllerTest {
         assertEquals(watchList, store.getWatchList(TEST_ACCOUNT_ID));
     }
 
+    @Test
+    void canAddAndRemoveSymbolsOfWatchList() {
+        BearerAccessRefreshToken token = givenMyUserIsLoggedIn();
+        store.updateWatchList(TEST_ACCOUNT_ID, new WatchList(List.of(new Symbol("AAPL"), new Symbol("AMZN"))));
+
+        final WatchListPatch patch = new WatchListPatch(List.of(new Symbol("NFLX")), List.of(new Symbol("AAPL")));
+        var request = HttpRequest.PATCH("/account/watchlist", patch)
+                .accept(MediaType.APPLICATION_JSON)
+                .bearerAuth(token.getAccessToken());
+
+        final WatchList result = client.toBlocking().retrieve(request, WatchList.class);
+        final List<Symbol> expected = List.of(new Symbol("AMZN"), new Symbol("NFLX"));
+        assertEquals(expected, result.getSymbols());
+        assertEquals(expected, store.getWatchList(TEST_ACCOUNT_ID).getSymbols());
+    }
+
+    @Test
+    void refusesNullSymbolsWithBadRequest() {
+        final BearerAccessRefreshToken token = givenMyUserIsLoggedIn();
+        final List<MutableHttpRequest<String>> requests = List.of(
+                PUT("/account/watchlist", "{\"symbols\":[{\"value\":null}]}"),
+                PUT("/account/watchlist", "{\"symbols\":[null]}"),
+                HttpRequest.PATCH("/account/watchlist", "{\"add\":[null],\"remove\":[]}"));
+
+        for (MutableHttpRequest<String> request : requests) {
+            request.contentType(MediaType.APPLICATION_JSON).bearerAuth(token.getAccessToken());
+            final HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                    () -> client.toBlocking().retrieve(request, WatchList.class));
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+        }
+    }
+
     @Test
     void canDeleteWatchListForAccount() {
         final BearerAccessRefreshToken token = givenMyUserIsLoggedIn();
@@ -132,6 +190,20 @@ class WatchListControllerTest {
         assertTrue(store.getWatchList(TEST_ACCOUNT_ID).getSymbols().isEmpty());
     }
 
+    @Test
+    void cannotDeleteWatchListOfOtherAccount() {
+        final BearerAccessRefreshToken token = givenMyUserIsLoggedIn();
+        final UUID otherAccount = AccountIds.forUsername("other-user");
+        store.updateWatchList(otherAccount, new WatchList(List.of(new Symbol("AAPL"))));
+
+        var request = DELETE("/account/watchlist/" + otherAccount)
+                .bearerAuth(token.getAccessToken());
+        final HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                () -> client.toBlocking().exchange(request));
+        assertEquals(HttpStatus.FORBIDDEN, e.getStatus());
+        assertEquals(1, store.getWatchList(otherAccount).getSymbols().size());
+    }
+
     private BearerAccessRefreshToken givenMyUserIsLoggedIn() {
         UsernamePasswordCredentials credentials = new UsernamePasswordCredentials("my-user", "secret");
         var login = HttpRequest.POST("/login", credentials);
@@ -0,0 +1,100 @@
+package ua.apryby.udemy.broker.account;
+
+import io.reactivex.observers.TestObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountShardsTest {
+
+    private final AccountShards shards = shards(4, 1_024);
+
+    @AfterEach
+    void tearDown() {
+        shards.stop();
+    }
+
+    @Test
+    void runsTasksOfOneAccountInOrderOnOneThread() {
+        final UUID account = UUID.randomUUID();
+        final List<Integer> applied = new ArrayList<>();
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        final List<CompletableFuture<Integer>> results = IntStream.range(0, 1_000)
+                .mapToObj(i -> shards.submit(account, () -> {
+                    threads.add(Thread.currentThread().getName());
+                    // unsynchronized on purpose: only one thread ever touches it
+                    applied.add(i);
+                    return i;
+                }))
+                .collect(Collectors.toList());
+        results.forEach(CompletableFuture::join);
+
+        assertEquals(IntStream.range(0, 1_000).boxed().collect(Collectors.toList()), applied);
+        assertEquals(1, threads.size());
+    }
+
+    @Test
+    void refusesChangesBeyondTheQueueOfAShard() throws InterruptedException {
+        final AccountShards bounded = shards(1, 2);
+        final UUID account = UUID.randomUUID();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch running = new CountDownLatch(1);
+        try {
+            final CompletableFuture<Boolean> blocked = bounded.submit(account, () -> {
+                running.countDown();
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            running.await();
+            final CompletableFuture<Integer> queued = bounded.submit(account, () -> 1);
+            final TestObserver<Integer> single = bounded.single(account, () -> 2).test();
+
+            assertThrows(RejectedExecutionException.class, () -> bounded.submit(account, () -> 3));
+            bounded.single(account, () -> 4).test().assertError(RejectedExecutionException.class);
+
+            release.countDown();
+            assertTrue(blocked.join());
+            assertEquals(1, queued.join());
+            single.awaitDone(10, TimeUnit.SECONDS).assertValue(2);
+        } finally {
+            bounded.stop();
+        }
+    }
+
+    @Test
+    void spreadsAccountsOverAllShards() {
+        final int[] accounts = new int[4];
+        for (int i = 0; i < 10_000; i++) {
+            accounts[shards.shard(UUID.randomUUID())]++;
+        }
+        for (int count : accounts) {
+            assertTrue(count > 2_000, "roughly even: " + count);
+        }
+    }
+
+    private static AccountShards shards(final int count, final int queueSize) {
+        final AccountConfiguration configuration = new AccountConfiguration();
+        configuration.setShards(count);
+        configuration.setQueueSize(queueSize);
+        return new AccountShards(configuration);
+    }
+}
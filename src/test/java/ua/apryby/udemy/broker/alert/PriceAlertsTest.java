@@ -0,0 +1,168 @@
+package ua.apryby.udemy.broker.alert;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.reactivex.subscribers.TestSubscriber;
+import org.junit.jupiter.api.Test;
+import ua.apryby.udemy.broker.model.Alert;
+import ua.apryby.udemy.broker.model.AlertDirection;
+import ua.apryby.udemy.broker.model.AlertNotification;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.SymbolRegistry;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceAlertsTest {
+
+    private static final UUID ALICE = UUID.randomUUID();
+    private static final UUID BOB = UUID.randomUUID();
+
+    private final InMemoryStore store = new InMemoryStore(new SymbolRegistry());
+    private final PriceAlerts alerts = new PriceAlerts(store, new SimpleMeterRegistry());
+    private final QuoteBook.Entry apple = store.quoteEntry("AAPL");
+
+    @Test
+    void triggersOnlyCrossedThresholdsOnce() {
+        final TestSubscriber<AlertNotification> notifications = alerts.notifications(ALICE).test();
+        final Alert rise = alerts.register(ALICE, apple, AlertDirection.ABOVE, 15_000);
+        final Alert further = alerts.register(ALICE, apple, AlertDirection.ABOVE, 16_000);
+        final Alert fall = alerts.register(ALICE, apple, AlertDirection.BELOW, 9_000);
+
+        quote("AAPL", 12_000);
+        notifications.assertValueCount(0);
+
+        quote("AAPL", 15_000);
+        quote("AAPL", 15_500);
+        notifications.assertValueCount(1);
+        assertEquals(rise, notifications.values().get(0).getAlert());
+        assertEquals(new BigDecimal("150.00"), notifications.values().get(0).getLastPrice());
+
+        quote("AAPL", 8_000);
+        notifications.assertValueCount(2);
+        assertEquals(fall, notifications.values().get(1).getAlert());
+        assertEquals(List.of(further), alerts.alerts(ALICE));
+        assertEquals(2, alerts.getTriggered());
+    }
+
+    @Test
+    void deletesOnlyOwnPendingAlerts() {
+        final Alert alert = alerts.register(ALICE, apple, AlertDirection.ABOVE, 15_000);
+
+        assertFalse(alerts.delete(BOB, alert.getId()));
+        assertTrue(alerts.delete(ALICE, alert.getId()));
+        assertFalse(alerts.delete(ALICE, alert.getId()));
+
+        quote("AAPL", 20_000);
+        assertEquals(0, alerts.getTriggered());
+        assertTrue(alerts.alerts(ALICE).isEmpty());
+    }
+
+    @Test
+    void replaysAlertsTriggeredWhileUnsubscribed() {
+        final Alert first = alerts.register(ALICE, apple, AlertDirection.ABOVE, 15_000);
+        final Alert second = alerts.register(ALICE, apple, AlertDirection.ABOVE, 16_000);
+
+        quote("AAPL", 15_000);
+        final TestSubscriber<AlertNotification> reconnected = alerts.notifications(ALICE).test();
+        reconnected.assertValueCount(1);
+        assertEquals(first, reconnected.values().get(0).getAlert());
+        reconnected.cancel();
+
+        quote("AAPL", 16_000);
+        final TestSubscriber<AlertNotification> notifications = alerts.notifications(ALICE).test();
+        notifications.assertValueCount(1);
+        assertEquals(second, notifications.values().get(0).getAlert());
+    }
+
+    @Test
+    void letsSubscribersCancelFromOnNext() {
+        final Alert first = alerts.register(ALICE, apple, AlertDirection.ABOVE, 15_000);
+        final Alert second = alerts.register(ALICE, apple, AlertDirection.ABOVE, 16_000);
+        final TestSubscriber<AlertNotification> once = alerts.notifications(ALICE).take(1).test();
+
+        quote("AAPL", 15_000);
+        once.assertValueCount(1).assertComplete();
+        assertEquals(first, once.values().get(0).getAlert());
+
+        quote("AAPL", 16_000);
+        final TestSubscriber<AlertNotification> notifications = alerts.notifications(ALICE).test();
+        notifications.assertValueCount(1);
+        assertEquals(second, notifications.values().get(0).getAlert());
+    }
+
+    @Test
+    void keepsOnlyLatestUndeliveredAlerts() {
+        for (int i = 0; i < PriceAlerts.BACKLOG + 10; i++) {
+            alerts.register(ALICE, apple, AlertDirection.ABOVE, 15_000 + i);
+        }
+        quote("AAPL", 20_000);
+
+        final TestSubscriber<AlertNotification> notifications = alerts.notifications(ALICE).test();
+        notifications.assertValueCount(PriceAlerts.BACKLOG);
+        assertEquals(new BigDecimal("150.10"), notifications.values().get(0).getAlert().getPrice());
+    }
+
+    @Test
+    void dropsAccountsWithNothingLeft() {
+        final Alert alert = alerts.register(ALICE, apple, AlertDirection.ABOVE, 15_000);
+        alerts.register(BOB, apple, AlertDirection.ABOVE, 15_000);
+        assertTrue(alerts.delete(ALICE, alert.getId()));
+        assertEquals(1, alerts.accounts());
+
+        quote("AAPL", 15_000);
+        assertEquals(1, alerts.accounts(), "Bob's notification waits for a subscriber");
+        alerts.notifications(BOB).test().cancel();
+        assertEquals(0, alerts.accounts());
+    }
+
+    @Test
+    void laddersTriggerPrefixesAndSkipUntouchedUpdates() {
+        final AlertLadder ladder = new AlertLadder();
+        for (int i = 1; i <= 100; i++) {
+            ladder.add(AlertDirection.ABOVE, 1_000 + i, i);
+            ladder.add(AlertDirection.BELOW, 1_000 - i, -i);
+        }
+
+        assertNull(ladder.trigger(1_000), "no threshold crossed");
+        assertArrayEquals(new long[]{1, 2, 3}, ladder.trigger(1_003));
+        assertArrayEquals(new long[]{-1, -2}, ladder.trigger(998));
+        assertNull(ladder.trigger(1_003));
+        assertEquals(195, ladder.size());
+
+        assertTrue(ladder.remove(AlertDirection.ABOVE, 1_004, 4));
+        assertFalse(ladder.remove(AlertDirection.ABOVE, 1_004, 4));
+        assertArrayEquals(new long[]{5}, ladder.trigger(1_005));
+    }
+
+    @Test
+    void registersMillionAlertsAndTriggersNearestOnly() {
+        final int count = 1_000_000;
+        for (int i = 0; i < count; i++) {
+            final UUID account = i % 2 == 0 ? ALICE : BOB;
+            alerts.register(account, apple, AlertDirection.ABOVE, 20_000 + i % 50_000);
+        }
+        assertEquals(count, alerts.size());
+
+        final TestSubscriber<AlertNotification> notifications = alerts.notifications(ALICE).test();
+        quote("AAPL", 20_001);
+
+        // thresholds 20000 and 20001 are each held by 20 alerts, the even one by Alice
+        assertEquals(40, alerts.getTriggered());
+        assertEquals(count - 40, alerts.size());
+        notifications.assertValueCount(20);
+        assertTrue(notifications.values().stream()
+                .allMatch(notification -> notification.getAlert().getPrice().equals(new BigDecimal("200.00"))));
+    }
+
+    private void quote(final String symbol, final long lastPrice) {
+        store.update(symbol, lastPrice - 1, lastPrice + 1, lastPrice, 1);
+    }
+}
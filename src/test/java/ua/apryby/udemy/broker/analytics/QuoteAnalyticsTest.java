@@ -0,0 +1,95 @@
+package ua.apryby.udemy.broker.analytics;
+
+import org.junit.jupiter.api.Test;
+import ua.apryby.udemy.broker.model.QuoteStatistics;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.SymbolRegistry;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuoteAnalyticsTest {
+
+    private static final double DELTA = 1e-9;
+
+    private final InMemoryStore store = new InMemoryStore(new SymbolRegistry());
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final AnalyticsConfiguration configuration = new AnalyticsConfiguration();
+
+    @Test
+    void slidesTickWindowOverLastTicks() {
+        configuration.setTicks(3);
+        final QuoteAnalytics analytics = new QuoteAnalytics(store, configuration, clock::get);
+        tick(1_000, 1);
+        tick(2_000, 1);
+        tick(3_000, 2);
+        tick(4_000, 1);
+
+        final QuoteStatistics.Window window = analytics.statistics("AAPL").orElseThrow().getTicks();
+        assertEquals(3, window.getCount());
+        assertEquals(new BigDecimal("30.0000"), window.getSma());
+        // (20 * 1 + 30 * 2 + 40 * 1) / 4
+        assertEquals(new BigDecimal("30.0000"), window.getVwap());
+        final double expectedVolatility = Math.sqrt(square(Math.log(2.0)) + square(Math.log(1.5))
+                + square(Math.log(4.0 / 3)));
+        assertEquals(expectedVolatility, window.getVolatility(), DELTA);
+        // alpha 0.5: 10 -> 15 -> 22.5 -> 31.25
+        assertEquals(new BigDecimal("31.2500"), window.getEma());
+    }
+
+    @Test
+    void staysExactOverManyLapsOfTheWindow() {
+        configuration.setTicks(7);
+        final QuoteAnalytics analytics = new QuoteAnalytics(store, configuration, clock::get);
+        for (int i = 1; i <= 100_000; i++) {
+            tick(1_000 + i % 13 * 37, 1 + i % 5);
+        }
+        double sum = 0;
+        for (int i = 100_000 - 6; i <= 100_000; i++) {
+            sum += (1_000 + i % 13 * 37) / 100.0;
+        }
+
+        assertEquals(BigDecimal.valueOf(sum / 7).setScale(4, RoundingMode.HALF_EVEN),
+                analytics.statistics("AAPL").orElseThrow().getTicks().getSma());
+    }
+
+    @Test
+    void dropsTicksOlderThanTimeWindow() {
+        configuration.setWindow(Duration.ofSeconds(10));
+        configuration.setBuckets(10);
+        final QuoteAnalytics analytics = new QuoteAnalytics(store, configuration, clock::get);
+        tick(1_000, 5);
+        clock.addAndGet(5_000);
+        tick(3_000, 5);
+
+        QuoteStatistics.Window window = analytics.statistics("AAPL").orElseThrow().getTime();
+        assertEquals(2, window.getCount());
+        assertEquals(new BigDecimal("20.0000"), window.getVwap());
+        assertTrue(window.getEma().doubleValue() > 10.0 && window.getEma().doubleValue() < 30.0);
+
+        clock.addAndGet(6_000);
+        window = analytics.statistics("AAPL").orElseThrow().getTime();
+        assertEquals(1, window.getCount());
+        assertEquals(new BigDecimal("30.0000"), window.getSma());
+
+        clock.addAndGet(10_000);
+        window = analytics.statistics("AAPL").orElseThrow().getTime();
+        assertEquals(0, window.getCount());
+        assertNull(window.getVwap());
+        assertEquals("PT10S", window.getLength());
+    }
+
+    private void tick(final long lastPrice, final long volume) {
+        store.update("AAPL", lastPrice, lastPrice, lastPrice, volume);
+    }
+
+    private static double square(final double value) {
+        return value * value;
+    }
+}
@@ -0,0 +1,87 @@
+package ua.apryby.udemy.broker.execution;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.observers.TestObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EndpointExecutorTest {
+
+    private EndpointExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.stop();
+    }
+
+    @Test
+    void shedsRequestsBeyondThreadsAndQueue() throws Exception {
+        start(ExecutionMode.WORK_STEALING, 2, 3);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<TestObserver<Integer>> admitted = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final int value = i;
+            admitted.add(executor.execute("slow", () -> {
+                release.await();
+                return value;
+            }).test());
+        }
+
+        final TestObserver<Integer> shed = executor.execute("slow", () -> 42).test();
+        shed.assertError(RejectedExecutionException.class);
+        assertEquals(1, executor.getRejected("slow"));
+        assertEquals(1.0, executor.getSaturation());
+
+        release.countDown();
+        for (int i = 0; i < admitted.size(); i++) {
+            admitted.get(i).await(5, TimeUnit.SECONDS);
+            admitted.get(i).assertValue(i);
+        }
+        executor.execute("slow", () -> 42).test().await(5, TimeUnit.SECONDS);
+        assertEquals(1, executor.getRejected("slow"), "admitted again once drained");
+    }
+
+    @Test
+    void skipsRequestsCancelledWhileQueued() throws Exception {
+        start(ExecutionMode.WORK_STEALING, 1, 10);
+        final CountDownLatch release = new CountDownLatch(1);
+        final TestObserver<Integer> blocking = executor.execute("slow", () -> {
+            release.await();
+            return 1;
+        }).test();
+        final AtomicInteger calls = new AtomicInteger();
+        final Disposable cancelled = executor.execute("slow", calls::incrementAndGet).subscribe();
+        cancelled.dispose();
+
+        release.countDown();
+        blocking.await(5, TimeUnit.SECONDS);
+        executor.execute("slow", () -> 0).test().await(5, TimeUnit.SECONDS);
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void runsOnVirtualThreadsOrFallsBackToPool() throws Exception {
+        start(ExecutionMode.VIRTUAL_THREADS, 2, 2);
+        final TestObserver<String> result = executor.execute("thread", () -> "done").test();
+        result.await(5, TimeUnit.SECONDS);
+        result.assertValue("done");
+    }
+
+    private void start(final ExecutionMode mode, final int threads, final int queueSize) {
+        final ExecutionConfiguration configuration = new ExecutionConfiguration();
+        configuration.setMode(mode);
+        configuration.setThreads(threads);
+        configuration.setQueueSize(queueSize);
+        executor = new EndpointExecutor(configuration, new SimpleMeterRegistry());
+    }
+}
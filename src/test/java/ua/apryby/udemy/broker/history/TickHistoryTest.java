@@ -0,0 +1,87 @@
+package ua.apryby.udemy.broker.history;
+
+import org.junit.jupiter.api.Test;
+import ua.apryby.udemy.broker.model.Bar;
+import ua.apryby.udemy.broker.model.Tick;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.SymbolRegistry;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickHistoryTest {
+
+    private final InMemoryStore store = new InMemoryStore(new SymbolRegistry());
+    private final AtomicLong clock = new AtomicLong(0);
+    private final HistoryConfiguration configuration = new HistoryConfiguration();
+
+    @Test
+    void aggregatesBarsOnEveryUpdate() {
+        final TickHistory history = new TickHistory(store, configuration, clock::get);
+        tick(500, 1000, 2);
+        tick(900, 1200, 3);
+        tick(999, 900, 1);
+        tick(1_000, 1100, 4);
+        tick(61_000, 1050, 5);
+
+        final List<Bar> seconds = history.bars("AAPL", BarInterval.SECOND, 0, Long.MAX_VALUE).orElseThrow();
+        assertEquals(3, seconds.size(), "seconds without ticks have no bar");
+        assertBar(seconds.get(0), 0, "10.00", "12.00", "9.00", "9.00", 6);
+        assertBar(seconds.get(1), 1_000, "11.00", "11.00", "11.00", "11.00", 4);
+        assertBar(seconds.get(2), 61_000, "10.50", "10.50", "10.50", "10.50", 5);
+
+        final List<Bar> minutes = history.bars("AAPL", BarInterval.MINUTE, 0, Long.MAX_VALUE).orElseThrow();
+        assertEquals(2, minutes.size());
+        assertBar(minutes.get(0), 0, "10.00", "12.00", "9.00", "11.00", 10);
+
+        assertEquals(List.of(61_000L), history.bars("AAPL", BarInterval.SECOND, 61_500, 70_000).orElseThrow()
+                .stream().map(Bar::getTime).collect(Collectors.toList()),
+                "a bar overlapping the start of the range is included");
+        assertTrue(history.bars("UNKNOWN", BarInterval.SECOND, 0, 1).isEmpty());
+    }
+
+    @Test
+    void keepsMostRecentTicksWithinCapacity() {
+        configuration.setTicks(100);
+        final TickHistory history = new TickHistory(store, configuration, clock::get);
+        for (int i = 1; i <= 1_000; i++) {
+            tick(i, i, 1);
+        }
+
+        final List<Tick> ticks = history.ticks("AAPL", 0, Long.MAX_VALUE).orElseThrow();
+        assertEquals(128, ticks.size(), "capacity rounded up to whole chunks");
+        assertEquals(873, ticks.get(0).getTime());
+        assertEquals(1_000, ticks.get(ticks.size() - 1).getTime());
+        assertEquals(11, history.ticks("AAPL", 990, 1_000).orElseThrow().size());
+    }
+
+    @Test
+    void neverMovesBackInTime() {
+        final TickHistory history = new TickHistory(store, configuration, clock::get);
+        tick(5_000, 100, 1);
+        tick(4_000, 200, 1);
+
+        final List<Bar> bars = history.bars("AAPL", BarInterval.SECOND, 0, Long.MAX_VALUE).orElseThrow();
+        assertEquals(1, bars.size());
+        assertEquals(5_000, bars.get(0).getTime());
+        assertEquals(new BigDecimal("2.00"), bars.get(0).getClose());
+    }
+
+    private void tick(final long time, final long lastPrice, final long volume) {
+        clock.set(time);
+        store.update("AAPL", lastPrice, lastPrice, lastPrice, volume);
+    }
+
+    private static void assertBar(final Bar bar, final long time, final String open, final String high,
+                                  final String low, final String close, final long volume) {
+        assertEquals(time, bar.getTime());
+        assertEquals(List.of(new BigDecimal(open), new BigDecimal(high), new BigDecimal(low), new BigDecimal(close)),
+                List.of(bar.getOpen(), bar.getHigh(), bar.getLow(), bar.getClose()));
+        assertEquals(BigDecimal.valueOf(volume), bar.getVolume());
+    }
+}
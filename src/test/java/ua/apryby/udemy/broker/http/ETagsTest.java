@@ -0,0 +1,38 @@
+package ua.apryby.udemy.broker.http;
+
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ETagsTest {
+
+    @Test
+    void tagsDifferPerVersion() {
+        assertEquals(ETags.of(1), ETags.of(1));
+        assertNotEquals(ETags.of(1), ETags.of(2));
+        assertTrue(ETags.of(1).startsWith("\"") && ETags.of(1).endsWith("\""));
+    }
+
+    @Test
+    void matchesSingleListedWeakAndWildcardTags() {
+        final String etag = ETags.of(7);
+
+        assertFalse(ETags.matches(null, etag));
+        assertFalse(ETags.matches(ETags.of(6), etag));
+        assertTrue(ETags.matches(etag, etag));
+        assertTrue(ETags.matches(ETags.of(1) + ", " + etag + " ", etag));
+        assertTrue(ETags.matches("W/" + etag, etag));
+        assertTrue(ETags.matches("*", etag));
+    }
+
+    @Test
+    void notModifiedCarriesTag() {
+        final String etag = ETags.of(3);
+
+        assertNull(ETags.notModified(ETags.of(2), etag));
+        assertEquals(HttpStatus.NOT_MODIFIED, ETags.notModified(etag, etag).getStatus());
+        assertEquals(etag, ETags.notModified(etag, etag).getHeaders().get(HttpHeaders.ETAG));
+    }
+}
@@ -0,0 +1,164 @@
+package ua.apryby.udemy.broker.ingest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteTicks;
+import ua.apryby.udemy.broker.store.SymbolRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestionPipelineTest {
+
+    private final InMemoryStore store = new InMemoryStore(new SymbolRegistry());
+    private IngestionPipeline pipeline;
+
+    @AfterEach
+    void stop() {
+        pipeline.stop();
+    }
+
+    @Test
+    void startsNoThreadWithoutTicks() {
+        pipeline = pipeline(List.of(), 1024);
+        pipeline.start();
+
+        assertTrue(Thread.getAllStackTraces().keySet().stream()
+                .noneMatch(thread -> thread.getName().startsWith("quote-ingest")));
+    }
+
+    @Test
+    void publishesOnlyLatestTickPerSymbolOfABatch() throws InterruptedException {
+        pipeline = pipeline(List.of(), 1024);
+        pipeline.start();
+        final int apple = store.getRegistry().resolve("AAPL");
+        final int microsoft = store.getRegistry().resolve("MSFT");
+        final List<Long> published = new CopyOnWriteArrayList<>();
+        store.addListener(entry -> published.add(entry.getVersion()));
+        final CountDownLatch release = holdWriter();
+
+        for (int i = 1; i <= 100; i++) {
+            assertTrue(pipeline.offer(apple, i, i + 1, i, i));
+        }
+        pipeline.offer(microsoft, 7, 8, 7, 1);
+        pipeline.offer(SymbolRegistry.UNKNOWN, 1, 2, 1, 1);
+        release.countDown();
+        awaitPublished(3);
+
+        // the tick holding the writer plus the latest of each known symbol
+        assertEquals(3, published.size());
+        assertEquals(99, pipeline.getCoalesced());
+        assertEquals(1, pipeline.getUnknown());
+        final QuoteTicks ticks = new QuoteTicks();
+        store.fetchQuote("AAPL", ticks);
+        assertEquals(100, ticks.getLastPrice());
+        assertEquals(101, ticks.getAsk());
+        assertEquals(5_050, ticks.getVolume(), "volumes of the coalesced ticks add up");
+    }
+
+    @Test
+    void dropsOfferedTicksWhenFull() throws InterruptedException {
+        pipeline = pipeline(List.of(), 4);
+        pipeline.start();
+        final int apple = store.getRegistry().resolve("AAPL");
+        final CountDownLatch release = holdWriter();
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(pipeline.offer(apple, i, i, i, i));
+        }
+        assertFalse(pipeline.offer(apple, 5, 5, 5, 5));
+
+        assertEquals(5, pipeline.getAccepted());
+        assertEquals(1, pipeline.getDropped());
+        release.countDown();
+        awaitPublished(2);
+        assertTrue(pipeline.offer(apple, 5, 5, 5, 5));
+    }
+
+    @Test
+    void sourcesArePushedBackInsteadOfLosingTicks() throws Exception {
+        final int ticksPerSource = 200_000;
+        final List<TickSource> sources = new ArrayList<>();
+        for (String symbol : List.of("AAPL", "MSFT", "TSLA")) {
+            final int id = store.getRegistry().resolve(symbol);
+            sources.add(new TickSource() {
+                @Override
+                public String getName() {
+                    return symbol;
+                }
+
+                @Override
+                public void run(final TickSink sink) {
+                    for (int i = 1; i <= ticksPerSource; i++) {
+                        sink.put(id, i, i + 1, i, 1);
+                    }
+                }
+            });
+        }
+        pipeline = pipeline(sources, 64);
+        pipeline.start();
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ((pipeline.getAccepted() < 3L * ticksPerSource
+                || pipeline.getCoalesced() + pipeline.getPublished() < 3L * ticksPerSource)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(3L * ticksPerSource, pipeline.getAccepted());
+        assertEquals(0, pipeline.getDropped());
+        assertEquals(3L * ticksPerSource, pipeline.getCoalesced() + pipeline.getPublished());
+        final QuoteTicks ticks = new QuoteTicks();
+        for (String symbol : List.of("AAPL", "MSFT", "TSLA")) {
+            store.fetchQuote(symbol, ticks);
+            assertEquals(ticksPerSource, ticks.getLastPrice(), symbol);
+        }
+    }
+
+    /**
+     * Offers a tick whose publication blocks the writer until the returned latch is released, so the ticks
+     * offered meanwhile stay buffered.
+     */
+    private CountDownLatch holdWriter() throws InterruptedException {
+        final int held = store.getRegistry().resolve("TSLA");
+        final CountDownLatch holding = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        store.addListener(entry -> {
+            if (entry.getId() == held && holding.getCount() > 0) {
+                holding.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue(pipeline.offer(held, 1, 2, 1, 1));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    private void awaitPublished(final long published) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pipeline.getPublished() < published && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(published, pipeline.getPublished());
+    }
+
+    private IngestionPipeline pipeline(final List<TickSource> sources, final int bufferSize) {
+        final IngestionConfiguration configuration = new IngestionConfiguration();
+        configuration.setBufferSize(bufferSize);
+        configuration.setBatchSize(bufferSize);
+        return new IngestionPipeline(store, sources, configuration, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,222 @@
+package ua.apryby.udemy.broker.journal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micronaut.scheduling.ScheduledExecutorTaskScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ua.apryby.udemy.broker.model.Symbol;
+import ua.apryby.udemy.broker.model.WatchList;
+import ua.apryby.udemy.broker.store.InMemoryAccountStore;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteTicks;
+import ua.apryby.udemy.broker.store.SymbolRegistry;
+import ua.apryby.udemy.broker.store.TickSize;
+import ua.apryby.udemy.broker.store.Versioned;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalTest {
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void recoversJournaledChangesAfterACrash() throws IOException {
+        final Node first = start(64 * 1024);
+        final UUID account = UUID.randomUUID();
+        final UUID deleted = UUID.randomUUID();
+        first.store.listSymbol(new Symbol("BTC"), new TickSize(4, 8));
+        first.store.update("BTC", 1, 2, 3, 4);
+        first.store.update("AAPL", 10_000, 10_002, 10_001, 7);
+        first.accounts.updateWatchList(account, new WatchList(List.of(new Symbol("AAPL"), new Symbol("BTC"))));
+        first.accounts.addSymbol(account, new Symbol("UNLISTED"));
+        first.accounts.updateWatchList(deleted, new WatchList(List.of(new Symbol("TSLA"))));
+        first.accounts.deleteWatchList(deleted);
+        first.journal.flush();
+
+        final Node second = start(64 * 1024);
+
+        assertQuote(second.store, "BTC", 1, 2, 3, 4);
+        assertQuote(second.store, "AAPL", 10_000, 10_002, 10_001, 7);
+        assertEquals(new TickSize(4, 8).getVolumeScale(), second.store.quoteEntry("BTC").getTickSize().getVolumeScale());
+        final Versioned<WatchList> watchList = second.accounts.fetchWatchList(account);
+        assertEquals(first.accounts.fetchWatchList(account).getVersion(), watchList.getVersion());
+        assertEquals(List.of(new Symbol("AAPL"), new Symbol("BTC"), new Symbol("UNLISTED")),
+                watchList.getValue().getSymbols());
+        assertEquals(0, second.accounts.fetchWatchList(deleted).getVersion());
+        assertTrue(nextVersion(second.accounts) > watchList.getVersion(), "versions continue after restored ones");
+    }
+
+    @Test
+    void replayKeepsHighestVersionOfChangesJournaledOutOfOrder() throws IOException {
+        final Node first = start(64 * 1024);
+        final UUID account = UUID.randomUUID();
+        final UUID deleted = UUID.randomUUID();
+        // racing changes reach the journal in another order than they were applied in
+        first.journal.onWatchList(account, Versioned.of(6, new WatchList(List.of(new Symbol("AAPL")))));
+        first.journal.onWatchList(account, Versioned.of(5, new WatchList(List.of(new Symbol("MSFT")))));
+        first.journal.onWatchList(deleted, Versioned.of(8, null));
+        first.journal.onWatchList(deleted, Versioned.of(7, new WatchList(List.of(new Symbol("TSLA")))));
+        first.journal.flush();
+
+        final Node second = start(64 * 1024);
+
+        final Versioned<WatchList> watchList = second.accounts.fetchWatchList(account);
+        assertEquals(6, watchList.getVersion());
+        assertEquals(List.of(new Symbol("AAPL")), watchList.getValue().getSymbols());
+        assertEquals(0, second.accounts.fetchWatchList(deleted).getVersion());
+        assertTrue(nextVersion(second.accounts) > 8, "versions continue after replayed deletions");
+    }
+
+    @Test
+    void replaysTailOnTopOfSnapshotAcrossSegments() throws IOException {
+        final Node first = start(4096);
+        final UUID account = UUID.randomUUID();
+        for (int i = 1; i <= 5_000; i++) {
+            first.store.update("MSFT", i, i + 1, i, i);
+            if (i % 100 == 0) {
+                first.accounts.updateWatchList(account, new WatchList(List.of(new Symbol("S" + i))));
+            }
+        }
+        first.journal.snapshot();
+        first.store.update("MSFT", 42, 43, 42, 1);
+        first.accounts.addSymbol(account, new Symbol("AFTER"));
+        first.journal.flush();
+
+        assertTrue(JournalReader.segments(directory).size() <= 2, "segments before the snapshot are deleted");
+        final Node second = start(4096);
+
+        assertQuote(second.store, "MSFT", 42, 43, 42, 1);
+        assertEquals(List.of(new Symbol("S5000"), new Symbol("AFTER")),
+                second.accounts.getWatchList(account).getSymbols());
+    }
+
+    @Test
+    void ignoresTornRecordAndKeepsAppending() throws IOException {
+        final Node first = start(64 * 1024);
+        first.store.update("FB", 100, 101, 100, 1);
+        first.journal.flush();
+        final long intact = first.journal.getPosition();
+        first.store.update("FB", 200, 201, 200, 2);
+        first.journal.flush();
+        corrupt(intact + JournalRecords.HEADER_SIZE + 1);
+
+        final Node second = start(64 * 1024);
+        assertQuote(second.store, "FB", 100, 101, 100, 1);
+        second.store.update("FB", 300, 301, 300, 3);
+        second.journal.flush();
+
+        final Node third = start(64 * 1024);
+        assertQuote(third.store, "FB", 300, 301, 300, 3);
+    }
+
+    @Test
+    void checkpointsAccountsWithoutJournalingChanges() throws IOException {
+        final Node first = start(64 * 1024, false);
+        final List<UUID> accounts = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            final UUID account = UUID.randomUUID();
+            accounts.add(account);
+            first.accounts.updateWatchList(account,
+                    new WatchList(List.of(new Symbol("AAPL"), new Symbol("X" + i % 100))));
+        }
+        first.journal.snapshot();
+        first.accounts.addSymbol(accounts.get(0), new Symbol("LOST"));
+
+        final Node second = start(64 * 1024, false);
+
+        assertEquals(accounts.size(), second.accounts.size());
+        assertTrue(first.journal.getSnapshotSize() > 0);
+        for (int i = 0; i < accounts.size(); i += 997) {
+            assertEquals(List.of(new Symbol("AAPL"), new Symbol("X" + i % 100)),
+                    second.accounts.getWatchList(accounts.get(i)).getSymbols());
+        }
+    }
+
+    @Test
+    void skipsDamagedSnapshotEntirely() throws IOException {
+        final Node first = start(64 * 1024, false);
+        for (int i = 0; i < 10_000; i++) {
+            first.accounts.updateWatchList(UUID.randomUUID(), new WatchList(List.of(new Symbol("S" + i))));
+        }
+        first.journal.snapshot();
+        final Path snapshot = SnapshotFile.snapshots(directory).get(0);
+        final byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 0x55;
+        Files.write(snapshot, bytes);
+
+        final Node second = start(64 * 1024, false);
+        assertEquals(0, second.accounts.size(), "no chunk of a damaged snapshot is loaded");
+    }
+
+    private Node start(final int segmentSize) throws IOException {
+        return start(segmentSize, true);
+    }
+
+    private Node start(final int segmentSize, final boolean recordChanges) throws IOException {
+        final JournalConfiguration configuration = new JournalConfiguration();
+        configuration.setDirectory(directory.toString());
+        configuration.setSegmentSize(segmentSize);
+        configuration.setRecordChanges(recordChanges);
+        final SymbolRegistry registry = new SymbolRegistry();
+        final Node node = new Node(new InMemoryStore(registry), new InMemoryAccountStore(registry));
+        node.journal = new Journal(node.store, node.accounts, configuration,
+                new ScheduledExecutorTaskScheduler(executor), new SimpleMeterRegistry());
+        node.journal.start();
+        return node;
+    }
+
+    private void corrupt(final long position) throws IOException {
+        final List<Path> segments = JournalReader.segments(directory);
+        final Path last = segments.get(segments.size() - 1);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x55}), position - JournalRecords.basePosition(last));
+        }
+    }
+
+    private static long nextVersion(final InMemoryAccountStore accounts) {
+        final UUID probe = UUID.randomUUID();
+        accounts.updateWatchList(probe, WatchList.EMPTY);
+        return accounts.fetchWatchList(probe).getVersion();
+    }
+
+    private static void assertQuote(final InMemoryStore store, final String symbol,
+                                    final long bid, final long ask, final long lastPrice, final long volume) {
+        final QuoteTicks ticks = new QuoteTicks();
+        assertTrue(store.fetchQuote(symbol, ticks), symbol);
+        assertEquals(List.of(bid, ask, lastPrice, volume),
+                List.of(ticks.getBid(), ticks.getAsk(), ticks.getLastPrice(), ticks.getVolume()));
+    }
+
+    private static final class Node {
+        private final InMemoryStore store;
+        private final InMemoryAccountStore accounts;
+        private Journal journal;
+
+        private Node(final InMemoryStore store, final InMemoryAccountStore accounts) {
+            this.store = store;
+            this.accounts = accounts;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ua.apryby.udemy.broker.metrics;
+
+import io.micronaut.http.client.RxHttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@MicronautTest
+class PrometheusEndpointTest {
+
+    @Inject
+    @Client("/")
+    RxHttpClient client;
+
+    @Test
+    void exposesRouteLatencyHistogramsAndStoreCounters() {
+        client.toBlocking().retrieve("/markets", List.class);
+
+        final String scrape = client.toBlocking().retrieve("/prometheus");
+
+        assertThat(scrape)
+                .contains("http_server_requests_seconds_bucket")
+                .contains("uri=\"/markets\"")
+                .contains("broker_quotes_updates_total")
+                .contains("broker_quotes_json_cache_hits_total")
+                .contains("broker_watchlists_symbols")
+                .contains("jvm_gc_memory_allocated_bytes_total");
+    }
+}
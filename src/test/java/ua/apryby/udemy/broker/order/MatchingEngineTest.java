@@ -0,0 +1,167 @@
+package ua.apryby.udemy.broker.order;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ua.apryby.udemy.broker.ingest.TickSink;
+import ua.apryby.udemy.broker.model.Order;
+import ua.apryby.udemy.broker.model.OrderStatus;
+import ua.apryby.udemy.broker.model.OrderType;
+import ua.apryby.udemy.broker.model.Side;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.QuoteTicks;
+import ua.apryby.udemy.broker.store.SymbolRegistry;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MatchingEngineTest {
+
+    private static final UUID ACCOUNT = UUID.randomUUID();
+
+    private final InMemoryStore store = new InMemoryStore(new SymbolRegistry());
+    private final StoreSink sink = new StoreSink();
+    private final OrderConfiguration configuration = new OrderConfiguration();
+    private MatchingEngine engine;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        engine.stop();
+    }
+
+    @Test
+    void publishesTradesAsLastPriceAndVolume() throws Exception {
+        start(2);
+        final QuoteBook.Entry apple = store.quoteEntry("AAPL");
+        store.update(apple.getId(), 14_000, 16_000, 15_000, 1);
+
+        final Order resting = engine.submit(ACCOUNT, apple, Side.BUY, OrderType.LIMIT, 15_000, 7).get();
+        final Order partial = engine.submit(ACCOUNT, apple, Side.SELL, OrderType.LIMIT, 14_990, 10).get();
+
+        assertEquals(OrderStatus.NEW, resting.getStatus());
+        assertNull(resting.getAveragePrice());
+        assertEquals(OrderStatus.PARTIALLY_FILLED, partial.getStatus());
+        assertEquals(new BigDecimal("7"), partial.getFilledQuantity());
+        assertEquals(new BigDecimal("150.00"), partial.getAveragePrice());
+        final QuoteTicks quote = new QuoteTicks();
+        store.fetchQuote("AAPL", quote);
+        assertEquals(15_000, quote.getLastPrice());
+        assertEquals(7, quote.getVolume());
+        assertEquals(14_000, quote.getBid(), "without bids in the book both sides come from the feed");
+        assertEquals(16_000, quote.getAsk());
+
+        final Order market = engine.submit(ACCOUNT, apple, Side.BUY, OrderType.MARKET, 0, 5).get();
+        assertEquals(OrderStatus.CANCELLED, market.getStatus());
+        assertEquals(new BigDecimal("3"), market.getFilledQuantity());
+    }
+
+    @Test
+    void publishesOneTickPerOrderWithTheTopOfTheBook() throws Exception {
+        start(1);
+        final QuoteBook.Entry apple = store.quoteEntry("AAPL");
+        for (int level = 1; level <= 5; level++) {
+            engine.submit(ACCOUNT, apple, Side.SELL, OrderType.LIMIT, 10_000 + level, 10).get();
+        }
+        engine.submit(ACCOUNT, apple, Side.BUY, OrderType.LIMIT, 9_000, 10).get();
+        final long before = sink.ticks;
+
+        final Order sweep = engine.submit(ACCOUNT, apple, Side.BUY, OrderType.LIMIT, 10_004, 35).get();
+
+        assertEquals(OrderStatus.FILLED, sweep.getStatus());
+        assertEquals(1, sink.ticks - before, "trades of four levels are published once");
+        final QuoteTicks quote = new QuoteTicks();
+        store.fetchQuote("AAPL", quote);
+        assertEquals(10_004, quote.getLastPrice());
+        assertEquals(35, quote.getVolume());
+        assertEquals(9_000, quote.getBid());
+        assertEquals(10_004, quote.getAsk());
+    }
+
+    @Test
+    void matchesConcurrentSubmissionsWithoutLosingQuantity() throws Exception {
+        configuration.setQueueSize(32_768);
+        start(2);
+        final QuoteBook.Entry microsoft = store.quoteEntry("MSFT");
+        final List<CompletableFuture<Order>> results = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final Side side = t % 2 == 0 ? Side.BUY : Side.SELL;
+            final Thread thread = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    final CompletableFuture<Order> result = engine.submit(ACCOUNT, microsoft, side, OrderType.LIMIT,
+                            10_000, 1);
+                    synchronized (results) {
+                        results.add(result);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long filledOnEntry = 0;
+        for (CompletableFuture<Order> result : results) {
+            filledOnEntry += result.get().getFilledQuantity().longValueExact();
+        }
+        assertEquals(10_000, filledOnEntry, "every unit on one side traded against one on the other");
+        assertEquals(20_000, engine.getMatched());
+    }
+
+    @Test
+    void rejectsOrdersBeyondQueueCapacity() {
+        configuration.setQueueSize(2);
+        engine = new MatchingEngine(sink, List.of(), configuration, new SimpleMeterRegistry());
+        final QuoteBook.Entry apple = store.quoteEntry("AAPL");
+        final List<CompletableFuture<Order>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(engine.submit(ACCOUNT, apple, Side.BUY, OrderType.LIMIT, 100, 1));
+        }
+
+        assertEquals(true, results.get(2).isCompletedExceptionally());
+        assertEquals(1, engine.getRejected());
+        engine.start();
+        results.subList(0, 2).forEach(CompletableFuture::join);
+    }
+
+    private void start(final int matchers) {
+        configuration.setMatchers(matchers);
+        engine = new MatchingEngine(sink, List.of(), configuration, new SimpleMeterRegistry());
+        engine.start();
+    }
+
+    /**
+     * Publishes ticks right away on the offering thread.
+     */
+    private final class StoreSink implements TickSink {
+        private volatile long ticks;
+
+        @Override
+        public boolean offer(final int symbolId, final long bid, final long ask, final long lastPrice,
+                             final long volume) {
+            ticks++;
+            store.update(symbolId, bid, ask, lastPrice, volume);
+            return true;
+        }
+
+        @Override
+        public boolean put(final int symbolId, final long bid, final long ask, final long lastPrice,
+                           final long volume) {
+            return offer(symbolId, bid, ask, lastPrice, volume);
+        }
+
+        @Override
+        public boolean isRunning() {
+            return true;
+        }
+    }
+}
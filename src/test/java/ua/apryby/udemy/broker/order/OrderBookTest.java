@@ -0,0 +1,86 @@
+package ua.apryby.udemy.broker.order;
+
+import org.junit.jupiter.api.Test;
+import ua.apryby.udemy.broker.model.Side;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderBookTest {
+
+    private static final UUID MAKER = UUID.randomUUID();
+
+    private final OrderBook book = new OrderBook(new OrderPool(16));
+    private final Fills fills = new Fills();
+
+    @Test
+    void matchesBestPriceThenOldestOrderFirst() {
+        book.rest(1, MAKER, Side.SELL, 101, 5);
+        book.rest(2, MAKER, Side.SELL, 100, 3);
+        book.rest(3, MAKER, Side.SELL, 100, 4);
+        book.rest(4, MAKER, Side.SELL, 102, 1);
+
+        final long remaining = book.match(Side.BUY, 101, 10, fills);
+
+        assertEquals(0, remaining);
+        assertEquals(3, fills.count());
+        assertFill(0, 100, 3, 2);
+        assertFill(1, 100, 4, 3);
+        assertFill(2, 101, 3, 1);
+        assertEquals(101, book.bestAsk(0));
+        assertEquals(2, book.quantityAt(Side.SELL, 101));
+        assertEquals(2, book.depth(Side.SELL));
+    }
+
+    @Test
+    void stopsAtLimitAndRestsTheRest() {
+        book.rest(1, MAKER, Side.BUY, 99, 2);
+        book.rest(2, MAKER, Side.BUY, 98, 2);
+
+        final long remaining = book.match(Side.SELL, 99, 5, fills);
+        book.rest(3, MAKER, Side.SELL, 99, remaining);
+
+        assertEquals(3, remaining);
+        assertFill(0, 99, 2, 1);
+        assertEquals(98, book.bestBid(0));
+        assertEquals(99, book.bestAsk(0));
+        assertEquals(3, book.quantityAt(Side.SELL, 99));
+    }
+
+    @Test
+    void marketOrderSweepsUntilBookIsEmpty() {
+        book.rest(1, MAKER, Side.BUY, 50, 1);
+        book.rest(2, MAKER, Side.BUY, 10, 1);
+
+        final long remaining = book.match(Side.SELL, Long.MIN_VALUE, 5, fills);
+
+        assertEquals(3, remaining);
+        assertFill(0, 50, 1, 1);
+        assertFill(1, 10, 1, 2);
+        assertEquals(0, book.depth(Side.BUY));
+        assertEquals(-1, book.bestBid(-1));
+    }
+
+    @Test
+    void keepsLevelsSortedWhenInsertedInAnyOrder() {
+        final long[] prices = {105, 101, 109, 103, 107, 100, 108, 102, 106, 104};
+        for (int i = 0; i < prices.length; i++) {
+            book.rest(i, MAKER, Side.BUY, prices[i], 1);
+        }
+        for (long expected = 109; expected >= 100; expected--) {
+            assertEquals(expected, book.bestBid(0));
+            fills.clear();
+            book.match(Side.SELL, Long.MIN_VALUE, 1, fills);
+            assertFill(0, expected, 1, -1);
+        }
+    }
+
+    private void assertFill(final int fill, final long price, final long quantity, final long makerOrderId) {
+        assertEquals(price, fills.price(fill));
+        assertEquals(quantity, fills.quantity(fill));
+        if (makerOrderId >= 0) {
+            assertEquals(makerOrderId, fills.makerOrderId(fill));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ua.apryby.udemy.broker.portfolio;
+
+import org.junit.jupiter.api.Test;
+import ua.apryby.udemy.broker.model.Portfolio;
+import ua.apryby.udemy.broker.model.Position;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.QuoteBook;
+import ua.apryby.udemy.broker.store.SymbolRegistry;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PortfoliosTest {
+
+    private static final UUID ALICE = UUID.randomUUID();
+    private static final UUID BOB = UUID.randomUUID();
+
+    private final InMemoryStore store = new InMemoryStore(new SymbolRegistry());
+    private final Portfolios portfolios = new Portfolios(store);
+    private final QuoteBook.Entry apple = store.quoteEntry("AAPL");
+
+    @Test
+    void marksPositionsToMarketOnQuoteUpdates() {
+        trade(ALICE, BOB, 10_000, 10);
+        trade(ALICE, BOB, 11_000, 10);
+        quote("AAPL", 12_000);
+
+        final Position alice = position(ALICE);
+        assertEquals(new BigDecimal("20"), alice.getQuantity());
+        assertEquals(new BigDecimal("105.00"), alice.getAverageCost());
+        assertEquals(new BigDecimal("120.00"), alice.getLastPrice());
+        assertEquals(new BigDecimal("2400.00"), alice.getMarketValue());
+        assertEquals(new BigDecimal("300.00"), alice.getUnrealizedPnl());
+
+        final Position bob = position(BOB);
+        assertEquals(new BigDecimal("-20"), bob.getQuantity());
+        assertEquals(new BigDecimal("-300.00"), bob.getUnrealizedPnl());
+    }
+
+    @Test
+    void realizesProfitOfClosedQuantity() {
+        trade(ALICE, BOB, 10_000, 10);
+        trade(BOB, ALICE, 12_000, 4);
+        quote("AAPL", 12_000);
+
+        final Position alice = position(ALICE);
+        assertEquals(new BigDecimal("6"), alice.getQuantity());
+        assertEquals(new BigDecimal("80.00"), alice.getRealizedPnl());
+        assertEquals(new BigDecimal("120.00"), alice.getUnrealizedPnl());
+        assertEquals(new BigDecimal("-80.00"), position(BOB).getRealizedPnl());
+
+        trade(BOB, ALICE, 9_000, 10);
+        final Position flipped = position(ALICE);
+        assertEquals(new BigDecimal("-4"), flipped.getQuantity());
+        assertEquals(new BigDecimal("20.00"), flipped.getRealizedPnl());
+        assertEquals(new BigDecimal("90.00"), flipped.getAverageCost());
+    }
+
+    @Test
+    void revaluesOnlyOpenHoldingsOfTheUpdatedSymbol() {
+        trade(ALICE, BOB, 10_000, 1);
+        trade(BOB, ALICE, 10_000, 1);
+        quote("AAPL", 50_000);
+
+        final Position closed = position(ALICE);
+        assertEquals(new BigDecimal("0"), closed.getQuantity());
+        assertNull(closed.getAverageCost());
+        assertEquals(0, portfolios.portfolio(ALICE).getMarketValue().signum());
+        assertEquals(0, portfolios.holdings(apple.getId()).length, "flat holdings leave the symbol index");
+        assertTrue(portfolios.portfolio(UUID.randomUUID()).getPositions().isEmpty());
+    }
+
+    private void trade(final UUID buyer, final UUID seller, final long price, final long quantity) {
+        store.update(apple.getId(), price, price, price, quantity);
+        portfolios.onTrade(apple, buyer, seller, price, quantity);
+    }
+
+    private void quote(final String symbol, final long lastPrice) {
+        store.update(symbol, lastPrice, lastPrice, lastPrice, 1);
+    }
+
+    private Position position(final UUID account) {
+        final Portfolio portfolio = portfolios.portfolio(account);
+        assertEquals(1, portfolio.getPositions().size());
+        return portfolio.getPositions().get(0);
+    }
+}
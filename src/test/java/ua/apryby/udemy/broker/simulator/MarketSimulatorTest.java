@@ -0,0 +1,117 @@
+package ua.apryby.udemy.broker.simulator;
+
+import org.junit.jupiter.api.Test;
+import ua.apryby.udemy.broker.ingest.TickSink;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.SymbolRegistry;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MarketSimulatorTest {
+
+    private final InMemoryStore store = new InMemoryStore(new SymbolRegistry());
+    private final RecordingSink sink = new RecordingSink();
+
+    @Test
+    void listsAndQuotesSyntheticSymbols() {
+        simulator(10_000, 1_000);
+
+        assertEquals(10_007, store.getAllSymbols().size());
+        assertTrue(store.fetchQuote("S07PR").isPresent());
+    }
+
+    @Test
+    void namesSyntheticSymbolsWithinFiveCharacters() {
+        assertEquals("S0000", MarketSimulator.syntheticSymbol(0));
+        assertEquals("S07PR", MarketSimulator.syntheticSymbol(9_999));
+        assertEquals("SZZZZ", MarketSimulator.syntheticSymbol(MarketSimulator.MAX_SYNTHETIC_SYMBOLS - 1));
+    }
+
+    @Test
+    void advancesAsManySymbolsAsTheTickRateAllows() {
+        final MarketSimulator simulator = simulator(10_000, 1_000);
+        final long start = System.nanoTime();
+        final int initial = simulator.step(start);
+
+        final int tenMillis = simulator.step(start + TimeUnit.MILLISECONDS.toNanos(10));
+        assertEquals(10, tenMillis, 1);
+        // a stall of a minute offers at most a second of ticks
+        assertEquals(1_000, simulator.step(start + TimeUnit.SECONDS.toNanos(60)));
+        assertEquals(initial + tenMillis + 1_000, sink.ticks);
+    }
+
+    @Test
+    void reachesTickRateWithFewerSymbolsThanTicksPerStep() {
+        final MarketSimulator simulator = simulator(0, 1_000);
+        long now = System.nanoTime();
+        simulator.step(now);
+        final long before = sink.ticks;
+        for (int i = 0; i < 100; i++) {
+            now += TimeUnit.MILLISECONDS.toNanos(10);
+            simulator.step(now);
+        }
+
+        assertEquals(1_000, sink.ticks - before, 1);
+        assertEquals(7, sink.symbols.size());
+        assertEquals(0, sink.crossed);
+    }
+
+    @Test
+    void keepsBidBelowAsk() {
+        final MarketSimulator simulator = simulator(100, 107);
+        long now = System.nanoTime();
+        for (int i = 0; i < 1_000; i++) {
+            now += TimeUnit.SECONDS.toNanos(1);
+            simulator.step(now);
+        }
+
+        assertEquals(0, sink.crossed);
+        assertEquals(0, sink.nonPositive);
+    }
+
+    private MarketSimulator simulator(final int symbols, final int tickRate) {
+        final SimulatorConfiguration configuration = new SimulatorConfiguration();
+        configuration.setSymbols(symbols);
+        configuration.setTickRate(tickRate);
+        configuration.setVolatility(2);
+        configuration.setSpeed(TimeUnit.DAYS.toSeconds(30));
+        return new MarketSimulator(sink, store, null, configuration);
+    }
+
+    private static final class RecordingSink implements TickSink {
+        private final Set<Integer> symbols = new HashSet<>();
+        private long ticks;
+        private long crossed;
+        private long nonPositive;
+
+        @Override
+        public boolean offer(final int symbolId, final long bid, final long ask, final long lastPrice,
+                             final long volume) {
+            ticks++;
+            symbols.add(symbolId);
+            if (bid >= ask || lastPrice < bid || lastPrice > ask) {
+                crossed++;
+            }
+            if (bid <= 0 || volume <= 0) {
+                nonPositive++;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean put(final int symbolId, final long bid, final long ask, final long lastPrice,
+                           final long volume) {
+            return offer(symbolId, bid, ask, lastPrice, volume);
+        }
+
+        @Override
+        public boolean isRunning() {
+            return true;
+        }
+    }
+}
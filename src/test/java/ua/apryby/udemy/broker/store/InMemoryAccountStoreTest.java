@@ -0,0 +1,155 @@
+package ua.apryby.udemy.broker.store;
+
+import org.junit.jupiter.api.Test;
+import ua.apryby.udemy.broker.model.Symbol;
+import ua.apryby.udemy.broker.model.WatchList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryAccountStoreTest {
+
+    private static final int THREADS = 8;
+    private static final int SYMBOLS_PER_THREAD = 200;
+
+    private final SymbolRegistry registry = new SymbolRegistry();
+    private final InMemoryAccountStore store = new InMemoryAccountStore(registry);
+
+    @Test
+    void storesImmutableSnapshots() {
+        final UUID accountId = UUID.randomUUID();
+        final List<Symbol> symbols = new ArrayList<>(List.of(new Symbol("AAPL")));
+        store.updateWatchList(accountId, new WatchList(symbols));
+        symbols.add(new Symbol("MSFT"));
+
+        final WatchList stored = store.getWatchList(accountId);
+        assertEquals(1, stored.getSymbols().size());
+        assertThrows(UnsupportedOperationException.class, () -> stored.getSymbols().add(new Symbol("TSLA")));
+    }
+
+    @Test
+    void sharesEmptyWatchListAndRegisteredSymbolInstances() {
+        registry.register("AAPL");
+        assertSame(store.getWatchList(UUID.randomUUID()), store.getWatchList(UUID.randomUUID()));
+
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+        final WatchList stored = store.updateWatchList(first, new WatchList(List.of(new Symbol("AAPL"))));
+        store.addSymbol(second, new Symbol("AAPL"));
+
+        assertSame(stored, store.getWatchList(first));
+        assertSame(registry.symbol(registry.resolve("AAPL")), store.getWatchList(first).getSymbols().get(0));
+        assertSame(store.getWatchList(first).getSymbols().get(0), store.getWatchList(second).getSymbols().get(0));
+        assertSame(WatchList.EMPTY, store.updateWatchList(first, new WatchList()));
+    }
+
+    @Test
+    void countsSymbolsOfAllWatchLists() {
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+        store.updateWatchList(first, new WatchList(List.of(new Symbol("AAPL"), new Symbol("MSFT"))));
+        store.updateWatchList(second, new WatchList(List.of(new Symbol("AAPL"))));
+        store.patchWatchList(first, List.of(new Symbol("TSLA")), List.of(new Symbol("AAPL"), new Symbol("MSFT")));
+        assertEquals(2, store.symbolCount());
+
+        store.updateWatchList(second, new WatchList(List.of(new Symbol("FB"), new Symbol("GOOG"), new Symbol("NFLX"))));
+        store.deleteWatchList(first);
+        store.restoreWatchList(first, 100, List.of(new Symbol("AMZN")));
+        assertEquals(4, store.symbolCount());
+
+        store.restoreDeletion(second, 1_000);
+        assertEquals(1, store.symbolCount());
+    }
+
+    @Test
+    void restoreKeepsHigherVersion() {
+        final UUID accountId = UUID.randomUUID();
+        store.restoreWatchList(accountId, 6, List.of(new Symbol("AAPL")));
+        store.restoreWatchList(accountId, 5, List.of(new Symbol("MSFT")));
+        store.restoreDeletion(accountId, 4);
+
+        final Versioned<WatchList> restored = store.fetchWatchList(accountId);
+        assertEquals(6, restored.getVersion());
+        assertEquals(List.of(new Symbol("AAPL")), restored.getValue().getSymbols());
+
+        store.restoreDeletion(accountId, 7);
+        assertEquals(0, store.fetchWatchList(accountId).getVersion());
+        assertTrue(store.addSymbol(accountId, new Symbol("TSLA")).getVersion() > 7);
+    }
+
+    @Test
+    void patchOnlyChangesVersionWhenListChanges() {
+        final UUID accountId = UUID.randomUUID();
+        final Versioned<WatchList> added = store.addSymbol(accountId, new Symbol("AAPL"));
+        final Versioned<WatchList> again = store.addSymbol(accountId, new Symbol("AAPL"));
+        assertEquals(added.getVersion(), again.getVersion());
+
+        final Versioned<WatchList> patched = store.patchWatchList(accountId,
+                List.of(new Symbol("MSFT")), List.of(new Symbol("AAPL")));
+        assertTrue(patched.getVersion() > added.getVersion());
+        assertEquals(List.of(new Symbol("MSFT")), patched.getValue().getSymbols());
+
+        assertEquals(0, store.removeSymbol(UUID.randomUUID(), new Symbol("MSFT")).getVersion());
+    }
+
+    @Test
+    void noOpPatchesNeverNotifyWhileOtherChangesLand() throws InterruptedException {
+        final UUID accountId = UUID.randomUUID();
+        final AtomicInteger notified = new AtomicInteger();
+        store.addListener((id, watchList) -> notified.incrementAndGet());
+        final int updates = 20_000;
+        final Thread updater = new Thread(() -> {
+            for (int i = 0; i < updates; i++) {
+                store.updateWatchList(accountId, new WatchList(List.of(new Symbol(i % 2 == 0 ? "AAPL" : "MSFT"))));
+            }
+        });
+        updater.start();
+        while (updater.isAlive()) {
+            store.removeSymbol(accountId, new Symbol("TSLA"));
+        }
+        updater.join();
+
+        assertEquals(updates, notified.get());
+    }
+
+    @Test
+    void concurrentAddsToTheSameAccountAreNotLost() throws InterruptedException {
+        final UUID accountId = UUID.randomUUID();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < SYMBOLS_PER_THREAD; i++) {
+                    store.addSymbol(accountId, new Symbol("S" + thread + "-" + i));
+                    if (i % 2 == 1) {
+                        store.removeSymbol(accountId, new Symbol("S" + thread + "-" + (i - 1)));
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        final Versioned<WatchList> result = store.fetchWatchList(accountId);
+        assertThat(result.getValue().getSymbols())
+                .hasSize(THREADS * SYMBOLS_PER_THREAD / 2)
+                .allMatch(symbol -> Integer.parseInt(symbol.getValue().split("-")[1]) % 2 == 1);
+        assertEquals((long) THREADS * SYMBOLS_PER_THREAD * 3 / 2, result.getVersion());
+    }
+}
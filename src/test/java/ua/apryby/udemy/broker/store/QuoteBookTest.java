@@ -0,0 +1,193 @@
+package ua.apryby.udemy.broker.store;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.apryby.udemy.broker.model.Quote;
+import ua.apryby.udemy.broker.model.Symbol;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuoteBookTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QuoteBookTest.class);
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int UPDATES_PER_WRITER = 500_000;
+    private static final String[] SYMBOLS = {"AAPL", "AMZN", "FB", "GOOG", "MSFT", "NFLX", "TSLA"};
+
+    @Test
+    void returnsLatestPublishedQuoteWithIncreasingVersion() {
+        final QuoteBook book = new QuoteBook();
+        final QuoteTicks ticks = new QuoteTicks();
+        assertNull(book.entry("AAPL"));
+        assertFalse(book.read("AAPL", ticks));
+
+        final QuoteBook.Entry entry = book.register(new Symbol("AAPL"), TickSize.DEFAULT);
+        assertFalse(book.read("AAPL", ticks));
+        assertEquals(1, entry.update(100, 101, 102, 7));
+        assertEquals(2, book.publish(quote(new Symbol("AAPL"), new BigDecimal("12.345"))));
+
+        assertTrue(book.read("AAPL", ticks));
+        assertEquals(2, ticks.getVersion());
+        assertEquals(1234, ticks.getBid());
+        assertEquals(12, ticks.getVolume());
+        assertEquals(new BigDecimal("12.34"), ticks.toQuote().getBid());
+        assertEquals(1, book.size());
+    }
+
+    @Test
+    void reusesEncodedJsonUntilQuoteChanges() {
+        final QuoteBook book = new QuoteBook();
+        final QuoteBook.Entry entry = book.register(new Symbol("AAPL"), TickSize.DEFAULT);
+        assertNull(entry.json());
+
+        entry.update(1234, 1235, 1236, 10);
+        final QuoteBook.EncodedJson first = entry.json();
+        assertEquals("{\"symbol\":{\"value\":\"AAPL\"},\"bid\":12.34,\"ask\":12.35,\"lastPrice\":12.36,\"volume\":10}",
+                first.content().toString(StandardCharsets.UTF_8));
+        assertEquals(1, first.getVersion());
+        assertSame(first, entry.json());
+
+        entry.update(1, 2, 3, 4);
+        final QuoteBook.EncodedJson changed = entry.json();
+        assertEquals(2, changed.getVersion());
+        assertEquals("{\"symbol\":{\"value\":\"AAPL\"},\"bid\":0.01,\"ask\":0.02,\"lastPrice\":0.03,\"volume\":4}",
+                changed.content().toString(StandardCharsets.UTF_8));
+        assertEquals(1, book.getJsonHits());
+        assertEquals(2, book.getJsonMisses());
+        assertEquals(2, book.updates());
+    }
+
+    @Test
+    void readsLastPublishedQuoteWhileWriteIsInProgress() throws ReflectiveOperationException {
+        final QuoteBook book = new QuoteBook();
+        final QuoteBook.Entry entry = book.register(new Symbol("AAPL"), TickSize.DEFAULT);
+        entry.update(100, 101, 102, 7);
+        final Field sequence = QuoteBook.Entry.class.getDeclaredField("sequence");
+        sequence.setAccessible(true);
+        // a writer claimed version 2 and was descheduled before completing it
+        sequence.setLong(entry, 3);
+
+        final QuoteTicks ticks = new QuoteTicks();
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> assertTrue(book.read("AAPL", ticks)));
+        assertEquals(1, ticks.getVersion());
+        assertEquals(100, ticks.getBid());
+        assertEquals(7, ticks.getVolume());
+    }
+
+    @Test
+    void concurrentWritersNeitherTearNorLoseUpdates() throws InterruptedException {
+        final QuoteBook book = new QuoteBook();
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final AtomicLong torn = new AtomicLong();
+        final AtomicLong regressed = new AtomicLong();
+        final List<Thread> writers = new ArrayList<>();
+        final List<Thread> readers = new ArrayList<>();
+
+        final QuoteBook.Entry[] entries = new QuoteBook.Entry[SYMBOLS.length];
+        for (int s = 0; s < SYMBOLS.length; s++) {
+            entries[s] = book.register(new Symbol(SYMBOLS[s]), TickSize.DEFAULT);
+        }
+
+        for (int w = 0; w < WRITERS; w++) {
+            final int writer = w;
+            writers.add(new Thread(() -> {
+                await(start);
+                for (int i = 0; i < UPDATES_PER_WRITER; i++) {
+                    final long value = (long) writer * UPDATES_PER_WRITER + i;
+                    entries[i % entries.length].update(value, value, value, value);
+                }
+            }, "writer-" + w));
+        }
+        for (int r = 0; r < READERS; r++) {
+            readers.add(new Thread(() -> {
+                final QuoteTicks ticks = new QuoteTicks();
+                final long[] lastSeen = new long[SYMBOLS.length];
+                await(start);
+                while (writing.get()) {
+                    for (int s = 0; s < SYMBOLS.length; s++) {
+                        if (!book.read(SYMBOLS[s], ticks)) {
+                            continue;
+                        }
+                        if (ticks.getBid() != ticks.getAsk()
+                                || ticks.getBid() != ticks.getLastPrice()
+                                || ticks.getBid() != ticks.getVolume()
+                                || !ticks.getSymbol().getValue().equals(SYMBOLS[s])) {
+                            torn.incrementAndGet();
+                        }
+                        if (ticks.getVersion() < lastSeen[s]) {
+                            regressed.incrementAndGet();
+                        }
+                        lastSeen[s] = ticks.getVersion();
+                    }
+                }
+            }, "reader-" + r));
+        }
+
+        readers.forEach(Thread::start);
+        writers.forEach(Thread::start);
+        final long started = System.nanoTime();
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        final long elapsed = System.nanoTime() - started;
+        writing.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        final long total = (long) WRITERS * UPDATES_PER_WRITER;
+        LOG.debug("{} updates in {} ms ({} updates/sec)", total, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                total * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed));
+
+        assertEquals(0, torn.get(), "readers observed torn quotes");
+        assertEquals(0, regressed.get(), "readers observed a version going backwards");
+
+        long versions = 0;
+        for (int s = 0; s < SYMBOLS.length; s++) {
+            final long expected = WRITERS * expectedUpdatesFor(s);
+            final long version = entries[s].getVersion();
+            assertEquals(expected, version, "lost updates for " + SYMBOLS[s]);
+            versions += version;
+        }
+        assertEquals(total, versions);
+    }
+
+    private static long expectedUpdatesFor(final int symbolIndex) {
+        final int full = UPDATES_PER_WRITER / SYMBOLS.length;
+        return full + (symbolIndex < UPDATES_PER_WRITER % SYMBOLS.length ? 1 : 0);
+    }
+
+    private static Quote quote(final Symbol symbol, final BigDecimal value) {
+        return Quote.builder()
+                .symbol(symbol)
+                .bid(value)
+                .ask(value)
+                .lastPrice(value)
+                .volume(value)
+                .build();
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
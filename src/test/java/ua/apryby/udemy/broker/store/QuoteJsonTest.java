@@ -0,0 +1,45 @@
+package ua.apryby.udemy.broker.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+import ua.apryby.udemy.broker.model.Symbol;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuoteJsonTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void rendersSameDocumentAsJackson() throws Exception {
+        assertSameAsJackson(TickSize.DEFAULT, 12345, 12400, 7, 42);
+        assertSameAsJackson(TickSize.DEFAULT, 0, 1, 10, 0);
+        assertSameAsJackson(new TickSize(4, 2), -5, 1_000_000_000_000L, 123456789, 1);
+        assertSameAsJackson(new TickSize(4, 0), Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE);
+    }
+
+    @Test
+    void escapesSymbolOfUnknownQuote() {
+        final ByteBuf out = Unpooled.buffer();
+        QuoteJson.writeNotFound("A\"B\\C\n", out);
+        assertEquals("{\"symbol\":{\"value\":\"A\\\"B\\\\C\\u000a\"},\"error\":\"NOT_FOUND\"}",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    private void assertSameAsJackson(final TickSize tickSize, final long bid, final long ask,
+                                     final long lastPrice, final long volume) throws Exception {
+        final QuoteBook book = new QuoteBook();
+        book.register(new Symbol("AAPL"), tickSize).update(bid, ask, lastPrice, volume);
+        final QuoteTicks ticks = new QuoteTicks();
+        book.read("AAPL", ticks);
+
+        final ByteBuf out = Unpooled.buffer();
+        QuoteJson.write(ticks, out);
+
+        assertEquals(objectMapper.writeValueAsString(ticks.toQuote()), out.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,64 @@
+package ua.apryby.udemy.broker.store;
+
+import org.junit.jupiter.api.Test;
+import ua.apryby.udemy.broker.model.Symbol;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolRegistryTest {
+
+    private final SymbolRegistry registry = new SymbolRegistry();
+
+    @Test
+    void assignsDenseIdsOncePerTicker() {
+        assertEquals(SymbolRegistry.UNKNOWN, registry.resolve("AAPL"));
+
+        assertEquals(0, registry.register("AAPL"));
+        assertEquals(1, registry.register("MSFT"));
+        assertEquals(0, registry.register("AAPL"));
+
+        assertEquals(1, registry.resolve("MSFT"));
+        assertEquals(new Symbol("MSFT"), registry.symbol(1));
+        assertNull(registry.symbol(2));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    void internsOnlyRegisteredSymbols() {
+        registry.register("AAPL");
+        final Symbol apple = new Symbol("AAPL");
+        final Symbol unknown = new Symbol("XYZ");
+
+        assertSame(registry.symbol(0), registry.intern(apple));
+        assertSame(unknown, registry.intern(unknown));
+    }
+
+    @Test
+    void concurrentRegistrationsGetUniqueIds() throws InterruptedException {
+        final int tickers = 10_000;
+        final Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < tickers; i++) {
+                    ids.add(registry.register("T" + i));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(tickers, ids.size());
+        assertEquals(tickers, registry.size());
+        for (int i = 0; i < tickers; i++) {
+            assertEquals("T" + i, registry.symbol(registry.resolve("T" + i)).getValue());
+        }
+    }
+}
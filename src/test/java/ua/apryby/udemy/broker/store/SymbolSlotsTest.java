@@ -0,0 +1,32 @@
+package ua.apryby.udemy.broker.store;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SymbolSlotsTest {
+
+    private final SymbolSlots<String> slots = new SymbolSlots<>();
+
+    @Test
+    void createsEachValueOnceAndGrowsPastTheInitialSize() {
+        final String created = slots.computeIfAbsent(3, id -> "three");
+        assertSame(created, slots.computeIfAbsent(3, id -> "other"));
+        assertEquals("one thousand", slots.computeIfAbsent(1_000, id -> "one thousand"));
+
+        assertEquals("three", slots.get(3));
+        assertNull(slots.get(4));
+        assertNull(slots.get(-1));
+        assertNull(slots.get(5_000));
+    }
+
+    @Test
+    void replacesValuesThroughUpdates() {
+        assertEquals("a", slots.update(7, current -> current == null ? "a" : current + "b"));
+        assertEquals("ab", slots.update(7, current -> current == null ? "a" : current + "b"));
+        assertNull(slots.update(7, current -> null));
+        assertNull(slots.get(7));
+    }
+}
@@ -0,0 +1,62 @@
+package ua.apryby.udemy.broker.stream;
+
+import io.reactivex.subscribers.TestSubscriber;
+import org.junit.jupiter.api.Test;
+import ua.apryby.udemy.broker.model.Quote;
+import ua.apryby.udemy.broker.store.InMemoryStore;
+import ua.apryby.udemy.broker.store.SymbolRegistry;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuoteStreamTest {
+
+    private final InMemoryStore store = new InMemoryStore(new SymbolRegistry());
+    private final QuoteStream stream = new QuoteStream(store);
+
+    @Test
+    void startsWithCurrentQuoteAndEmitsChanges() {
+        final TestSubscriber<Quote> subscriber = stream.updates(List.of("AAPL")).test();
+        subscriber.assertValueCount(1);
+
+        store.update("AAPL", 1000, 1001, 1002, 5);
+
+        subscriber.assertValueCount(2);
+        assertEquals(new BigDecimal("10.02"), subscriber.values().get(1).getLastPrice());
+    }
+
+    @Test
+    void ignoresUnknownAndUnsubscribedSymbols() {
+        final TestSubscriber<Quote> subscriber = stream.updates(List.of("AAPL", "UNKNOWN")).test();
+        store.update("MSFT", 1000, 1001, 1002, 5);
+
+        subscriber.assertValueCount(1);
+        assertEquals("AAPL", subscriber.values().get(0).getSymbol().getValue());
+        assertTrue(stream.updates(List.of("UNKNOWN")).test().isTerminated());
+    }
+
+    @Test
+    void slowConsumerReceivesLatestPricePerSymbol() {
+        final TestSubscriber<Quote> subscriber = stream.updates(List.of("AAPL", "MSFT")).test(0);
+
+        for (int i = 1; i <= 10_000; i++) {
+            store.update("AAPL", i, i, i, i);
+            store.update("MSFT", 2 * i, 2 * i, 2 * i, i);
+        }
+        subscriber.request(Long.MAX_VALUE);
+
+        assertTrue(subscriber.valueCount() <= 4, "conflated to at most two quotes per symbol");
+        final List<Quote> values = subscriber.values();
+        final BigDecimal lastApple = values.stream()
+                .filter(quote -> quote.getSymbol().getValue().equals("AAPL"))
+                .reduce((first, second) -> second).orElseThrow().getLastPrice();
+        final BigDecimal lastMicrosoft = values.stream()
+                .filter(quote -> quote.getSymbol().getValue().equals("MSFT"))
+                .reduce((first, second) -> second).orElseThrow().getLastPrice();
+        assertEquals(new BigDecimal("100.00"), lastApple);
+        assertEquals(new BigDecimal("200.00"), lastMicrosoft);
+    }
+}